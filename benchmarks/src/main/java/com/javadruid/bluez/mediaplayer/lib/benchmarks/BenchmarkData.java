@@ -0,0 +1,30 @@
+package com.javadruid.bluez.mediaplayer.lib.benchmarks;
+
+import org.freedesktop.dbus.DBusMap;
+import org.freedesktop.dbus.types.UInt32;
+import org.freedesktop.dbus.types.Variant;
+
+/**
+ * Values shaped as BlueZ sends them, for the benchmarks.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * A {@code Track} dictionary as BlueZ sends it.
+     */
+    static DBusMap<String, Variant<?>> track(int trackNumber) {
+        return new DBusMap<>(new Object[][]{
+            {"Title", new Variant<>("Title " + trackNumber)},
+            {"Artist", new Variant<>("Artist")},
+            {"Album", new Variant<>("Album")},
+            {"Genre", new Variant<>("Genre")},
+            {"NumberOfTracks", new Variant<>(new UInt32(12))},
+            {"TrackNumber", new Variant<>(new UInt32(trackNumber))},
+            {"Duration", new Variant<>(new UInt32(215_000))}
+        });
+    }
+
+}
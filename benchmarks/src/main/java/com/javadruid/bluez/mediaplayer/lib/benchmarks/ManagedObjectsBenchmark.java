@@ -0,0 +1,64 @@
+package com.javadruid.bluez.mediaplayer.lib.benchmarks;
+
+import com.javadruid.bluez.mediaplayer.lib.MediaPlayer;
+import com.javadruid.bluez.mediaplayer.lib.MediaPlayerManager;
+import com.javadruid.bluez.mediaplayer.lib.TestSupport;
+import com.javadruid.bluez.mediaplayer.sim.SimulatedBluez;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link MediaPlayerManager#getMediaPlayers()} against a
+ * {@link SimulatedBluez} with many players. Players are canonical, so after
+ * the first invocation this measures the {@code GetManagedObjects} round
+ * trip over the private bus, the scan and the filtering.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ManagedObjectsBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int players;
+
+    private SimulatedBluez bluez;
+    private MediaPlayerManager manager;
+
+    @Setup
+    public void setUp() throws DBusException, IOException {
+        bluez = new SimulatedBluez(players);
+        manager = TestSupport.newManager(bluez.connect());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try {
+            manager.close();
+        } finally {
+            bluez.close();
+        }
+    }
+
+    @Benchmark
+    public List<MediaPlayer> getMediaPlayers() {
+        return manager.getMediaPlayers().toList();
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.javadruid.bluez.mediaplayer.lib.benchmarks;
+
+import com.javadruid.bluez.mediaplayer.lib.MediaPlayer;
+import com.javadruid.bluez.mediaplayer.lib.MediaPlayerManager;
+import com.javadruid.bluez.mediaplayer.lib.PlayerProperty;
+import com.javadruid.bluez.mediaplayer.lib.SignalRecorder;
+import com.javadruid.bluez.mediaplayer.lib.TestSupport;
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaPlayer1;
+import com.javadruid.bluez.mediaplayer.sim.SimulatedBluez;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.Properties.PropertiesChanged;
+import org.freedesktop.dbus.types.UInt32;
+import org.freedesktop.dbus.types.Variant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Delivery of {@code PropertiesChanged} signals: the {@code toObjectEntry}
+ * fan-out of one signal, and whole signals handed to the player's dispatcher,
+ * as the signal handler does, for a number of inline subscribers, with and
+ * without a {@link SignalRecorder} running.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SignalDispatchBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int subscribers;
+
+    @Param({"false", "true"})
+    public boolean recording;
+
+    private SimulatedBluez bluez;
+    private MediaPlayerManager manager;
+    private MediaPlayer player;
+    private PropertiesChanged signal;
+    private Path file;
+    private SignalRecorder recorder;
+
+    @Setup
+    public void setUp(Blackhole blackhole) throws DBusException, IOException {
+        bluez = new SimulatedBluez(1);
+        manager = TestSupport.newManager(bluez.connect());
+        player = manager.getMediaPlayers().findFirst().orElseThrow();
+        for (int i = 0; i < subscribers; i++)
+            player.subscribe(blackhole::consume);
+        signal = new PropertiesChanged(player.getObjectPath(), MediaPlayer1.DBUS_INTERFACE_NAME, Map.of(
+            PlayerProperty.POSITION.name(), new Variant<>(new UInt32(42_000)),
+            PlayerProperty.STATUS.name(), new Variant<>("playing"),
+            PlayerProperty.TRACK.name(), new Variant<>(BenchmarkData.track(3), "a{sv}")), List.of());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try {
+            manager.close();
+        } finally {
+            bluez.close();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void startRecording() throws IOException {
+        if (recording) {
+            file = Files.createTempFile("signals", ".bin");
+            recorder = SignalRecorder.start(file);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopRecording() throws IOException {
+        if (recorder != null) {
+            recorder.close();
+            Files.delete(file);
+            recorder = null;
+        }
+    }
+
+    @Benchmark
+    public void toObjectEntry(Blackhole blackhole) {
+        for (Map.Entry<String, Variant<?>> e : signal.getPropertiesChanged().entrySet())
+            blackhole.consume(TestSupport.toObjectEntry(e));
+    }
+
+    @Benchmark
+    public void dispatch() {
+        TestSupport.dispatch(player, signal);
+    }
+
+}
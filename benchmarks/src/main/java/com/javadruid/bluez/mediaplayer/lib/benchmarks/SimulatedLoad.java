@@ -0,0 +1,78 @@
+package com.javadruid.bluez.mediaplayer.lib.benchmarks;
+
+import com.javadruid.bluez.mediaplayer.lib.MediaPlayer;
+import com.javadruid.bluez.mediaplayer.lib.MediaPlayerManager;
+import com.javadruid.bluez.mediaplayer.lib.MediaPlayerRegistry;
+import com.javadruid.bluez.mediaplayer.lib.TestSupport;
+import com.javadruid.bluez.mediaplayer.sim.SimulatedBluez;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+
+/**
+ * Load and soak run against {@link SimulatedBluez}: measures discovery of
+ * all players, then signal delivery to one subscriber per player at the
+ * requested rate.
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.javadruid.bluez.mediaplayer.lib.benchmarks.SimulatedLoad \
+ *     [players] [signals per second] [seconds] [latency ms] [error rate] [connections]
+ * </pre>
+ */
+public class SimulatedLoad {
+
+    public static void main(String[] args) throws Exception {
+        final int playerCount = args.length > 0? Integer.parseInt(args[0]): 1000;
+        final int rate = args.length > 1? Integer.parseInt(args[1]): 10_000;
+        final int seconds = args.length > 2? Integer.parseInt(args[2]): 30;
+        final Duration latency = Duration.ofMillis(args.length > 3? Long.parseLong(args[3]): 0);
+        final double errorRate = args.length > 4? Double.parseDouble(args[4]): 0;
+        final int connectionCount = args.length > 5? Integer.parseInt(args[5]): 1;
+
+        try (SimulatedBluez bluez = new SimulatedBluez(playerCount);
+                MediaPlayerManager manager = TestSupport.newManager(connect(bluez, connectionCount))) {
+            bluez.setLatency(latency);
+            bluez.setErrorRate(errorRate);
+
+            long start = System.nanoTime();
+            final List<MediaPlayer> players = manager.getMediaPlayers().toList();
+            System.out.printf("discovery: %d players in %d ms%n", players.size(), elapsedMillis(start));
+
+            start = System.nanoTime();
+            final MediaPlayerRegistry registry = manager.registry();
+            System.out.printf("registry: %d players in %d ms%n", registry.currentPlayers().size(), elapsedMillis(start));
+
+            final LongAdder received = new LongAdder();
+            start = System.nanoTime();
+            players.forEach(p -> p.subscribe(e -> received.increment()));
+            System.out.printf("subscribe: %d players in %d ms%n", players.size(), elapsedMillis(start));
+
+            bluez.setSignalRate(rate);
+            start = System.nanoTime();
+            for (int s = 1; s <= seconds; s++) {
+                Thread.sleep(1000);
+                System.out.printf("%4ds: sent %d, received %d property changes%n",
+                    s, bluez.getSignalsSent(), received.sum());
+            }
+            bluez.setSignalRate(0);
+            final long elapsed = elapsedMillis(start);
+            System.out.printf("signals: %d sent, %.0f/s; %d property changes received, %.0f/s%n",
+                bluez.getSignalsSent(), bluez.getSignalsSent() * 1000.0 / elapsed,
+                received.sum(), received.sum() * 1000.0 / elapsed);
+        }
+    }
+
+    private static List<DBusConnection> connect(SimulatedBluez bluez, int count) throws DBusException {
+        final List<DBusConnection> connections = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            connections.add(bluez.connect());
+        return connections;
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+}
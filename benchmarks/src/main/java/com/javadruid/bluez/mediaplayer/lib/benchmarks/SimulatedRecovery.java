@@ -0,0 +1,104 @@
+package com.javadruid.bluez.mediaplayer.lib.benchmarks;
+
+import com.javadruid.bluez.mediaplayer.lib.CallStatistics;
+import com.javadruid.bluez.mediaplayer.lib.MediaPlayer;
+import com.javadruid.bluez.mediaplayer.lib.MediaPlayerManager;
+import com.javadruid.bluez.mediaplayer.lib.TestSupport;
+import com.javadruid.bluez.mediaplayer.sim.SimulatedBluez;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+
+/**
+ * Recovery run against {@link SimulatedBluez}: restarts the simulated
+ * service and drops the client connection in turn, and measures how long it
+ * takes for property changes to reach the existing subscribers again.
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.javadruid.bluez.mediaplayer.lib.benchmarks.SimulatedRecovery \
+ *     [players] [rounds]
+ * </pre>
+ */
+public class SimulatedRecovery {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    public static void main(String[] args) throws Exception {
+        final int playerCount = args.length > 0? Integer.parseInt(args[0]): 100;
+        final int rounds = args.length > 1? Integer.parseInt(args[1]): 5;
+
+        try (SimulatedBluez bluez = new SimulatedBluez(playerCount);
+                MediaPlayerManager manager = TestSupport.newManager(() -> connect(bluez))) {
+            manager.enableReconnect(Duration.ofMillis(10), Duration.ofSeconds(1));
+            final List<MediaPlayer> players = List.copyOf(manager.registry().currentPlayers());
+            final LongAdder received = new LongAdder();
+            players.forEach(p -> p.subscribe(e -> received.increment()));
+            players.get(0).enableCache();
+            bluez.setSignalRate(playerCount * 10);
+
+            System.out.printf("warm up: signals after %d ms%n", awaitSignals(received, System.nanoTime()));
+            for (int round = 1; round <= rounds; round++) {
+                long recovered = recoveries();
+                long start = System.nanoTime();
+                bluez.restart();
+                System.out.printf("round %d: service restart, signals after %d ms, recovered after %d ms%n",
+                    round, awaitSignals(received, start), awaitRecovery(recovered, start));
+
+                recovered = recoveries();
+                start = System.nanoTime();
+                TestSupport.primaryConnection(manager).disconnect();
+                System.out.printf("round %d: connection lost, signals after %d ms, recovered after %d ms%n",
+                    round, awaitSignals(received, start), awaitRecovery(recovered, start));
+            }
+            final boolean kept = players.stream()
+                .allMatch(p -> manager.registry().currentPlayers().stream().anyMatch(c -> c == p));
+            System.out.printf("players kept: %s, cache loaded: %s, recoveries: %s%n",
+                kept, players.get(0).getName().isPresent(), TestSupport.recoveries());
+        }
+    }
+
+    /**
+     * Waits for a fresh burst of property changes, received after
+     * {@code start}, and returns the time since {@code start}.
+     */
+    private static long awaitSignals(LongAdder received, long start) throws InterruptedException {
+        Thread.sleep(50);
+        final long before = received.sum();
+        final long deadline = start + TIMEOUT.toNanos();
+        while (received.sum() < before + 10) {
+            if (System.nanoTime() > deadline)
+                return -1;
+            Thread.sleep(1);
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    /**
+     * Waits for a successful recovery after the first {@code recovered} ones
+     * and returns the time since {@code start}.
+     */
+    private static long awaitRecovery(long recovered, long start) throws InterruptedException {
+        final long deadline = start + TIMEOUT.toNanos();
+        while (recoveries() <= recovered) {
+            if (System.nanoTime() > deadline)
+                return -1;
+            Thread.sleep(1);
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static long recoveries() {
+        final CallStatistics recoveries = TestSupport.recoveries();
+        return recoveries.count() - recoveries.errors();
+    }
+
+    private static List<DBusConnection> connect(SimulatedBluez bluez) {
+        try {
+            return List.of(bluez.connect());
+        } catch (DBusException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.javadruid.bluez.mediaplayer.lib.benchmarks;
+
+import com.javadruid.bluez.mediaplayer.lib.MediaPlayer;
+import com.javadruid.bluez.mediaplayer.lib.MediaPlayerManager;
+import com.javadruid.bluez.mediaplayer.lib.TestSupport;
+import com.javadruid.bluez.mediaplayer.lib.Track;
+import com.javadruid.bluez.mediaplayer.sim.SimulatedBluez;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.types.Variant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decoding of the {@code Track} dictionary, on its own and through a cached
+ * {@link MediaPlayer#getTrack()}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrackDecodingBenchmark {
+
+    private Map<String, Variant<?>> track;
+    private SimulatedBluez bluez;
+    private MediaPlayerManager manager;
+    private MediaPlayer player;
+
+    @Setup
+    public void setUp() throws DBusException, IOException {
+        track = BenchmarkData.track(3);
+        bluez = new SimulatedBluez(1);
+        manager = TestSupport.newManager(bluez.connect());
+        player = manager.getMediaPlayers().findFirst().orElseThrow();
+        player.enableCache();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try {
+            manager.close();
+        } finally {
+            bluez.close();
+        }
+    }
+
+    @Benchmark
+    public Track toTrack() {
+        return TestSupport.toTrack(track);
+    }
+
+    @Benchmark
+    public Track getTrack() {
+        return player.getTrack().orElseThrow();
+    }
+
+}
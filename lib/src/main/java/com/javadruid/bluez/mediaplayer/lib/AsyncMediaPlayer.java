@@ -0,0 +1,171 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static com.javadruid.bluez.mediaplayer.lib.MediaPlayer.*;
+
+/**
+ * Non-blocking view of a {@link MediaPlayer}. Every call is sent straight
+ * away and returns a future that completes on the D-Bus reply, so no thread
+ * is parked waiting for bluetoothd.
+ * <p>
+ * Commands and property writes complete exceptionally when bluetoothd
+ * replies with an error. Property reads behave like their blocking
+ * counterparts and complete with an empty value instead. Key events of a
+ * player sending them fire-and-forget complete once they are queued.
+ */
+public class AsyncMediaPlayer {
+
+    private final MediaPlayer player;
+
+    AsyncMediaPlayer(MediaPlayer player) {
+        this.player = player;
+    }
+
+    public MediaPlayer getPlayer() {
+        return player;
+    }
+
+    // Methods
+    public CompletableFuture<Void> fastForward() {
+        return player.callObjectMethodAsync(FAST_FORWARD);
+    }
+
+    public CompletableFuture<Void> hold(byte avc_key) {
+        if (player.isFireAndForgetKeys())
+            return player.sendKeyEvent(HOLD, avc_key);
+        return player.callKeyMethodAsync(HOLD, avc_key);
+    }
+
+    public CompletableFuture<Void> next() {
+        return player.callObjectMethodAsync(NEXT);
+    }
+
+    public CompletableFuture<Void> pause() {
+        return player.callObjectMethodAsync(PAUSE);
+    }
+
+    public CompletableFuture<Void> play() {
+        return player.callObjectMethodAsync(PLAY);
+    }
+
+    public CompletableFuture<Void> press(byte avc_key) {
+        if (player.isFireAndForgetKeys())
+            return player.sendKeyEvent(PRESS, avc_key);
+        return player.callKeyMethodAsync(PRESS, avc_key);
+    }
+
+    public CompletableFuture<Void> previous() {
+        return player.callObjectMethodAsync(PREVIOUS);
+    }
+
+    public CompletableFuture<Void> release() {
+        if (player.isFireAndForgetKeys())
+            return player.sendKeyEvent(RELEASE);
+        return player.callObjectMethodAsync(RELEASE);
+    }
+
+    public CompletableFuture<Void> rewind() {
+        return player.callObjectMethodAsync(REWIND);
+    }
+
+    public CompletableFuture<Void> stop() {
+        return player.callObjectMethodAsync(STOP);
+    }
+
+    // Properties
+    public CompletableFuture<Optional<Boolean>> isBrowsable() {
+        return player.getPropertyAsync(BROWSABLE)
+            .thenApply(v -> Optional.ofNullable((Boolean) v));
+    }
+
+    public CompletableFuture<Optional<String>> getDevice() {
+        return player.getPropertyAsync(DEVICE)
+            .thenApply(v -> Optional.ofNullable(toPath(v)));
+    }
+
+    public CompletableFuture<Optional<String>> getEqualizer() {
+        return getString(EQUALIZER);
+    }
+
+    public CompletableFuture<Void> setEqualizer(String equalizer) {
+        return player.setPropertyAsync(EQUALIZER, equalizer);
+    }
+
+    public CompletableFuture<Optional<String>> getName() {
+        return getString(NAME);
+    }
+
+    public CompletableFuture<Optional<String>> getPlaylist() {
+        return player.getPropertyAsync(PLAYLIST)
+            .thenApply(v -> Optional.ofNullable(toPath(v)));
+    }
+
+    public CompletableFuture<Optional<Integer>> getPosition() {
+        return player.getPropertyAsync(POSITION)
+            .thenApply(v -> Optional.ofNullable(toInteger(v)));
+    }
+
+    public CompletableFuture<Optional<String>> getRepeat() {
+        return getString(REPEAT);
+    }
+
+    public CompletableFuture<Optional<String>> getScan() {
+        return getString(SCAN);
+    }
+
+    public CompletableFuture<Optional<Boolean>> isSearchable() {
+        return player.getPropertyAsync(SEARCHABLE)
+            .thenApply(v -> Optional.ofNullable((Boolean) v));
+    }
+
+    public CompletableFuture<Optional<String>> getShuffle() {
+        return getString(SHUFFLE);
+    }
+
+    public CompletableFuture<Optional<String>> getStatus() {
+        return getString(STATUS);
+    }
+
+    public CompletableFuture<Optional<String>> getSubtype() {
+        return getString(SUBTYPE);
+    }
+
+    public CompletableFuture<Optional<Track>> getTrack() {
+        return player.getPropertyAsync(TRACK)
+            .thenApply(v -> Optional.ofNullable(player.decodeTrack(v)));
+    }
+
+    public CompletableFuture<Optional<Map<String, Object>>> getTrackMetadata() {
+        return player.getPropertyAsync(TRACK)
+            .thenApply(v -> Optional.ofNullable(player.decodeTrackMetadata(v)));
+    }
+
+    public CompletableFuture<Optional<String>> getType() {
+        return getString(TYPE);
+    }
+
+    public <T> CompletableFuture<Optional<T>> get(PlayerProperty<T> property) {
+        return player.getPropertyAsync(property.name())
+            .thenApply(v -> Optional.ofNullable(player.decode(property, v)));
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the property is read only
+     */
+    public <T> CompletableFuture<Void> set(PlayerProperty<T> property, T value) {
+        return player.setPropertyAsync(property.name(), property.encode(value));
+    }
+
+    public CompletableFuture<PlayerState> snapshot() {
+        return player.snapshotAsync();
+    }
+
+    private CompletableFuture<Optional<String>> getString(String propertyName) {
+        return player.getPropertyAsync(propertyName)
+            .thenApply(v -> Optional.ofNullable((String) v));
+    }
+
+}
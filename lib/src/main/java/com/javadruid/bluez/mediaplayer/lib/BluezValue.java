@@ -0,0 +1,10 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+/**
+ * An enumerated property value, with the string BlueZ uses for it.
+ */
+public interface BluezValue {
+
+    String value();
+
+}
@@ -0,0 +1,8 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+/**
+ * Counters and latency percentiles of one D-Bus method or property, as
+ * exposed through {@link MediaPlayerMetricsMXBean}.
+ */
+public record CallStatistics(long count, long errors, double p50Millis, double p99Millis, double maxMillis) {
+}
@@ -0,0 +1,22 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import java.util.concurrent.CompletableFuture;
+import org.freedesktop.dbus.exceptions.DBusExecutionException;
+import org.freedesktop.dbus.interfaces.CallbackHandler;
+
+/**
+ * Bridges dbus-java reply callbacks to a {@link CompletableFuture}.
+ */
+class CompletableCallback<T> extends CompletableFuture<T> implements CallbackHandler<T> {
+
+    @Override
+    public void handle(T result) {
+        complete(result);
+    }
+
+    @Override
+    public void handleError(DBusExecutionException ex) {
+        completeExceptionally(ex);
+    }
+
+}
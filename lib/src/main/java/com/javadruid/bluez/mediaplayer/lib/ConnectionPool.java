@@ -0,0 +1,104 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fixed set of bus connections that players are spread across. dbus-java
+ * reads and writes each connection on a single thread, so players on
+ * different connections do not queue behind each other. A player is always
+ * assigned to the same connection, chosen from the hash of its object path.
+ * <p>
+ * The first connection is the primary one, used for the object manager and
+ * for scans.
+ */
+class ConnectionPool implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+
+    private final List<DBusConnection> connections;
+
+    ConnectionPool(List<DBusConnection> connections) {
+        if (connections.isEmpty())
+            throw new IllegalArgumentException("No connections");
+        this.connections = List.copyOf(connections);
+    }
+
+    /**
+     * Opens {@code size} private connections to the system bus. A pool of
+     * one uses the shared system bus connection instead.
+     */
+    static ConnectionPool open(int size) {
+        if (size < 1)
+            throw new IllegalArgumentException("Connection count must be positive: " + size);
+        final List<DBusConnection> opened = new ArrayList<>(size);
+        try {
+            if (size == 1) {
+                opened.add(DBusConnection.getConnection(DBusConnection.DBusBusType.SYSTEM));
+            } else {
+                for (int i = 0; i < size; i++)
+                    opened.add(DBusConnection.newConnection(DBusConnection.DBusBusType.SYSTEM));
+            }
+        } catch (DBusException ex) {
+            logger.error("Error creating connection", ex);
+            opened.forEach(DBusConnection::disconnect);
+            throw new RuntimeException(ex);
+        }
+        return new ConnectionPool(opened);
+    }
+
+    DBusConnection primary() {
+        return connections.get(0);
+    }
+
+    DBusConnection forPath(String objectPath) {
+        return connections.get(index(objectPath, connections.size()));
+    }
+
+    int size() {
+        return connections.size();
+    }
+
+    boolean isConnected() {
+        return connections.stream().allMatch(DBusConnection::isConnected);
+    }
+
+    static int index(String objectPath, int size) {
+        return Math.floorMod(objectPath.hashCode(), size);
+    }
+
+    /**
+     * Closes every connection, even when closing an earlier one fails.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (DBusConnection connection : connections) {
+            try {
+                connection.close();
+            } catch (IOException ex) {
+                if (failure == null)
+                    failure = ex;
+                else
+                    failure.addSuppressed(ex);
+            }
+        }
+        if (failure != null)
+            throw failure;
+    }
+
+    void closeQuietly() {
+        try {
+            close();
+        } catch (IOException | RuntimeException ex) {
+            logger.debug("Error closing connections", ex);
+        }
+    }
+
+}
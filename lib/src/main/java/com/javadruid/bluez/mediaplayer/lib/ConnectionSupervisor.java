@@ -0,0 +1,164 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaPlayer1;
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.DBus.NameOwnerChanged;
+import org.freedesktop.dbus.interfaces.DBusSigHandler;
+import org.freedesktop.dbus.interfaces.Local.Disconnected;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watches the connections of a {@link MediaPlayerManager} and the owner of
+ * the BlueZ bus name, and has the manager recover when either is lost. A
+ * recovery is attempted as soon as bluetoothd takes the name again or the
+ * connection reports it is gone, and then retried with exponential backoff
+ * until it succeeds. Lost connections are also caught by polling, as
+ * dbus-java does not report every failure.
+ * <p>
+ * The recovery state is confined to the supervisor thread.
+ */
+class ConnectionSupervisor implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionSupervisor.class);
+
+    private final MediaPlayerManager manager;
+    private final long initialBackoff;
+    private final long maxBackoff;
+    private final long pollInterval;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread thread = new Thread(r, "bluez-reconnect");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final DBusSigHandler<NameOwnerChanged> ownerHandler = this::onNameOwnerChanged;
+    private final DBusSigHandler<Disconnected> disconnectHandler = s -> submit(this::poll);
+
+    private volatile boolean closed;
+    private DBusConnection watched;
+    private ScheduledFuture<?> retry;
+    private boolean recovering;
+    private long backoff;
+
+    ConnectionSupervisor(MediaPlayerManager manager, Duration initialBackoff, Duration maxBackoff, Duration pollInterval) {
+        this.manager = manager;
+        this.initialBackoff = Math.max(1, initialBackoff.toMillis());
+        this.maxBackoff = Math.max(this.initialBackoff, maxBackoff.toMillis());
+        this.pollInterval = pollInterval.toMillis();
+    }
+
+    void start() {
+        scheduler.execute(this::watch);
+        scheduler.scheduleWithFixedDelay(this::poll, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Removes the signal handlers, then stops the supervisor thread. A
+     * signal already being delivered is dropped.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        unwatch();
+        scheduler.shutdownNow();
+    }
+
+    private void onNameOwnerChanged(NameOwnerChanged signal) {
+        if (!MediaPlayer1.BUS_NAME.equals(signal.name))
+            return;
+        if (signal.newOwner.isEmpty()) {
+            logger.warn("{} left the bus", signal.name);
+        } else {
+            logger.info("{} is now owned by {}", signal.name, signal.newOwner);
+            submit(this::recoverNow);
+        }
+    }
+
+    /**
+     * Hands {@code task} to the supervisor thread from a signal handler,
+     * unless the supervisor has been closed.
+     */
+    private void submit(Runnable task) {
+        if (closed)
+            return;
+        try {
+            scheduler.execute(task);
+        } catch (RejectedExecutionException ex) {
+            logger.debug("Supervisor closed, dropping signal", ex);
+        }
+    }
+
+    private void poll() {
+        if (!recovering && !manager.isConnected()) {
+            logger.warn("Bus connection lost");
+            recoverNow();
+        }
+    }
+
+    private void recoverNow() {
+        if (retry != null)
+            retry.cancel(false);
+        recovering = true;
+        backoff = initialBackoff;
+        attempt();
+    }
+
+    private void attempt() {
+        retry = null;
+        final long start = System.nanoTime();
+        try {
+            manager.recover();
+            MediaPlayerMetrics.INSTANCE.recovery(start, false);
+            recovering = false;
+            logger.info("Recovered in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            watch();
+        } catch (RuntimeException ex) {
+            MediaPlayerMetrics.INSTANCE.recovery(start, true);
+            logger.warn("Recovery failed, retrying in {} ms", backoff, ex);
+            retry = scheduler.schedule(this::attempt, backoff, TimeUnit.MILLISECONDS);
+            backoff = Math.min(backoff * 2, maxBackoff);
+        }
+    }
+
+    /**
+     * Moves the signal handlers to the current primary connection of the
+     * manager, if it changed.
+     */
+    private synchronized void watch() {
+        if (closed)
+            return;
+        final DBusConnection connection = manager.primaryConnection();
+        if (connection == watched)
+            return;
+        unwatch();
+        try {
+            connection.addSigHandler(NameOwnerChanged.class, ownerHandler);
+            connection.addSigHandler(Disconnected.class, disconnectHandler);
+            watched = connection;
+        } catch (DBusException ex) {
+            logger.warn("Error watching the bus connection", ex);
+        }
+    }
+
+    private synchronized void unwatch() {
+        final DBusConnection connection = watched;
+        watched = null;
+        if (connection == null)
+            return;
+        try {
+            connection.removeSigHandler(NameOwnerChanged.class, ownerHandler);
+            connection.removeSigHandler(Disconnected.class, disconnectHandler);
+        } catch (DBusException | RuntimeException ex) {
+            logger.debug("Error removing stale connection handlers", ex);
+        }
+    }
+
+}
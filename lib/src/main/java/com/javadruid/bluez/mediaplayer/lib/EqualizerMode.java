@@ -0,0 +1,35 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+/**
+ * Values of the {@code Equalizer} property.
+ */
+public enum EqualizerMode implements BluezValue {
+
+    ON("on"),
+    OFF("off");
+
+    private static final EqualizerMode[] VALUES = values();
+
+    private final String value;
+
+    EqualizerMode(String value) {
+        this.value = value;
+    }
+
+    @Override
+    public String value() {
+        return value;
+    }
+
+    /**
+     * The constant BlueZ reports as {@code value}, or {@code null} if the
+     * value is {@code null} or not known.
+     */
+    public static EqualizerMode fromValue(String value) {
+        for (EqualizerMode constant : VALUES)
+            if (constant.value.equals(value))
+                return constant;
+        return null;
+    }
+
+}
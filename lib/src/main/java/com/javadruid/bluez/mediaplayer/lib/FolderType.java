@@ -0,0 +1,41 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+/**
+ * Folder types reported in the {@code FolderType} property of a
+ * {@code MediaItem1}.
+ */
+public enum FolderType implements BluezValue {
+
+    MIXED("mixed"),
+    TITLES("titles"),
+    ALBUMS("albums"),
+    ARTISTS("artists"),
+    GENRES("genres"),
+    PLAYLISTS("playlists"),
+    YEARS("years");
+
+    private static final FolderType[] VALUES = values();
+
+    private final String value;
+
+    FolderType(String value) {
+        this.value = value;
+    }
+
+    @Override
+    public String value() {
+        return value;
+    }
+
+    /**
+     * The constant BlueZ reports as {@code value}, or {@code null} if the
+     * value is {@code null} or not known.
+     */
+    public static FolderType fromValue(String value) {
+        for (FolderType constant : VALUES)
+            if (constant.value.equals(value))
+                return constant;
+        return null;
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+/**
+ * Media item types reported in the {@code Type} property of a
+ * {@code MediaItem1}.
+ */
+public enum ItemType implements BluezValue {
+
+    AUDIO("audio"),
+    VIDEO("video"),
+    FOLDER("folder");
+
+    private static final ItemType[] VALUES = values();
+
+    private final String value;
+
+    ItemType(String value) {
+        this.value = value;
+    }
+
+    @Override
+    public String value() {
+        return value;
+    }
+
+    /**
+     * The constant BlueZ reports as {@code value}, or {@code null} if the
+     * value is {@code null} or not known.
+     */
+    public static ItemType fromValue(String value) {
+        for (ItemType constant : VALUES)
+            if (constant.value.equals(value))
+                return constant;
+        return null;
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A {@code GetManagedObjects} scan of the BlueZ object tree.
+ */
+@Name("com.javadruid.bluez.mediaplayer.ManagedObjectsScan")
+@Label("GetManagedObjects Scan")
+@Description("GetManagedObjects scan of the BlueZ object tree")
+@Category({"BlueZ", "Media Player"})
+@Enabled(false)
+@StackTrace(false)
+class ManagedObjectsScanEvent extends Event {
+
+    @Label("Objects")
+    int objects;
+
+    @Label("Error")
+    String error;
+
+}
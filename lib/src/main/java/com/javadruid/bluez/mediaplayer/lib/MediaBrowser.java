@@ -0,0 +1,365 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaFolder1;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.interfaces.Properties.PropertiesChanged;
+import org.freedesktop.dbus.types.UInt32;
+import org.freedesktop.dbus.types.Variant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Browses the media of a player through {@code org.bluez.MediaFolder1}, a
+ * page of items at a time. AVRCP browsing is slow, so nothing is listed
+ * before it is asked for: a page costs one {@code ListItems} call the first
+ * time it is used, the page after it is fetched in the background, and the
+ * pages used last are kept in a cache keyed by folder. The cached pages of a
+ * folder are dropped when its {@code NumberOfItems} changes.
+ * <p>
+ * A player lists one folder at a time. The browser starts at the root of
+ * the player's file system and follows {@link #changeFolder(String)}. The
+ * player keeps track of its current folder, so when another browser or
+ * playlist of the same player has moved it elsewhere, the browser changes
+ * back before listing.
+ * <p>
+ * {@link #search(String)} publishes the results of a search as they are
+ * listed. Each new search cancels the one before it, and the complete
+ * results of the last queries are kept, since BlueZ lists every search of
+ * a player in the same folder and running one again is slow.
+ */
+public class MediaBrowser implements AutoCloseable {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int DEFAULT_CACHED_PAGES = 32;
+    public static final int DEFAULT_CACHED_SEARCHES = 16;
+
+    // Method names
+    static final String CHANGE_FOLDER = "ChangeFolder";
+    static final String LIST_ITEMS = "ListItems";
+    static final String SEARCH = "Search";
+    static final String PLAY = "Play";
+    static final String ADD_TO_NOW_PLAYING = "AddtoNowPlaying";
+    // Property and filter names
+    static final String NUMBER_OF_ITEMS = "NumberOfItems";
+    static final String START = "Start";
+    static final String END = "End";
+
+    static final String ROOT_FOLDER = "/Filesystem";
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaBrowser.class);
+
+    private record PageKey(String folder, int page) {
+    }
+
+    private final MediaPlayer player;
+    private final int pageSize;
+    private final Map<PageKey, CompletableFuture<List<MediaItem>>> pages;
+    private final Map<String, Integer> numbersOfItems = new HashMap<>();
+    private final Map<String, List<MediaItem>> searches;
+    private final Subscription subscription;
+    private String folder;
+    private SearchPublisher currentSearch;
+
+    public MediaBrowser(MediaPlayer player) {
+        this(player, DEFAULT_PAGE_SIZE, DEFAULT_CACHED_PAGES);
+    }
+
+    /**
+     * @param pageSize items listed per {@code ListItems} call
+     * @param cachedPages pages kept across all folders
+     */
+    public MediaBrowser(MediaPlayer player, int pageSize, int cachedPages) {
+        this(player, pageSize, cachedPages, DEFAULT_CACHED_SEARCHES);
+    }
+
+    /**
+     * @param pageSize items listed per {@code ListItems} call
+     * @param cachedPages pages kept across all folders
+     * @param cachedSearches queries whose results are kept
+     */
+    public MediaBrowser(MediaPlayer player, int pageSize, int cachedPages, int cachedSearches) {
+        if (pageSize <= 0 || cachedPages <= 0 || cachedSearches < 0)
+            throw new IllegalArgumentException("Page size and cached pages must be positive, cached searches not negative: "
+                + pageSize + ", " + cachedPages + ", " + cachedSearches);
+        this.player = player;
+        this.pageSize = pageSize;
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<PageKey, CompletableFuture<List<MediaItem>>> eldest) {
+                return size() > cachedPages;
+            }
+        };
+        this.searches = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<MediaItem>> eldest) {
+                return size() > cachedSearches;
+            }
+        };
+        this.folder = player.getObjectPath() + ROOT_FOLDER;
+        this.subscription = player.subscribeSignals(this::onSignal);
+        refreshNumberOfItems(folder);
+    }
+
+    /**
+     * Object path of the folder being browsed.
+     */
+    public synchronized String getFolder() {
+        return folder;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Number of items in the current folder, or -1 while it is not known.
+     */
+    public synchronized int getNumberOfItems() {
+        return getNumberOfItems(folder);
+    }
+
+    synchronized int getNumberOfItems(String folder) {
+        return numbersOfItems.getOrDefault(folder, -1);
+    }
+
+    /**
+     * Items of page {@code page} of the current folder, from the cache or
+     * listed from the player. Once they arrive the next page is fetched in
+     * the background, unless this was the last one.
+     */
+    public CompletableFuture<List<MediaItem>> page(int page) {
+        final String current;
+        synchronized (this) {
+            current = folder;
+        }
+        return page(current, page);
+    }
+
+    /**
+     * Items of page {@code page} of {@code folder}, which the player is
+     * changed back into if something else browsed away from it.
+     */
+    CompletableFuture<List<MediaItem>> page(String folder, int page) {
+        if (page < 0)
+            throw new IndexOutOfBoundsException("Negative page " + page);
+        final CompletableFuture<List<MediaItem>> result;
+        synchronized (this) {
+            result = load(folder, page);
+        }
+        result.thenAccept(items -> prefetch(folder, page + 1, items.size()));
+        return result;
+    }
+
+    /**
+     * Item {@code index} of the current folder, or {@code null} past its end.
+     */
+    public CompletableFuture<MediaItem> item(int index) {
+        if (index < 0)
+            throw new IndexOutOfBoundsException("Negative index " + index);
+        final int offset = index % pageSize;
+        return page(index / pageSize).thenApply(items -> offset < items.size()? items.get(offset): null);
+    }
+
+    /**
+     * Makes {@code folderPath}, the path of a folder item or of the root
+     * folder, the one being browsed. Pages already cached for it are kept.
+     */
+    public CompletableFuture<Void> changeFolder(String folderPath) {
+        return player.changeFolderAsync(folderPath)
+            .thenRun(() -> {
+                synchronized (this) {
+                    folder = folderPath;
+                    numbersOfItems.keySet().removeIf(f -> !f.equals(folderPath) && !hasPages(f));
+                }
+                refreshNumberOfItems(folderPath);
+            });
+    }
+
+    /**
+     * Changes into {@code item}, which has to be a folder.
+     */
+    public CompletableFuture<Void> open(MediaItem item) {
+        if (!item.isFolder())
+            throw new IllegalArgumentException("Not a folder: " + item.path());
+        return changeFolder(item.path());
+    }
+
+    /**
+     * Searches the player for {@code query}, publishing the matching items
+     * as the pages of the results folder are listed, while the subscriber
+     * asks for more. The search starts on subscription and leaves the
+     * results folder as the current folder.
+     * <p>
+     * A newer search cancels this one: listing stops and the subscriber
+     * gets a {@link java.util.concurrent.CancellationException}. Results
+     * listed in full are cached and published again without going to the
+     * player.
+     */
+    public Flow.Publisher<MediaItem> search(String query) {
+        final SearchPublisher search = new SearchPublisher(this, query);
+        final SearchPublisher previous;
+        synchronized (this) {
+            previous = currentSearch;
+            currentSearch = search;
+        }
+        if (previous != null)
+            previous.supersede();
+        return search;
+    }
+
+    public CompletableFuture<Void> play(MediaItem item) {
+        return player.callItemAsync(item.path(), PLAY);
+    }
+
+    public CompletableFuture<Void> addToNowPlaying(MediaItem item) {
+        return player.callItemAsync(item.path(), ADD_TO_NOW_PLAYING);
+    }
+
+    /**
+     * Drops every cached page and search result.
+     */
+    public synchronized void invalidate() {
+        pages.clear();
+        searches.clear();
+    }
+
+    @Override
+    public void close() {
+        final SearchPublisher search;
+        synchronized (this) {
+            search = currentSearch;
+            currentSearch = null;
+        }
+        if (search != null)
+            search.supersede();
+        subscription.close();
+        invalidate();
+    }
+
+    /**
+     * Runs {@code Search} and changes into the results folder, whose pages
+     * are dropped first as they list an earlier search.
+     */
+    CompletableFuture<String> startSearch(String query) {
+        return player.callFolderAsync(SEARCH, query, Map.<String, Variant<?>>of())
+            .thenCompose(reply -> {
+                final String results = reply instanceof DBusPath p? p.getPath(): String.valueOf(reply);
+                synchronized (this) {
+                    pages.keySet().removeIf(k -> k.folder().equals(results));
+                    numbersOfItems.remove(results);
+                }
+                return changeFolder(results).thenApply(v -> results);
+            });
+    }
+
+    synchronized List<MediaItem> cachedSearch(String query) {
+        return searches.get(query);
+    }
+
+    synchronized void cacheSearch(String query, List<MediaItem> results) {
+        searches.put(query, results);
+    }
+
+    private CompletableFuture<List<MediaItem>> load(String folder, int page) {
+        final PageKey key = new PageKey(folder, page);
+        final CompletableFuture<List<MediaItem>> cached = pages.get(key);
+        if (cached != null)
+            return cached;
+        final long start = (long) page * pageSize;
+        final Map<String, Variant<?>> filter = Map.of(
+            START, new Variant<>(new UInt32(start)),
+            END, new Variant<>(new UInt32(start + pageSize - 1)));
+        final CompletableFuture<List<MediaItem>> result = enter(folder)
+            .thenCompose(v -> player.callFolderAsync(LIST_ITEMS, filter))
+            .thenApply(MediaBrowser::toItems);
+        pages.put(key, result);
+        result.whenComplete((items, ex) -> {
+            if (ex != null) {
+                logger.warn("Could not list page {} of {}", page, folder, ex);
+                synchronized (this) {
+                    pages.remove(key, result);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Makes {@code folder} the player's current folder again if something
+     * else browsed away from it.
+     */
+    private CompletableFuture<Void> enter(String folder) {
+        if (folder.equals(player.getCurrentFolder()))
+            return CompletableFuture.completedFuture(null);
+        return player.changeFolderAsync(folder);
+    }
+
+    private synchronized void prefetch(String folder, int page, int previousSize) {
+        if (!folder.equals(this.folder) || previousSize < pageSize)
+            return;
+        final Integer count = numbersOfItems.get(folder);
+        if (count != null && (long) page * pageSize >= count)
+            return;
+        load(folder, page);
+    }
+
+    private void onSignal(PropertiesChanged signal) {
+        if (!MediaFolder1.DBUS_INTERFACE_NAME.equals(signal.getInterfaceName()))
+            return;
+        final Variant<?> count = signal.getPropertiesChanged().get(NUMBER_OF_ITEMS);
+        if (count != null && count.getValue() instanceof UInt32 value) {
+            final String current = player.getCurrentFolder();
+            synchronized (this) {
+                setNumberOfItems(current, value.intValue());
+            }
+        }
+    }
+
+    private void refreshNumberOfItems(String folder) {
+        player.getPropertyAsync(MediaFolder1.DBUS_INTERFACE_NAME, NUMBER_OF_ITEMS)
+            .thenAccept(value -> {
+                if (value instanceof UInt32 count && folder.equals(player.getCurrentFolder())) {
+                    synchronized (this) {
+                        setNumberOfItems(folder, count.intValue());
+                    }
+                }
+            })
+            .exceptionally(ex -> {
+                logger.warn("Could not retrieve number of items of {}", folder, ex);
+                return null;
+            });
+    }
+
+    private void setNumberOfItems(String folder, int count) {
+        final Integer previous = numbersOfItems.put(folder, count);
+        if (previous != null && previous != count)
+            pages.keySet().removeIf(k -> k.folder().equals(folder));
+    }
+
+    private boolean hasPages(String folder) {
+        for (PageKey key : pages.keySet())
+            if (key.folder().equals(folder))
+                return true;
+        return false;
+    }
+
+    private static List<MediaItem> toItems(Object reply) {
+        if (!(reply instanceof Map<?, ?> listed))
+            return List.of();
+        final List<MediaItem> items = new ArrayList<>(listed.size());
+        for (Map.Entry<?, ?> e : listed.entrySet()) {
+            final String path = e.getKey() instanceof DBusPath p? p.getPath(): String.valueOf(e.getKey());
+            items.add(MediaItem.fromProperties(path, (Map<String, Variant<?>>) e.getValue()));
+        }
+        return Collections.unmodifiableList(items);
+    }
+
+}
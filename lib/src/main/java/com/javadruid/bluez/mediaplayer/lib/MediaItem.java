@@ -0,0 +1,68 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaItem1;
+import java.util.Map;
+import org.freedesktop.dbus.types.Variant;
+
+/**
+ * An entry of a folder listed through {@link MediaBrowser}, either something
+ * to play or a folder to change into.
+ *
+ * @param path object path of the {@code org.bluez.MediaItem1}
+ * @param type the kind of item, {@code null} if not reported or not known
+ * @param folderType the kind of folder, {@code null} for items that are not
+ * folders
+ * @param metadata the {@code Metadata} of the item, {@code null} if not
+ * reported, as for most folders
+ */
+public record MediaItem(
+    String path,
+    String name,
+    ItemType type,
+    FolderType folderType,
+    boolean playable,
+    Track metadata
+) {
+
+    static final String NAME = "Name";
+    static final String TYPE = "Type";
+    static final String FOLDER_TYPE = "FolderType";
+    static final String PLAYABLE = "Playable";
+    static final String METADATA = "Metadata";
+
+    public boolean isFolder() {
+        return type == ItemType.FOLDER;
+    }
+
+    /**
+     * Builds an item from the {@value MediaItem1#DBUS_INTERFACE_NAME}
+     * properties listed for it.
+     */
+    static MediaItem fromProperties(String path, Map<String, Variant<?>> properties) {
+        return new MediaItem(path,
+            (String) value(properties, NAME),
+            ItemType.fromValue((String) value(properties, TYPE)),
+            FolderType.fromValue((String) value(properties, FOLDER_TYPE)),
+            Boolean.TRUE.equals(value(properties, PLAYABLE)),
+            TrackDecoder.decodeOnce((Map<String, Variant<?>>) value(properties, METADATA)));
+    }
+
+    /**
+     * This item with the properties reported by a {@code PropertiesChanged}
+     * signal applied.
+     */
+    MediaItem with(Map<String, Variant<?>> changed) {
+        return new MediaItem(path,
+            changed.containsKey(NAME)? (String) value(changed, NAME): name,
+            changed.containsKey(TYPE)? ItemType.fromValue((String) value(changed, TYPE)): type,
+            changed.containsKey(FOLDER_TYPE)? FolderType.fromValue((String) value(changed, FOLDER_TYPE)): folderType,
+            changed.containsKey(PLAYABLE)? Boolean.TRUE.equals(value(changed, PLAYABLE)): playable,
+            changed.containsKey(METADATA)? TrackDecoder.decodeOnce((Map<String, Variant<?>>) value(changed, METADATA)): metadata);
+    }
+
+    private static Object value(Map<String, Variant<?>> properties, String name) {
+        final Variant<?> variant = properties.get(name);
+        return variant != null? variant.getValue(): null;
+    }
+
+}
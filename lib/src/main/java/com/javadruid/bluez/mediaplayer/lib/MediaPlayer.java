@@ -1,20 +1,26 @@
 package com.javadruid.bluez.mediaplayer.lib;
 
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaFolder1;
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaItem1;
 import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaPlayer1;
 import java.time.Duration;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
-import org.freedesktop.dbus.DBusMap;
-import org.freedesktop.dbus.ObjectPath;
+import java.util.function.Function;
+import org.freedesktop.dbus.DBusPath;
 import org.freedesktop.dbus.connections.impl.DBusConnection;
-import org.freedesktop.dbus.errors.Error;
 import org.freedesktop.dbus.exceptions.DBusException;
-import org.freedesktop.dbus.interfaces.DBusInterface;
 import org.freedesktop.dbus.interfaces.DBusSigHandler;
 import org.freedesktop.dbus.interfaces.Properties;
 import org.freedesktop.dbus.interfaces.Properties.PropertiesChanged;
 import org.freedesktop.dbus.messages.Message;
+import org.freedesktop.dbus.messages.MethodCall;
 import org.freedesktop.dbus.types.UInt32;
 import org.freedesktop.dbus.types.Variant;
 import org.slf4j.Logger;
@@ -49,18 +55,33 @@ public class MediaPlayer {
     static final String TRACK = "Track";
     static final String TYPE = "Type";
 
+    // D-Bus signature of the key argument of Press and Hold
+    static final String KEY_SIGNATURE = "y";
+
     private static final Logger logger = LoggerFactory.getLogger(MediaPlayer.class);
 
-    private final DBusConnection connection;
-    private final MediaPlayer1 remoteObject;
-    private final Properties properties;
+    private final String objectPath;
+    private final RemoteProperties remote;
+    private volatile MediaPlayer1 remoteObject;
+    private volatile MediaFolder1 folder;
+    private volatile String currentFolder;
+    private final AsyncMediaPlayer async = new AsyncMediaPlayer(this);
+
+    private final PropertyChangeDispatcher dispatcher;
+    private final TrackDecoder trackDecoder = new TrackDecoder();
 
-    private DBusSigHandler<PropertiesChanged> signalhandler;
+    private Subscription propertyChangeSubscription;
+    private Subscription cacheSubscription;
+    private volatile PropertyCache cache;
+    private volatile DecodedSignal lastDelta;
+    private volatile boolean fireAndForgetKeys;
+    private volatile Consumer<Throwable> errorListener = MediaPlayer::logError;
 
     MediaPlayer(DBusConnection connection, String objectPath) throws DBusException {
-        this.connection = connection;
+        this.objectPath = objectPath;
         this.remoteObject = connection.getRemoteObject(MediaPlayer1.BUS_NAME, objectPath, MediaPlayer1.class);
-        this.properties = connection.getRemoteObject(MediaPlayer1.BUS_NAME, objectPath, Properties.class);
+        this.remote = new RemoteProperties(connection, objectPath, MediaPlayer1.DBUS_INTERFACE_NAME);
+        this.dispatcher = new PropertyChangeDispatcher(connection, remote.getProperties());
     }
 
     // Methods
@@ -69,7 +90,10 @@ public class MediaPlayer {
     }
 
     public void hold(byte avc_key) {
-        callObjectMethod(HOLD, avc_key);
+        if (fireAndForgetKeys)
+            report(sendKeyEvent(HOLD, avc_key));
+        else
+            callKeyMethod(HOLD, avc_key);
     }
 
     public void next() {
@@ -85,7 +109,10 @@ public class MediaPlayer {
     }
 
     public void press(byte avc_key) {
-        callObjectMethod(PRESS, avc_key);
+        if (fireAndForgetKeys)
+            report(sendKeyEvent(PRESS, avc_key));
+        else
+            callKeyMethod(PRESS, avc_key);
     }
 
     public void previous() {
@@ -93,7 +120,10 @@ public class MediaPlayer {
     }
 
     public void release() {
-        callObjectMethod(RELEASE);
+        if (fireAndForgetKeys)
+            report(sendKeyEvent(RELEASE));
+        else
+            callObjectMethod(RELEASE);
     }
 
     public void rewind() {
@@ -106,129 +136,434 @@ public class MediaPlayer {
 
     // Properties
     public Optional<Boolean> isBrowsable() {
-        return Optional.ofNullable((Boolean) getProperty(BROWSABLE));
+        return Optional.ofNullable((Boolean) getProperty(PlayerProperty.BROWSABLE));
     }
 
     public Optional<String> getDevice() {
-        return Optional.ofNullable((ObjectPath) getProperty(DEVICE))
-            .map(ObjectPath::getPath);
+        return Optional.ofNullable(toPath(getProperty(PlayerProperty.DEVICE)));
     }
 
     public Optional<String> getEqualizer() {
-        return Optional.ofNullable((String) getProperty(EQUALIZER));
+        return Optional.ofNullable((String) getProperty(PlayerProperty.EQUALIZER));
     }
 
     public void setEqualizer(String equalizer) {
-        setProperty(EQUALIZER, equalizer);
+        remote.setProperty(EQUALIZER, equalizer);
     }
 
     public Optional<String> getName() {
-        return Optional.ofNullable((String) getProperty(NAME));
+        return Optional.ofNullable((String) getProperty(PlayerProperty.NAME));
     }
 
     public Optional<String> getPlaylist() {
-        return Optional.ofNullable((ObjectPath) getProperty(PLAYLIST))
-            .map(ObjectPath::getPath);
+        return Optional.ofNullable(toPath(getProperty(PlayerProperty.PLAYLIST)));
     }
 
     public Optional<Integer> getPosition() {
-        return Optional.ofNullable((UInt32)getProperty(POSITION))
-            .map(UInt32::intValue);
+        return Optional.ofNullable(toInteger(getProperty(PlayerProperty.POSITION)));
     }
 
     public Optional<String> getRepeat() {
-        return Optional.ofNullable((String) getProperty(REPEAT));
+        return Optional.ofNullable((String) getProperty(PlayerProperty.REPEAT));
     }
 
     public Optional<String> getScan() {
-        return Optional.ofNullable((String) getProperty(SCAN));
+        return Optional.ofNullable((String) getProperty(PlayerProperty.SCAN));
     }
 
     public Optional<Boolean> isSearchable() {
-        return Optional.ofNullable((Boolean) getProperty(SEARCHABLE));
+        return Optional.ofNullable((Boolean) getProperty(PlayerProperty.SEARCHABLE));
     }
 
     public Optional<String> getShuffle() {
-        return Optional.ofNullable((String) getProperty(SHUFFLE));
+        return Optional.ofNullable((String) getProperty(PlayerProperty.SHUFFLE));
     }
 
     public Optional<String> getStatus() {
-        return Optional.ofNullable((String) getProperty(STATUS));
+        return Optional.ofNullable((String) getProperty(PlayerProperty.STATUS));
     }
 
     public Optional<String> getSubtype() {
-        return Optional.ofNullable((String) getProperty(SUBTYPE));
+        return Optional.ofNullable((String) getProperty(PlayerProperty.SUBTYPE));
     }
 
     public Optional<Track> getTrack() {
-        final DBusMap<String, Variant<?>> result = (DBusMap<String, Variant<?>>) getProperty(TRACK);
-        return Optional.ofNullable(result)
-            .map(r -> new Track(
-                (String) getValue(r.get("Artist")),
-                getInt(r.get("NumberOfTracks")),
-                (String) getValue(r.get("Title")),
-                (String) getValue(r.get("Album")),
-                Duration.ofMillis(getLong(r.get("Duration"))),
-                (String) getValue(r.get("Genre")),
-                getInt(r.get("TrackNumber"))));
+        return Optional.ofNullable(decodeTrack(getProperty(PlayerProperty.TRACK)));
+    }
+
+    /**
+     * Every entry of the {@code Track} dictionary, with the values
+     * unwrapped, including keys without a component in {@link Track} such
+     * as {@code Item} or {@code ImgHandle}.
+     */
+    public Optional<Map<String, Object>> getTrackMetadata() {
+        return Optional.ofNullable(decodeTrackMetadata(getProperty(PlayerProperty.TRACK)));
     }
 
     public Optional<String> getType() {
-        return Optional.ofNullable((String) getProperty(TYPE));
+        return Optional.ofNullable((String) getProperty(PlayerProperty.TYPE));
+    }
+
+    /**
+     * Reads a property as its typed value. Enumerated values BlueZ reports
+     * that have no constant read as empty.
+     */
+    public <T> Optional<T> get(PlayerProperty<T> property) {
+        return Optional.ofNullable(decode(property, getProperty(property)));
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the property is read only
+     */
+    public <T> void set(PlayerProperty<T> property, T value) {
+        remote.setProperty(property.name(), property.encode(value));
+    }
+
+    /**
+     * Reads every property at once. With the cache enabled this is served
+     * locally, otherwise it costs a single {@code GetAll} round trip, so all
+     * values come from the same moment in time.
+     */
+    public PlayerState snapshot() {
+        if (cache != null)
+            return toPlayerState(name -> getProperty(PlayerProperty.forName(name)));
+        final Map<String, Variant<?>> all = Objects.requireNonNullElse(remote.getAllProperties(), Map.of());
+        return toPlayerState(name -> getValue(all.get(name)));
+    }
+
+    CompletableFuture<PlayerState> snapshotAsync() {
+        if (cache != null)
+            return CompletableFuture.completedFuture(snapshot());
+        return remote.getAllPropertiesAsync()
+            .thenApply(all -> toPlayerState(name -> getValue(all.get(name))));
     }
 
     // Listeners
-    public void onPropertyChange(Consumer<Map.Entry<String, Object>> handler) {
-        if(signalhandler != null)
+    /**
+     * Sets the single handler of the legacy listener API, replacing any
+     * previous one. Use {@link #subscribe(Consumer, Executor)} to register
+     * several independent listeners.
+     */
+    public synchronized void onPropertyChange(Consumer<Map.Entry<String, Object>> handler) {
+        removePropertyChange();
+        propertyChangeSubscription = dispatcher.subscribe(s -> {
+            if (MediaPlayer1.DBUS_INTERFACE_NAME.equals(s.getInterfaceName()))
+                s.getPropertiesChanged()
+                    .entrySet().stream()
+                    .map(MediaPlayer::toObjectEntry)
+                    .forEach(handler::accept);
+            logger.debug("signal received: {}", s);
+        });
+    }
+
+    public synchronized void removePropertyChange() {
+        if (propertyChangeSubscription != null) {
             try {
-                connection.removeSigHandler(PropertiesChanged.class, properties, signalhandler);
+                propertyChangeSubscription.close();
+            } finally {
+                propertyChangeSubscription = null;
+            }
+        }
+    }
+
+    /**
+     * Adds a property change listener that runs inline on the dbus-java
+     * signal thread. It should return quickly.
+     */
+    public Subscription subscribe(Consumer<Map.Entry<String, Object>> listener) {
+        return subscribe(listener, null);
+    }
+
+    /**
+     * Adds a property change listener that runs on the given executor, one
+     * change at a time and in the order received. All listeners of a player
+     * share a single {@code PropertiesChanged} registration.
+     */
+    public Subscription subscribe(Consumer<Map.Entry<String, Object>> listener, Executor executor) {
+        return dispatcher.subscribe(s -> {
+            if (MediaPlayer1.DBUS_INTERFACE_NAME.equals(s.getInterfaceName()))
+                s.getPropertiesChanged()
+                    .entrySet()
+                    .forEach(e -> listener.accept(toObjectEntry(e)));
+        }, executor);
+    }
+
+    /**
+     * Adds a listener that receives each {@code PropertiesChanged} signal as
+     * one typed {@link PropertyDelta}, inline on the dbus-java signal thread.
+     */
+    public Subscription subscribeDeltas(Consumer<PropertyDelta> listener) {
+        return subscribeDeltas(listener, null);
+    }
+
+    /**
+     * Adds a listener that receives each {@code PropertiesChanged} signal as
+     * one typed {@link PropertyDelta}, on the given executor. A signal is
+     * decoded once however many typed listeners the player has.
+     */
+    public Subscription subscribeDeltas(Consumer<PropertyDelta> listener, Executor executor) {
+        return dispatcher.subscribe(s -> {
+            final PropertyDelta delta = toDelta(s);
+            if (delta != null && !delta.isEmpty())
+                listener.accept(delta);
+        }, executor);
+    }
+
+    /**
+     * Adds a listener for the changes of a single property. It is called
+     * with {@code null} when the property is invalidated.
+     */
+    public <T> Subscription subscribe(PlayerProperty<T> property, Consumer<? super T> listener, Executor executor) {
+        return subscribeDeltas(d -> {
+            if (d.contains(property))
+                listener.accept(d.get(property));
+        }, executor);
+    }
+
+    /**
+     * Adds a listener that receives merged deltas instead of individual
+     * changes: bursts within {@code window} are coalesced and unchanged
+     * values dropped, see {@link PropertyChangeCoalescer}. The listener runs
+     * on {@code scheduler}.
+     */
+    public Subscription subscribeCoalesced(Consumer<Map<String, Object>> listener, Duration window, ScheduledExecutorService scheduler) {
+        final PropertyChangeCoalescer coalescer = new PropertyChangeCoalescer(window, scheduler, listener);
+        final Subscription subscription = subscribe(coalescer);
+        return () -> {
+            subscription.close();
+            coalescer.close();
+        };
+    }
+
+    public String getObjectPath() {
+        return objectPath;
+    }
+
+    // Key events
+    /**
+     * When enabled, {@link #press(byte)}, {@link #hold(byte)} and
+     * {@link #release()} are sent flagged as not expecting a reply and return
+     * as soon as the message is queued. Failures to send are reported to the
+     * error listener instead of being thrown. The same methods of
+     * {@link AsyncMediaPlayer} then return a future that completes once the
+     * message is queued, or exceptionally if it could not be.
+     */
+    public void setFireAndForgetKeys(boolean fireAndForgetKeys) {
+        this.fireAndForgetKeys = fireAndForgetKeys;
+    }
+
+    public boolean isFireAndForgetKeys() {
+        return fireAndForgetKeys;
+    }
+
+    public void setErrorListener(Consumer<Throwable> errorListener) {
+        this.errorListener = errorListener != null? errorListener: MediaPlayer::logError;
+    }
+
+    /**
+     * Returns the non-blocking view of this player.
+     */
+    public AsyncMediaPlayer async() {
+        return async;
+    }
+
+    // Cache
+    /**
+     * Switches this player to cached mode: all properties are loaded with a
+     * single {@code GetAll} call and then kept current from
+     * {@code PropertiesChanged} signals, so property getters no longer make a
+     * D-Bus round trip.
+     */
+    public synchronized void enableCache() {
+        if (cache != null)
+            return;
+        final PropertyCache newCache = new PropertyCache(MediaPlayer1.DBUS_INTERFACE_NAME, PlayerProperty.names());
+        cacheSubscription = dispatcher.subscribe(newCache::update);
+        final long mark = newCache.mark();
+        newCache.load(remote.getAllProperties(), mark);
+        cache = newCache;
+    }
+
+    public synchronized void disableCache() {
+        if (cache == null)
+            return;
+        cache = null;
+        try {
+            cacheSubscription.close();
+        } finally {
+            cacheSubscription = null;
+        }
+    }
+
+    public boolean isCacheEnabled() {
+        return cache != null;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof MediaPlayer other && objectPath.equals(other.objectPath);
+    }
+
+    @Override
+    public int hashCode() {
+        return objectPath.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return getDevice().orElseGet(this::defaultName);
+    }
+
+    /**
+     * Moves this player to new proxies on {@code newConnection}, which may
+     * be the current one, after the bus connection was lost or bluetoothd
+     * restarted. Subscriptions are kept and re-registered, and an enabled
+     * cache is reloaded with a single {@code GetAll} call.
+     */
+    synchronized void rebind(DBusConnection newConnection) {
+        try {
+            final MediaPlayer1 newRemoteObject = newConnection.getRemoteObject(MediaPlayer1.BUS_NAME, objectPath, MediaPlayer1.class);
+            final Properties newProperties = newConnection.getRemoteObject(MediaPlayer1.BUS_NAME, objectPath, Properties.class);
+            dispatcher.rebind(newConnection, newProperties);
+            remote.rebind(newConnection, newProperties);
+            remoteObject = newRemoteObject;
+            folder = null;
+            currentFolder = null;
         } catch (DBusException ex) {
-            logger.error("Error removing existing listener", ex);
+            logger.error("Error rebinding player {}", objectPath, ex);
             throw new RuntimeException(ex);
         }
-        signalhandler = s -> {
-            s.getPropertiesChanged()
-                .entrySet().stream()
-                .map(MediaPlayer::toObjectEntry)
-                .forEach(handler::accept);
-            logger.info("signal received: {}", s);
+        final PropertyCache currentCache = cache;
+        if (currentCache != null) {
+            final long mark = currentCache.mark();
+            currentCache.load(remote.getAllProperties(), mark);
+        }
+    }
+
+    /**
+     * Drops every signal subscription held by this player. Called by
+     * {@link MediaPlayerManager} once the player has gone from the bus.
+     */
+    void dispose() {
+        try {
+            removePropertyChange();
+            disableCache();
+            dispatcher.close();
+        } catch (RuntimeException ex) {
+            logger.warn("Error releasing player {}", objectPath, ex);
+        }
+    }
+
+    /**
+     * Subscribes to the raw {@code PropertiesChanged} signals of this
+     * player, of every interface, for helpers that only look at a few
+     * properties and want to skip decoding the rest.
+     */
+    Subscription subscribeSignals(Consumer<PropertiesChanged> listener) {
+        return dispatcher.subscribe(listener);
+    }
+
+    /**
+     * Subscribes to the {@code PropertiesChanged} signals of the objects
+     * below {@code parentPath}, such as the items of a folder, which the
+     * registration for this player's own path does not receive. The
+     * registration is made on the current connection and is not moved by
+     * {@link #rebind(DBusConnection)}.
+     */
+    Subscription subscribeChildren(String parentPath, Consumer<PropertiesChanged> listener) {
+        final DBusConnection current = remote.getConnection();
+        final String prefix = parentPath.endsWith("/")? parentPath: parentPath + "/";
+        final DBusSigHandler<PropertiesChanged> handler = signal -> {
+            if (signal.getPath().startsWith(prefix)) {
+                try {
+                    listener.accept(signal);
+                } catch (RuntimeException ex) {
+                    logger.warn("Error in listener", ex);
+                }
+            }
         };
         try {
-            connection.addSigHandler(PropertiesChanged.class, properties, signalhandler);
+            current.addSigHandler(PropertiesChanged.class, handler);
         } catch (DBusException ex) {
             logger.error("Error adding new listener", ex);
             throw new RuntimeException(ex);
         }
-    }
-
-    public void removePropertyChange() {
-        if (signalhandler != null) {
+        final AtomicBoolean closed = new AtomicBoolean();
+        return () -> {
+            if (closed.getAndSet(true))
+                return;
             try {
-                connection.removeSigHandler(PropertiesChanged.class, properties, signalhandler);
+                current.removeSigHandler(PropertiesChanged.class, handler);
             } catch (DBusException ex) {
                 logger.error("Error removing listener", ex);
                 throw new RuntimeException(ex);
             }
-        }
+        };
     }
 
-    @Override
-    public String toString() {
-        return getDevice().orElseGet(this::defaultName);
+    /**
+     * Delivers {@code signal} to the subscribers of this player as if it had
+     * come from the bus, without recording or counting it. Used by
+     * {@link SignalReplayer}.
+     */
+    void inject(PropertiesChanged signal) {
+        dispatcher.inject(signal);
+    }
+
+    int subscriptionCount() {
+        return dispatcher.size();
     }
 
-    private static Map.Entry<String, Object> toObjectEntry(Map.Entry<String, Variant<?>> e) {
+    static Map.Entry<String, Object> toObjectEntry(Map.Entry<String, Variant<?>> e) {
         return Map.entry(e.getKey(), e.getValue().getValue());
     }
 
-    private static int getInt(Variant<?> r) {
-        final Object result = getValue(r);
-        return (result == null)? 0: ((UInt32) result).intValue();
+    static Track toTrack(Map<String, Variant<?>> r) {
+        return TrackDecoder.decodeOnce(r);
+    }
+
+    /**
+     * Decodes a {@code Track} value of this player, reusing the previous
+     * {@link Track} if the dictionary has not changed.
+     */
+    Track decodeTrack(Object value) {
+        return trackDecoder.decode((Map<String, Variant<?>>) value);
+    }
+
+    Map<String, Object> decodeTrackMetadata(Object value) {
+        return trackDecoder.metadata((Map<String, Variant<?>>) value);
+    }
+
+    <T> T decode(PlayerProperty<T> property, Object value) {
+        if (property == PlayerProperty.TRACK)
+            return property.type().cast(decodeTrack(value));
+        return property.decode(value);
+    }
+
+    private PlayerState toPlayerState(Function<String, Object> values) {
+        return new PlayerState(
+            (Boolean) values.apply(BROWSABLE),
+            toPath(values.apply(DEVICE)),
+            (String) values.apply(EQUALIZER),
+            (String) values.apply(NAME),
+            toPath(values.apply(PLAYLIST)),
+            toInteger(values.apply(POSITION)),
+            (String) values.apply(REPEAT),
+            (String) values.apply(SCAN),
+            (Boolean) values.apply(SEARCHABLE),
+            (String) values.apply(SHUFFLE),
+            (String) values.apply(STATUS),
+            (String) values.apply(SUBTYPE),
+            decodeTrack(values.apply(TRACK)),
+            (String) values.apply(TYPE));
+    }
+
+    static String toPath(Object value) {
+        return value != null? ((DBusPath) value).getPath(): null;
     }
 
-    private static long getLong(Variant<?> r) {
-        final Object result = getValue(r);
-        return (result == null)? 0: ((UInt32) result).longValue();
+    static Integer toInteger(Object value) {
+        return value != null? ((UInt32) value).intValue(): null;
     }
 
     private static Object getValue(Variant<?> r) {
@@ -239,39 +574,183 @@ public class MediaPlayer {
         return "Player " + hashCode();
     }
 
+    private static void logError(Throwable error) {
+        logger.warn("Error sending key event", error);
+    }
+
+    /**
+     * Passes a failed key event to the error listener, which is not allowed
+     * to throw into the caller either.
+     */
+    private void report(CompletableFuture<Void> sent) {
+        sent.exceptionally(ex -> {
+            try {
+                errorListener.accept(ex);
+            } catch (RuntimeException listenerError) {
+                logger.warn("Error in error listener", listenerError);
+            }
+            return null;
+        });
+    }
+
     private void callObjectMethod(final String methodName, Object... parameters) {
-        callMethod(remoteObject, methodName, parameters);
+        remote.callMethod(remoteObject, methodName, parameters);
     }
 
-    private Object getProperty(final String propertyName) {
+    CompletableFuture<Void> callObjectMethodAsync(final String methodName, Object... parameters) {
+        return remote.callAsync(remoteObject, methodName, parameters)
+            .thenApply(r -> null);
+    }
+
+    /**
+     * Sends a key event flagged as not expecting a reply. The future
+     * completes once the message is queued for sending, or exceptionally if
+     * it could not be; it never waits for bluetoothd.
+     */
+    CompletableFuture<Void> sendKeyEvent(final String methodName, Object... parameters) {
+        final MethodCallEvent event = new MethodCallEvent();
+        event.begin();
+        SignalRecorder.command(objectPath, methodName, parameters);
         try {
-            final Message property = callMethod(properties, "Get", MediaPlayer1.DBUS_INTERFACE_NAME, propertyName);
-            if(property != null) {
-                if(property instanceof Error error) {
-                    logger.warn("Error whilst getting property", error.getException());
-                    return null;
-                } else {
-                    final Variant result = (Variant) property.getParameters()[0];
-                    if(result != null)
-                        return result.getValue();
-                }
-            }
+            remote.getConnection().sendMessage(new MethodCall(MediaPlayer1.BUS_NAME, objectPath, MediaPlayer1.DBUS_INTERFACE_NAME,
+                methodName, Message.Flags.NO_REPLY_EXPECTED, parameters.length > 0? KEY_SIGNATURE: null, parameters));
+            remote.commit(event, methodName, null);
+            return CompletableFuture.completedFuture(null);
+        } catch (DBusException | RuntimeException ex) {
+            remote.commit(event, methodName, ex.toString());
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    /**
+     * Calls {@code Press} or {@code Hold}, whose {@code byte} parameter a
+     * proxy call cannot match, with an explicit signature.
+     */
+    private void callKeyMethod(final String methodName, byte key) {
+        remote.callMethod(MediaPlayer1.class, objectPath, methodName, KEY_SIGNATURE, key);
+    }
+
+    CompletableFuture<Void> callKeyMethodAsync(final String methodName, byte key) {
+        return remote.callAsync(MediaPlayer1.class, objectPath, methodName, KEY_SIGNATURE, key)
+            .thenApply(r -> null);
+    }
+
+    /**
+     * Calls a {@value MediaFolder1#DBUS_INTERFACE_NAME} method of this
+     * player, which lists and changes its current folder.
+     */
+    CompletableFuture<Object> callFolderAsync(final String methodName, Object... parameters) {
+        try {
+            return remote.callAsync(folder(), methodName, parameters);
         } catch (DBusException ex) {
-            logger.warn("Could not retrieve property {}", propertyName);
-            logger.warn("Could not retrieve property", ex);
-            return null;
+            return CompletableFuture.failedFuture(ex);
         }
-        return null;
     }
 
-    private void setProperty(final String propertyName, Object value) {
-        callMethod(properties, "Set", MediaPlayer1.DBUS_INTERFACE_NAME, propertyName, value);
+    /**
+     * Changes the folder this player lists, keeping track of it so that
+     * every browser of the player knows which folder {@code ListItems} and
+     * {@code NumberOfItems} refer to.
+     */
+    CompletableFuture<Void> changeFolderAsync(final String folderPath) {
+        return callFolderAsync(MediaBrowser.CHANGE_FOLDER, new DBusPath(folderPath))
+            .thenRun(() -> currentFolder = folderPath);
+    }
+
+    /**
+     * Object path of the folder this player lists, the root of its file
+     * system until a folder is changed through
+     * {@link #changeFolderAsync(String)}.
+     */
+    String getCurrentFolder() {
+        final String current = currentFolder;
+        return current != null? current: objectPath + MediaBrowser.ROOT_FOLDER;
+    }
+
+    /**
+     * Calls a {@value MediaItem1#DBUS_INTERFACE_NAME} method of an item
+     * listed by this player.
+     */
+    CompletableFuture<Void> callItemAsync(final String itemPath, final String methodName) {
+        try {
+            final MediaItem1 item = remote.getConnection().getRemoteObject(MediaPlayer1.BUS_NAME, itemPath, MediaItem1.class);
+            return remote.callAsync(item, methodName).thenApply(r -> null);
+        } catch (DBusException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    private MediaFolder1 folder() throws DBusException {
+        MediaFolder1 current = folder;
+        if (current == null) {
+            current = remote.getConnection().getRemoteObject(MediaPlayer1.BUS_NAME, objectPath, MediaFolder1.class);
+            folder = current;
+        }
+        return current;
+    }
+
+    private Object getProperty(final PlayerProperty<?> property) {
+        return remote.getProperty(cache, property.ordinal(), property.name());
+    }
+
+    /**
+     * Reads a property of another interface of this player, bypassing the
+     * cache.
+     */
+    CompletableFuture<Object> getPropertyAsync(final String interfaceName, final String propertyName) {
+        return remote.getPropertyAsync(interfaceName, propertyName);
+    }
+
+    CompletableFuture<Object> getPropertyAsync(final String propertyName) {
+        final PropertyCache currentCache = cache;
+        if (currentCache != null && !currentCache.isInvalidated(propertyName))
+            return CompletableFuture.completedFuture(currentCache.get(propertyName));
+        final long mark = currentCache != null? currentCache.mark(): 0;
+        final long start = System.nanoTime();
+        return remote.getPropertyAsync(propertyName)
+            .whenComplete((r, ex) -> MediaPlayerMetrics.INSTANCE.propertyRead(propertyName, start, r == null))
+            .thenApply(result -> {
+                if (currentCache != null && result != null)
+                    currentCache.put(propertyName, result, mark);
+                return result;
+            })
+            .exceptionally(ex -> {
+                logger.warn("Could not retrieve property {}", propertyName, ex);
+                return null;
+            });
+    }
+
+    CompletableFuture<Void> setPropertyAsync(final String propertyName, Object value) {
+        return remote.setPropertyAsync(propertyName, value)
+            .thenApply(r -> null);
+    }
+
+    private PropertyDelta toDelta(PropertiesChanged signal) {
+        final DecodedSignal last = lastDelta;
+        if (last != null && last.signal() == signal)
+            return last.delta();
+        if (!MediaPlayer1.DBUS_INTERFACE_NAME.equals(signal.getInterfaceName()))
+            return null;
+        final Object[] values = new Object[PlayerProperty.values().size()];
+        int changed = 0;
+        for (Map.Entry<String, Variant<?>> e : signal.getPropertiesChanged().entrySet()) {
+            final PlayerProperty<?> property = PlayerProperty.forName(e.getKey());
+            if (property != null) {
+                values[property.ordinal()] = decode(property, getValue(e.getValue()));
+                changed |= 1 << property.ordinal();
+            }
+        }
+        for (String name : signal.getPropertiesRemoved()) {
+            final PlayerProperty<?> property = PlayerProperty.forName(name);
+            if (property != null)
+                changed |= 1 << property.ordinal();
+        }
+        final PropertyDelta delta = new PropertyDelta(values, changed);
+        lastDelta = new DecodedSignal(signal, delta);
+        return delta;
     }
 
-    private Message callMethod(final DBusInterface object, final String methodName, Object... parameters) {
-        return connection.callMethodAsync(object, methodName, parameters)
-            .getCall()
-            .getReply();
+    private record DecodedSignal(PropertiesChanged signal, PropertyDelta delta) {
     }
 
 }
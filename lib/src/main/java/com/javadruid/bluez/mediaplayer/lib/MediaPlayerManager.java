@@ -1,12 +1,21 @@
 package com.javadruid.bluez.mediaplayer.lib;
 
 import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaPlayer1;
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaTransport1;
 import java.io.Closeable;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 import org.freedesktop.dbus.DBusMap;
 import org.freedesktop.dbus.DBusPath;
@@ -14,6 +23,7 @@ import org.freedesktop.dbus.ObjectPath;
 import org.freedesktop.dbus.connections.impl.DBusConnection;
 import org.freedesktop.dbus.exceptions.DBusException;
 import org.freedesktop.dbus.interfaces.ObjectManager;
+import org.freedesktop.dbus.types.Variant;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,24 +31,233 @@ public class MediaPlayerManager implements Closeable {
 
     private static final Logger logger = LoggerFactory.getLogger(MediaPlayerManager.class);
 
-    private final DBusConnection conn;
-    private final ObjectManager remoteObject;
+    private static final Duration INITIAL_BACKOFF = Duration.ofMillis(100);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+    private static final Duration POLL_INTERVAL = Duration.ofSeconds(1);
+
+    private final Supplier<ConnectionPool> connector;
+    private volatile ConnectionPool connections;
+    private volatile DBusConnection conn;
+    private volatile ObjectManager remoteObject;
+
+    private final Map<String, MediaPlayer> players = new ConcurrentHashMap<>();
+
+    private MediaPlayerRegistry registry;
+    private ConnectionSupervisor supervisor;
 
     public MediaPlayerManager() {
-        this(getConnection());
+        this(1);
+    }
+
+    /**
+     * Spreads the players over {@code connections} private system bus
+     * connections, so a busy player only delays the players that share its
+     * connection. Each player always uses the same connection, chosen by
+     * object path.
+     *
+     * @param connections number of connections, at least one
+     */
+    public MediaPlayerManager(int connections) {
+        this(ConnectionPool.open(connections), () -> ConnectionPool.open(connections));
     }
 
     MediaPlayerManager(DBusConnection conn) {
+        this(new ConnectionPool(List.of(conn)), null);
+    }
+
+    MediaPlayerManager(List<DBusConnection> connections) {
+        this(new ConnectionPool(connections), null);
+    }
+
+    /**
+     * Opens its connections with {@code connector}, again whenever they are
+     * lost if reconnection is enabled.
+     */
+    MediaPlayerManager(Supplier<List<DBusConnection>> connector) {
+        this(new ConnectionPool(connector.get()), () -> new ConnectionPool(connector.get()));
+    }
+
+    private MediaPlayerManager(ConnectionPool connections, Supplier<ConnectionPool> connector) {
         try {
-            this.conn = conn;
+            this.connector = connector;
+            this.connections = connections;
+            this.conn = connections.primary();
             remoteObject = conn.getRemoteObject(MediaPlayer1.BUS_NAME, "/", ObjectManager.class);
         } catch (DBusException ex) {
             logger.error("Error initialising Media Player Manager", ex);
             throw new RuntimeException(ex);
         }
+        MediaPlayerMetrics.INSTANCE.register();
+        MediaPlayerMetrics.INSTANCE.addManager(this);
     }
 
+    /**
+     * Scans the BlueZ object tree for media players. Players are canonical:
+     * a player seen by an earlier scan is returned as the same instance, and
+     * players no longer present are released.
+     */
     public Stream<MediaPlayer> getMediaPlayers() {
+        final List<String> paths = getMediaPlayerPaths().toList();
+        forgetMissing(paths);
+        return paths.stream()
+            .map(this::mediaPlayer)
+            .filter(Objects::nonNull);
+    }
+
+    /**
+     * Returns the live registry of players, creating it on first use with a
+     * single scan of the BlueZ object tree. Unlike {@link #getMediaPlayers()}
+     * later reads do not go to the bus.
+     */
+    public synchronized MediaPlayerRegistry registry() {
+        if (registry == null) {
+            final MediaPlayerRegistry newRegistry = new MediaPlayerRegistry(conn, remoteObject, this::mediaPlayer, this::release);
+            newRegistry.start(getMediaPlayerPaths());
+            registry = newRegistry;
+        }
+        return registry;
+    }
+
+    /**
+     * Groups the currently known players that match {@code filter}, see
+     * {@link #registry()}.
+     */
+    public PlayerGroup group(Predicate<? super MediaPlayer> filter, Duration deadline) {
+        return new PlayerGroup(registry().currentPlayers().stream()
+            .filter(filter)
+            .toList(), deadline);
+    }
+
+    /**
+     * Finds the audio transport of the device {@code player} belongs to,
+     * with a single scan of the BlueZ object tree. Each call returns a new
+     * {@link MediaTransport}, which the caller has to close.
+     *
+     * @param volumeInterval minimum time between two volume writes
+     * @param scheduler runs the volume writes
+     * @return empty if the device has no transport, as when it is connected
+     * for remote control only
+     */
+    public Optional<MediaTransport> getTransport(MediaPlayer player, Duration volumeInterval, ScheduledExecutorService scheduler) {
+        final Optional<String> device = player.getDevice();
+        if (device.isEmpty())
+            return Optional.empty();
+        final Optional<String> path = getTransportPath(device.get());
+        if (path.isEmpty())
+            return Optional.empty();
+        try {
+            return Optional.of(new MediaTransport(connections.forPath(path.get()), path.get(), volumeInterval, scheduler));
+        } catch (DBusException ex) {
+            logger.error("Error creating transport {}", path.get(), ex);
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Keeps this manager working through bluetoothd restarts and, for
+     * managers that opened their own connections, through the loss of the
+     * system bus connection. Recovery re-scans the players: the ones still
+     * present keep their instances and subscriptions, and reload an enabled
+     * cache with a single {@code GetAll}; the others are released. Failed
+     * attempts are retried with exponential backoff.
+     */
+    public void enableReconnect() {
+        enableReconnect(INITIAL_BACKOFF, MAX_BACKOFF);
+    }
+
+    public synchronized void enableReconnect(Duration initialBackoff, Duration maxBackoff) {
+        disableReconnect();
+        supervisor = new ConnectionSupervisor(this, initialBackoff, maxBackoff, POLL_INTERVAL);
+        supervisor.start();
+    }
+
+    public synchronized void disableReconnect() {
+        if (supervisor != null) {
+            supervisor.close();
+            supervisor = null;
+        }
+    }
+
+    public boolean isConnected() {
+        return connections.isConnected();
+    }
+
+    @Override
+    public void close() throws IOException {
+        MediaPlayerMetrics.INSTANCE.removeManager(this);
+        synchronized (this) {
+            disableReconnect();
+            if (registry != null) {
+                registry.close();
+                registry = null;
+            }
+        }
+        players.keySet().forEach(this::release);
+        connections.close();
+    }
+
+    /**
+     * Brings this manager back in line with the bus. Lost connections are
+     * replaced, the object manager handlers move to the primary connection,
+     * and a fresh scan decides which players are rebound and which are
+     * released.
+     *
+     * @throws RuntimeException if any step fails; the manager is left in a
+     * state a later call can recover from
+     */
+    void recover() {
+        synchronized (this) {
+            final ConnectionPool current = connections;
+            ConnectionPool pool = current;
+            if (!current.isConnected()) {
+                if (connector == null)
+                    throw new IllegalStateException("Connection lost and cannot be reopened");
+                current.closeQuietly();
+                pool = connector.get();
+            }
+            boolean bound = false;
+            try {
+                final ObjectManager newRemoteObject = pool.primary().getRemoteObject(MediaPlayer1.BUS_NAME, "/", ObjectManager.class);
+                if (registry != null)
+                    registry.rebind(pool.primary(), newRemoteObject);
+                connections = pool;
+                conn = pool.primary();
+                remoteObject = newRemoteObject;
+                bound = true;
+            } catch (DBusException ex) {
+                logger.error("Error rebinding Media Player Manager", ex);
+                throw new RuntimeException(ex);
+            } finally {
+                if (!bound && pool != current)
+                    pool.closeQuietly();
+            }
+            final List<String> paths = getMediaPlayerPaths().toList();
+            forgetMissing(paths);
+            for (String path : paths) {
+                final MediaPlayer player = players.get(path);
+                if (player != null)
+                    player.rebind(pool.forPath(path));
+                else if (registry != null)
+                    registry.add(path);
+            }
+        }
+    }
+
+    DBusConnection primaryConnection() {
+        return conn;
+    }
+
+    int playerCount() {
+        return players.size();
+    }
+
+    int subscriptionCount() {
+        return players.values().stream()
+            .mapToInt(MediaPlayer::subscriptionCount)
+            .sum();
+    }
+
+    private Stream<String> getMediaPlayerPaths() {
         try {
             return getManagedObjects()
                 .map(o -> (DBusMap<ObjectPath, DBusMap>)o)
@@ -46,47 +265,99 @@ public class MediaPlayerManager implements Closeable {
                 .flatMap(Set::stream)
                 .filter(MediaPlayerManager::hasMediaPlayer)
                 .map(Map.Entry::getKey)
-                .map(DBusPath::getPath)
-                .map(this::mediaPlayer)
-                .filter(Objects::nonNull);
+                .map(DBusPath::getPath);
         } catch (DBusException ex) {
             logger.error("Error retrieving objects", ex);
             throw new RuntimeException(ex);
         }
     }
 
-    @Override
-    public void close() throws IOException {
-        conn.close();
-    }
-
-    private static DBusConnection getConnection() {
+    private Optional<String> getTransportPath(String device) {
         try {
-            return DBusConnection.getConnection(DBusConnection.DBusBusType.SYSTEM);
+            return getManagedObjects()
+                .map(o -> (DBusMap<ObjectPath, DBusMap>)o)
+                .map(DBusMap::entrySet)
+                .flatMap(Set::stream)
+                .filter(e -> isTransportOf(e, device))
+                .map(Map.Entry::getKey)
+                .map(DBusPath::getPath)
+                .findFirst();
         } catch (DBusException ex) {
-            logger.error("Error creating connection", ex);
+            logger.error("Error retrieving objects", ex);
             throw new RuntimeException(ex);
         }
     }
 
     private Stream<Object> getManagedObjects() throws DBusException {
-    return Arrays.stream(
-        conn.callMethodAsync(remoteObject, "GetManagedObjects")
-            .getCall()
-            .getReply()
-            .getParameters());
+        final ManagedObjectsScanEvent event = new ManagedObjectsScanEvent();
+        event.begin();
+        final long start = System.nanoTime();
+        try {
+            final Object[] parameters = conn.callMethodAsync(remoteObject, "GetManagedObjects")
+                .getCall()
+                .getReply()
+                .getParameters();
+            MediaPlayerMetrics.INSTANCE.methodCall("GetManagedObjects", start, false);
+            event.end();
+            if (event.shouldCommit()) {
+                event.objects = Arrays.stream(parameters)
+                    .mapToInt(o -> o instanceof Map<?, ?> m? m.size(): 0)
+                    .sum();
+                event.commit();
+            }
+            return Arrays.stream(parameters);
+        } catch (DBusException | RuntimeException ex) {
+            MediaPlayerMetrics.INSTANCE.methodCall("GetManagedObjects", start, true);
+            event.end();
+            if (event.shouldCommit()) {
+                event.error = ex.toString();
+                event.commit();
+            }
+            throw ex;
+        }
     }
 
     private static boolean hasMediaPlayer(Map.Entry<ObjectPath, DBusMap> e) {
         return e.getValue().containsKey(MediaPlayer1.DBUS_INTERFACE_NAME);
     }
 
+    private static boolean isTransportOf(Map.Entry<ObjectPath, DBusMap> e, String device) {
+        return e.getValue().get(MediaTransport1.DBUS_INTERFACE_NAME) instanceof Map<?, ?> properties
+            && properties.get(MediaTransport.DEVICE) instanceof Variant<?> value
+            && value.getValue() instanceof DBusPath path
+            && device.equals(path.getPath());
+    }
+
     private MediaPlayer mediaPlayer(String path) {
+        return players.computeIfAbsent(path, this::newMediaPlayer);
+    }
+
+    private MediaPlayer newMediaPlayer(String path) {
         try {
-            return new MediaPlayer(conn, path);
+            return new MediaPlayer(connections.forPath(path), path);
         } catch (DBusException ex) {
             return null;
         }
     }
 
+    private void forgetMissing(List<String> paths) {
+        final Set<String> present = new HashSet<>(paths);
+        players.keySet().stream()
+            .filter(p -> !present.contains(p))
+            .toList()
+            .forEach(this::forget);
+    }
+
+    private synchronized void forget(String path) {
+        if (registry != null)
+            registry.remove(path);
+        release(path);
+    }
+
+    private void release(String path) {
+        final MediaPlayer player = players.remove(path);
+        if (player != null)
+            player.dispose();
+    }
+
 }
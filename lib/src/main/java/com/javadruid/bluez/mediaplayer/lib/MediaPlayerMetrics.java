@@ -0,0 +1,174 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process wide counters for D-Bus calls and signals. Recording only touches
+ * striped counters, so it is always on; the aggregates are computed when
+ * they are read over JMX.
+ */
+final class MediaPlayerMetrics implements MediaPlayerMetricsMXBean {
+
+    static final MediaPlayerMetrics INSTANCE = new MediaPlayerMetrics();
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaPlayerMetrics.class);
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final Map<String, Recorder> methodCalls = new ConcurrentHashMap<>();
+    private final Map<String, Recorder> propertyReads = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> signals = new ConcurrentHashMap<>();
+    private final LongAdder signalCount = new LongAdder();
+    private final Recorder recoveries = new Recorder();
+    private final Set<MediaPlayerManager> managers = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean registered;
+
+    private MediaPlayerMetrics() {
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server, once.
+     */
+    void register() {
+        if (registered)
+            return;
+        synchronized (this) {
+            if (registered)
+                return;
+            registered = true;
+            try {
+                final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                server.registerMBean(this, new ObjectName(OBJECT_NAME));
+            } catch (InstanceAlreadyExistsException ex) {
+                logger.debug("Metrics already registered", ex);
+            } catch (JMException | RuntimeException ex) {
+                logger.warn("Error registering metrics", ex);
+            }
+        }
+    }
+
+    void addManager(MediaPlayerManager manager) {
+        managers.add(manager);
+    }
+
+    void removeManager(MediaPlayerManager manager) {
+        managers.remove(manager);
+    }
+
+    void methodCall(String method, long startNanos, boolean error) {
+        recorder(methodCalls, method).record(System.nanoTime() - startNanos, error);
+    }
+
+    void propertyRead(String property, long startNanos, boolean error) {
+        recorder(propertyReads, property).record(System.nanoTime() - startNanos, error);
+    }
+
+    void signal(Set<String> properties) {
+        signalCount.increment();
+        for (String property : properties) {
+            final LongAdder counter = signals.get(property);
+            (counter != null? counter: signals.computeIfAbsent(property, k -> new LongAdder())).increment();
+        }
+    }
+
+    void recovery(long startNanos, boolean error) {
+        recoveries.record(System.nanoTime() - startNanos, error);
+    }
+
+    @Override
+    public Map<String, CallStatistics> getMethodCalls() {
+        return statistics(methodCalls);
+    }
+
+    @Override
+    public Map<String, CallStatistics> getPropertyReads() {
+        return statistics(propertyReads);
+    }
+
+    @Override
+    public Map<String, Long> getSignalsByProperty() {
+        final Map<String, Long> result = new TreeMap<>();
+        signals.forEach((k, v) -> result.put(k, v.sum()));
+        return result;
+    }
+
+    @Override
+    public long getSignalCount() {
+        return signalCount.sum();
+    }
+
+    @Override
+    public CallStatistics getRecoveries() {
+        return recoveries.statistics();
+    }
+
+    @Override
+    public int getActivePlayers() {
+        return managers.stream().mapToInt(MediaPlayerManager::playerCount).sum();
+    }
+
+    @Override
+    public int getActiveSubscriptions() {
+        return managers.stream().mapToInt(MediaPlayerManager::subscriptionCount).sum();
+    }
+
+    @Override
+    public void reset() {
+        methodCalls.values().forEach(Recorder::reset);
+        propertyReads.values().forEach(Recorder::reset);
+        signals.values().forEach(LongAdder::reset);
+        signalCount.reset();
+        recoveries.reset();
+    }
+
+    private static Recorder recorder(Map<String, Recorder> recorders, String name) {
+        final Recorder recorder = recorders.get(name);
+        return recorder != null? recorder: recorders.computeIfAbsent(name, k -> new Recorder());
+    }
+
+    private static Map<String, CallStatistics> statistics(Map<String, Recorder> recorders) {
+        final Map<String, CallStatistics> result = new TreeMap<>();
+        recorders.forEach((k, v) -> result.put(k, v.statistics()));
+        return result;
+    }
+
+    private static final class Recorder {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        void record(long nanos, boolean error) {
+            count.increment();
+            if (error)
+                errors.increment();
+            latency.record(nanos);
+        }
+
+        CallStatistics statistics() {
+            return new CallStatistics(count.sum(), errors.sum(),
+                latency.percentile(0.5) / NANOS_PER_MILLI,
+                latency.percentile(0.99) / NANOS_PER_MILLI,
+                latency.max() / NANOS_PER_MILLI);
+        }
+
+        void reset() {
+            count.reset();
+            errors.reset();
+            latency.reset();
+        }
+
+    }
+
+}
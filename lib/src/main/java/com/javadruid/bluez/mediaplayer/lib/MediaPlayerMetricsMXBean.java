@@ -0,0 +1,42 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import java.util.Map;
+
+/**
+ * Instrumentation of the library, registered with the platform MBean server
+ * as {@value #OBJECT_NAME}.
+ */
+public interface MediaPlayerMetricsMXBean {
+
+    String OBJECT_NAME = "com.javadruid.bluez.mediaplayer:type=Metrics";
+
+    /**
+     * Calls by D-Bus method name, including the {@code Properties} methods.
+     */
+    Map<String, CallStatistics> getMethodCalls();
+
+    /**
+     * Property reads that went to the bus, by property name.
+     */
+    Map<String, CallStatistics> getPropertyReads();
+
+    /**
+     * Properties reported by {@code PropertiesChanged} signals, by name.
+     */
+    Map<String, Long> getSignalsByProperty();
+
+    long getSignalCount();
+
+    /**
+     * Recoveries after a lost bus connection or a bluetoothd restart; failed
+     * attempts count as errors.
+     */
+    CallStatistics getRecoveries();
+
+    int getActivePlayers();
+
+    int getActiveSubscriptions();
+
+    void reset();
+
+}
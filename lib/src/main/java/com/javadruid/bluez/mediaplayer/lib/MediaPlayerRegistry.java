@@ -0,0 +1,152 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaPlayer1;
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.DBusSigHandler;
+import org.freedesktop.dbus.interfaces.ObjectManager;
+import org.freedesktop.dbus.interfaces.ObjectManager.InterfacesAdded;
+import org.freedesktop.dbus.interfaces.ObjectManager.InterfacesRemoved;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Live set of the media players exported by BlueZ. It is seeded with a single
+ * {@code GetManagedObjects} scan and then kept current from the
+ * {@code InterfacesAdded} and {@code InterfacesRemoved} signals, so reading
+ * {@link #currentPlayers()} never goes to the bus.
+ */
+public class MediaPlayerRegistry implements Closeable {
+
+    /**
+     * Receives players as they appear on and disappear from the bus. Called
+     * on the dbus-java signal thread.
+     */
+    public interface Listener {
+
+        default void playerAdded(MediaPlayer player) {
+        }
+
+        default void playerRemoved(MediaPlayer player) {
+        }
+
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaPlayerRegistry.class);
+
+    private DBusConnection conn;
+    private ObjectManager objectManager;
+    private final Function<String, MediaPlayer> factory;
+    private final Consumer<String> release;
+    private final Map<String, MediaPlayer> players = new ConcurrentHashMap<>();
+    private final Collection<MediaPlayer> view = Collections.unmodifiableCollection(players.values());
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final DBusSigHandler<InterfacesAdded> addedHandler = this::onInterfacesAdded;
+    private final DBusSigHandler<InterfacesRemoved> removedHandler = this::onInterfacesRemoved;
+
+    MediaPlayerRegistry(DBusConnection conn, ObjectManager objectManager,
+            Function<String, MediaPlayer> factory, Consumer<String> release) {
+        this.conn = conn;
+        this.objectManager = objectManager;
+        this.factory = factory;
+        this.release = release;
+    }
+
+    /**
+     * Subscribes to the object manager signals and then seeds the registry
+     * with the given paths, so no player added in between is missed.
+     */
+    void start(Stream<String> paths) {
+        register();
+        paths.forEach(this::add);
+    }
+
+    /**
+     * Moves the signal handlers to a new object manager proxy. The players
+     * are left alone: the caller re-scans and reconciles them.
+     */
+    synchronized void rebind(DBusConnection newConnection, ObjectManager newObjectManager) {
+        try {
+            conn.removeSigHandler(InterfacesAdded.class, objectManager, addedHandler);
+            conn.removeSigHandler(InterfacesRemoved.class, objectManager, removedHandler);
+        } catch (DBusException | RuntimeException ex) {
+            logger.debug("Error removing stale object manager listeners", ex);
+        }
+        conn = newConnection;
+        objectManager = newObjectManager;
+        register();
+    }
+
+    public Collection<MediaPlayer> currentPlayers() {
+        return view;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            conn.removeSigHandler(InterfacesAdded.class, objectManager, addedHandler);
+            conn.removeSigHandler(InterfacesRemoved.class, objectManager, removedHandler);
+        } catch (DBusException ex) {
+            logger.error("Error removing object manager listeners", ex);
+            throw new RuntimeException(ex);
+        } finally {
+            listeners.clear();
+            players.clear();
+        }
+    }
+
+    private void onInterfacesAdded(InterfacesAdded signal) {
+        if (signal.getInterfaces().containsKey(MediaPlayer1.DBUS_INTERFACE_NAME))
+            add(signal.getSignalSource().getPath());
+    }
+
+    private void onInterfacesRemoved(InterfacesRemoved signal) {
+        if (signal.getInterfaces().contains(MediaPlayer1.DBUS_INTERFACE_NAME))
+            remove(signal.getSignalSource().getPath());
+    }
+
+    private synchronized void register() {
+        try {
+            conn.addSigHandler(InterfacesAdded.class, objectManager, addedHandler);
+            conn.addSigHandler(InterfacesRemoved.class, objectManager, removedHandler);
+        } catch (DBusException ex) {
+            logger.error("Error adding object manager listeners", ex);
+            throw new RuntimeException(ex);
+        }
+    }
+
+    void add(String path) {
+        if (players.containsKey(path))
+            return;
+        final MediaPlayer player = factory.apply(path);
+        if (player != null && players.putIfAbsent(path, player) == null)
+            listeners.forEach(l -> l.playerAdded(player));
+    }
+
+    void remove(String path) {
+        final MediaPlayer player = players.remove(path);
+        if (player != null) {
+            listeners.forEach(l -> l.playerRemoved(player));
+            release.accept(path);
+        }
+    }
+
+}
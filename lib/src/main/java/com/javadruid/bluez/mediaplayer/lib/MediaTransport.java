@@ -0,0 +1,242 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaTransport1;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.types.UInt16;
+import org.freedesktop.dbus.types.Variant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The audio transport of the device a player belongs to, through
+ * {@code org.bluez.MediaTransport1}, which holds the volume, the state and
+ * the codec of the stream. Its properties are loaded with a single
+ * {@code GetAll} and then kept current from {@code PropertiesChanged}
+ * signals, as with a player's cache.
+ * <p>
+ * Volume changes are coalesced: {@link #setVolume(int)} only records the
+ * latest value, and a writer sends it with {@code Set} no more often than
+ * once per interval, with at most one write in flight. Dragging a volume
+ * slider therefore costs a few calls, the last one with the value the
+ * slider stopped at.
+ * <p>
+ * A transport does not follow reconnects; get a new one from
+ * {@link MediaPlayerManager#getTransport(MediaPlayer, Duration, ScheduledExecutorService)}.
+ */
+public class MediaTransport implements AutoCloseable {
+
+    public static final int MAX_VOLUME = 127;
+
+    // Property names
+    static final String DEVICE = "Device";
+    static final String UUID = "UUID";
+    static final String CODEC = "Codec";
+    static final String STATE = "State";
+    static final String DELAY = "Delay";
+    static final String VOLUME = "Volume";
+
+    private static final List<String> NAMES = List.of(DEVICE, UUID, CODEC, STATE, DELAY, VOLUME);
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaTransport.class);
+
+    private final String objectPath;
+    private final RemoteProperties remote;
+    private final PropertyChangeDispatcher dispatcher;
+    private final PropertyCache cache = new PropertyCache(MediaTransport1.DBUS_INTERFACE_NAME, NAMES);
+    private final Subscription cacheSubscription;
+    private final long volumeInterval;
+    private final ScheduledExecutorService scheduler;
+    private final LongSupplier nanoTime;
+
+    private int pendingVolume = -1;
+    private ScheduledFuture<?> scheduledWrite;
+    private boolean writing;
+    private long nextWrite;
+    private boolean closed;
+
+    /**
+     * @param volumeInterval minimum time between two volume writes
+     * @param scheduler runs the volume writes
+     */
+    MediaTransport(DBusConnection connection, String objectPath, Duration volumeInterval, ScheduledExecutorService scheduler) throws DBusException {
+        this(connection, objectPath, volumeInterval, scheduler, System::nanoTime);
+    }
+
+    MediaTransport(DBusConnection connection, String objectPath, Duration volumeInterval, ScheduledExecutorService scheduler, LongSupplier nanoTime) throws DBusException {
+        this.objectPath = objectPath;
+        this.volumeInterval = volumeInterval.toNanos();
+        this.scheduler = Objects.requireNonNull(scheduler);
+        this.nanoTime = nanoTime;
+        this.nextWrite = nanoTime.getAsLong();
+        this.remote = new RemoteProperties(connection, objectPath, MediaTransport1.DBUS_INTERFACE_NAME);
+        this.dispatcher = new PropertyChangeDispatcher(connection, remote.getProperties());
+        this.cacheSubscription = dispatcher.subscribe(cache::update);
+        final long mark = cache.mark();
+        cache.load(remote.getAllProperties(), mark);
+    }
+
+    public String getObjectPath() {
+        return objectPath;
+    }
+
+    // Properties
+    public Optional<String> getDevice() {
+        return Optional.ofNullable(MediaPlayer.toPath(getProperty(DEVICE)));
+    }
+
+    public Optional<String> getUuid() {
+        return Optional.ofNullable((String) getProperty(UUID));
+    }
+
+    /**
+     * Codec identifier as assigned by the A2DP specification, 0 for SBC.
+     */
+    public Optional<Byte> getCodec() {
+        return Optional.ofNullable((Byte) getProperty(CODEC));
+    }
+
+    /**
+     * State of the stream. Values BlueZ reports that have no constant read
+     * as empty.
+     */
+    public Optional<TransportState> getState() {
+        return Optional.ofNullable(TransportState.fromValue((String) getProperty(STATE)));
+    }
+
+    /**
+     * Transport delay in 1/10 of a millisecond.
+     */
+    public Optional<Integer> getDelay() {
+        return Optional.ofNullable(toInteger(getProperty(DELAY)));
+    }
+
+    /**
+     * Volume as last reported by the device, from 0 to {@value #MAX_VOLUME};
+     * empty if the device does not support absolute volume.
+     */
+    public Optional<Integer> getVolume() {
+        return Optional.ofNullable(toInteger(getProperty(VOLUME)));
+    }
+
+    /**
+     * Asks for the volume to be set to {@code volume}. Returns at once; the
+     * value is written when the interval since the previous write has
+     * passed and that write has been answered, unless a later call replaces
+     * it first.
+     *
+     * @param volume from 0 to {@value #MAX_VOLUME}
+     */
+    public synchronized void setVolume(int volume) {
+        if (volume < 0 || volume > MAX_VOLUME)
+            throw new IllegalArgumentException("Volume out of range: " + volume);
+        if (closed)
+            throw new IllegalStateException("Transport closed: " + objectPath);
+        pendingVolume = volume;
+        if (!writing && scheduledWrite == null)
+            scheduleWrite(nextWrite - nanoTime.getAsLong());
+    }
+
+    // Listeners
+    /**
+     * Adds a property change listener that runs inline on the dbus-java
+     * signal thread. It should return quickly.
+     */
+    public Subscription subscribe(Consumer<Map.Entry<String, Object>> listener) {
+        return subscribe(listener, null);
+    }
+
+    /**
+     * Adds a property change listener that runs on the given executor, one
+     * change at a time and in the order received. The cache is updated
+     * before any listener runs.
+     */
+    public Subscription subscribe(Consumer<Map.Entry<String, Object>> listener, Executor executor) {
+        return dispatcher.subscribe(s -> {
+            if (MediaTransport1.DBUS_INTERFACE_NAME.equals(s.getInterfaceName()))
+                s.getPropertiesChanged()
+                    .entrySet()
+                    .forEach(e -> listener.accept(MediaPlayer.toObjectEntry(e)));
+        }, executor);
+    }
+
+    /**
+     * Drops every subscription. A volume still waiting for its turn is
+     * written right away, provided the scheduler still accepts tasks; shut
+     * it down only after closing the transport.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+            if (scheduledWrite != null && scheduledWrite.cancel(false))
+                scheduleWrite(0);
+        }
+        try {
+            cacheSubscription.close();
+        } finally {
+            dispatcher.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return objectPath;
+    }
+
+    private void scheduleWrite(long delay) {
+        try {
+            scheduledWrite = scheduler.schedule(this::writeVolume, Math.max(0, delay), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException ex) {
+            if (!closed)
+                throw ex;
+            logger.debug("Scheduler shut down, volume {} of {} not written", pendingVolume, objectPath);
+            pendingVolume = -1;
+        }
+    }
+
+    private void writeVolume() {
+        final int volume;
+        synchronized (this) {
+            scheduledWrite = null;
+            if (pendingVolume < 0 || writing)
+                return;
+            volume = pendingVolume;
+            pendingVolume = -1;
+            writing = true;
+            nextWrite = nanoTime.getAsLong() + volumeInterval;
+        }
+        remote.setPropertyAsync(VOLUME, new Variant<>(new UInt16(volume))).whenComplete((r, ex) -> {
+            if (ex != null)
+                logger.warn("Could not set volume of {} to {}", objectPath, volume, ex);
+            synchronized (this) {
+                writing = false;
+                if (pendingVolume >= 0)
+                    scheduleWrite(nextWrite - nanoTime.getAsLong());
+            }
+        });
+    }
+
+    private Object getProperty(final String propertyName) {
+        return remote.getProperty(cache, NAMES.indexOf(propertyName), propertyName);
+    }
+
+    private static Integer toInteger(Object value) {
+        return value != null? ((UInt16) value).intValue(): null;
+    }
+
+}
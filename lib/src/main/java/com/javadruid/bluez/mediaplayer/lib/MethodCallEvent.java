@@ -0,0 +1,31 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A D-Bus method call made on a BlueZ object, from sending it to its reply.
+ */
+@Name("com.javadruid.bluez.mediaplayer.MethodCall")
+@Label("D-Bus Method Call")
+@Description("D-Bus method call made on a BlueZ object")
+@Category({"BlueZ", "Media Player"})
+@Enabled(false)
+@StackTrace(false)
+class MethodCallEvent extends Event {
+
+    @Label("Object Path")
+    String objectPath;
+
+    @Label("Member")
+    String member;
+
+    @Label("Error")
+    String error;
+
+}
@@ -0,0 +1,128 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Sends the same command to several players at once. Every call goes out
+ * straight away through {@link AsyncMediaPlayer}, so the whole group takes
+ * about one round trip, and the result reports each player separately.
+ * Players that have not replied when the deadline passes are reported as
+ * timed out.
+ */
+public class PlayerGroup {
+
+    public enum Outcome {
+        OK,
+        FAILED,
+        TIMED_OUT
+    }
+
+    /**
+     * Result of a group command for one player; {@code error} is
+     * {@code null} unless the outcome is {@link Outcome#FAILED}.
+     */
+    public record Result(MediaPlayer player, Outcome outcome, Throwable error) {
+
+        public boolean isOk() {
+            return outcome == Outcome.OK;
+        }
+
+    }
+
+    public static final Duration DEFAULT_DEADLINE = Duration.ofSeconds(2);
+
+    private final List<MediaPlayer> players;
+    private final Duration deadline;
+
+    public PlayerGroup(Collection<MediaPlayer> players) {
+        this(players, DEFAULT_DEADLINE);
+    }
+
+    public PlayerGroup(Collection<MediaPlayer> players, Duration deadline) {
+        this.players = List.copyOf(players);
+        this.deadline = deadline;
+    }
+
+    public List<MediaPlayer> getPlayers() {
+        return players;
+    }
+
+    public Duration getDeadline() {
+        return deadline;
+    }
+
+    public CompletableFuture<List<Result>> fastForward() {
+        return execute(AsyncMediaPlayer::fastForward);
+    }
+
+    public CompletableFuture<List<Result>> next() {
+        return execute(AsyncMediaPlayer::next);
+    }
+
+    public CompletableFuture<List<Result>> pause() {
+        return execute(AsyncMediaPlayer::pause);
+    }
+
+    public CompletableFuture<List<Result>> play() {
+        return execute(AsyncMediaPlayer::play);
+    }
+
+    public CompletableFuture<List<Result>> previous() {
+        return execute(AsyncMediaPlayer::previous);
+    }
+
+    public CompletableFuture<List<Result>> rewind() {
+        return execute(AsyncMediaPlayer::rewind);
+    }
+
+    public CompletableFuture<List<Result>> stop() {
+        return execute(AsyncMediaPlayer::stop);
+    }
+
+    public <T> CompletableFuture<List<Result>> set(PlayerProperty<T> property, T value) {
+        return execute(p -> p.set(property, value));
+    }
+
+    /**
+     * Runs {@code command} on every player of the group. The returned future
+     * never completes exceptionally: it completes with one result per
+     * player, in group order, once all have replied or the deadline passed.
+     */
+    public CompletableFuture<List<Result>> execute(Function<AsyncMediaPlayer, CompletableFuture<?>> command) {
+        final List<CompletableFuture<Result>> results = players.stream()
+            .map(p -> execute(p, command))
+            .toList();
+        return CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+            .thenApply(v -> results.stream().map(CompletableFuture::join).toList());
+    }
+
+    private CompletableFuture<Result> execute(MediaPlayer player, Function<AsyncMediaPlayer, CompletableFuture<?>> command) {
+        CompletableFuture<?> call;
+        try {
+            call = command.apply(player.async());
+        } catch (RuntimeException ex) {
+            call = CompletableFuture.failedFuture(ex);
+        }
+        return call.toCompletableFuture()
+            .copy()
+            .orTimeout(deadline.toNanos(), TimeUnit.NANOSECONDS)
+            .handle((r, ex) -> toResult(player, ex));
+    }
+
+    private static Result toResult(MediaPlayer player, Throwable error) {
+        final Throwable cause = error instanceof CompletionException && error.getCause() != null? error.getCause(): error;
+        if (cause == null)
+            return new Result(player, Outcome.OK, null);
+        if (cause instanceof TimeoutException)
+            return new Result(player, Outcome.TIMED_OUT, null);
+        return new Result(player, Outcome.FAILED, cause);
+    }
+
+}
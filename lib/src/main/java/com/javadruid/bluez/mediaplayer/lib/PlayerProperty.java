@@ -0,0 +1,140 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.freedesktop.dbus.types.Variant;
+
+/**
+ * Typed key of an {@code org.bluez.MediaPlayer1} property. Each key has a
+ * fixed {@link #ordinal()}, so per-property state can be kept in arrays
+ * and bit masks instead of maps keyed by name.
+ */
+public final class PlayerProperty<T> {
+
+    public static final PlayerProperty<Boolean> BROWSABLE =
+        new PlayerProperty<>(0, MediaPlayer.BROWSABLE, Boolean.class, Boolean.class::cast, null);
+    public static final PlayerProperty<String> DEVICE =
+        new PlayerProperty<>(1, MediaPlayer.DEVICE, String.class, MediaPlayer::toPath, null);
+    public static final PlayerProperty<EqualizerMode> EQUALIZER =
+        new PlayerProperty<>(2, MediaPlayer.EQUALIZER, EqualizerMode.class, v -> EqualizerMode.fromValue((String) v), BluezValue::value);
+    public static final PlayerProperty<String> NAME =
+        new PlayerProperty<>(3, MediaPlayer.NAME, String.class, String.class::cast, null);
+    public static final PlayerProperty<String> PLAYLIST =
+        new PlayerProperty<>(4, MediaPlayer.PLAYLIST, String.class, MediaPlayer::toPath, null);
+    public static final PlayerProperty<Integer> POSITION =
+        new PlayerProperty<>(5, MediaPlayer.POSITION, Integer.class, MediaPlayer::toInteger, null);
+    public static final PlayerProperty<RepeatMode> REPEAT =
+        new PlayerProperty<>(6, MediaPlayer.REPEAT, RepeatMode.class, v -> RepeatMode.fromValue((String) v), BluezValue::value);
+    public static final PlayerProperty<ScanMode> SCAN =
+        new PlayerProperty<>(7, MediaPlayer.SCAN, ScanMode.class, v -> ScanMode.fromValue((String) v), BluezValue::value);
+    public static final PlayerProperty<Boolean> SEARCHABLE =
+        new PlayerProperty<>(8, MediaPlayer.SEARCHABLE, Boolean.class, Boolean.class::cast, null);
+    public static final PlayerProperty<ShuffleMode> SHUFFLE =
+        new PlayerProperty<>(9, MediaPlayer.SHUFFLE, ShuffleMode.class, v -> ShuffleMode.fromValue((String) v), BluezValue::value);
+    public static final PlayerProperty<PlayerStatus> STATUS =
+        new PlayerProperty<>(10, MediaPlayer.STATUS, PlayerStatus.class, v -> PlayerStatus.fromValue((String) v), null);
+    public static final PlayerProperty<PlayerSubtype> SUBTYPE =
+        new PlayerProperty<>(11, MediaPlayer.SUBTYPE, PlayerSubtype.class, v -> PlayerSubtype.fromValue((String) v), null);
+    public static final PlayerProperty<Track> TRACK =
+        new PlayerProperty<>(12, MediaPlayer.TRACK, Track.class, v -> TrackDecoder.decodeOnce((Map<String, Variant<?>>) v), null);
+    public static final PlayerProperty<PlayerType> TYPE =
+        new PlayerProperty<>(13, MediaPlayer.TYPE, PlayerType.class, v -> PlayerType.fromValue((String) v), null);
+
+    private static final List<PlayerProperty<?>> VALUES = List.of(
+        BROWSABLE, DEVICE, EQUALIZER, NAME, PLAYLIST, POSITION, REPEAT,
+        SCAN, SEARCHABLE, SHUFFLE, STATUS, SUBTYPE, TRACK, TYPE);
+    private static final List<String> NAMES = VALUES.stream().map(PlayerProperty::name).toList();
+
+    private final int ordinal;
+    private final String name;
+    private final Class<T> type;
+    private final Function<Object, T> decoder;
+    private final Function<T, Object> encoder;
+
+    private PlayerProperty(int ordinal, String name, Class<T> type, Function<Object, T> decoder, Function<T, Object> encoder) {
+        this.ordinal = ordinal;
+        this.name = name;
+        this.type = type;
+        this.decoder = decoder;
+        this.encoder = encoder;
+    }
+
+    /**
+     * All properties, in ordinal order.
+     */
+    public static List<PlayerProperty<?>> values() {
+        return VALUES;
+    }
+
+    /**
+     * The property with the given D-Bus name, or {@code null} if there is
+     * none.
+     */
+    public static PlayerProperty<?> forName(String name) {
+        return switch (name) {
+            case MediaPlayer.BROWSABLE -> BROWSABLE;
+            case MediaPlayer.DEVICE -> DEVICE;
+            case MediaPlayer.EQUALIZER -> EQUALIZER;
+            case MediaPlayer.NAME -> NAME;
+            case MediaPlayer.PLAYLIST -> PLAYLIST;
+            case MediaPlayer.POSITION -> POSITION;
+            case MediaPlayer.REPEAT -> REPEAT;
+            case MediaPlayer.SCAN -> SCAN;
+            case MediaPlayer.SEARCHABLE -> SEARCHABLE;
+            case MediaPlayer.SHUFFLE -> SHUFFLE;
+            case MediaPlayer.STATUS -> STATUS;
+            case MediaPlayer.SUBTYPE -> SUBTYPE;
+            case MediaPlayer.TRACK -> TRACK;
+            case MediaPlayer.TYPE -> TYPE;
+            default -> null;
+        };
+    }
+
+    static List<String> names() {
+        return NAMES;
+    }
+
+    public int ordinal() {
+        return ordinal;
+    }
+
+    /**
+     * The D-Bus name of the property.
+     */
+    public String name() {
+        return name;
+    }
+
+    public Class<T> type() {
+        return type;
+    }
+
+    public boolean isWritable() {
+        return encoder != null;
+    }
+
+    /**
+     * Converts a value as received from the bus, {@code null} if absent.
+     */
+    T decode(Object value) {
+        return value != null? decoder.apply(value): null;
+    }
+
+    /**
+     * Converts a value to what is sent to the bus.
+     *
+     * @throws UnsupportedOperationException if the property is read only
+     */
+    Object encode(T value) {
+        if (encoder == null)
+            throw new UnsupportedOperationException("Property " + name + " is read only");
+        return encoder.apply(value);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+/**
+ * Immutable view of all the properties of a {@link MediaPlayer} taken at a
+ * single point in time. Components are {@code null} when the player does not
+ * report the corresponding property.
+ */
+public record PlayerState(
+    Boolean browsable,
+    String device,
+    String equalizer,
+    String name,
+    String playlist,
+    Integer position,
+    String repeat,
+    String scan,
+    Boolean searchable,
+    String shuffle,
+    String status,
+    String subtype,
+    Track track,
+    String type
+) {
+
+}
@@ -0,0 +1,39 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+/**
+ * Playback status reported in the {@code Status} property.
+ */
+public enum PlayerStatus implements BluezValue {
+
+    PLAYING("playing"),
+    STOPPED("stopped"),
+    PAUSED("paused"),
+    FORWARD_SEEK("forward-seek"),
+    REVERSE_SEEK("reverse-seek"),
+    ERROR("error");
+
+    private static final PlayerStatus[] VALUES = values();
+
+    private final String value;
+
+    PlayerStatus(String value) {
+        this.value = value;
+    }
+
+    @Override
+    public String value() {
+        return value;
+    }
+
+    /**
+     * The constant BlueZ reports as {@code value}, or {@code null} if the
+     * value is {@code null} or not known.
+     */
+    public static PlayerStatus fromValue(String value) {
+        for (PlayerStatus constant : VALUES)
+            if (constant.value.equals(value))
+                return constant;
+        return null;
+    }
+
+}
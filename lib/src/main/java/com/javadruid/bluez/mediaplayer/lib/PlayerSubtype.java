@@ -0,0 +1,35 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+/**
+ * Player subtypes reported in the {@code Subtype} property.
+ */
+public enum PlayerSubtype implements BluezValue {
+
+    AUDIO_BOOK("Audio Book"),
+    PODCAST("Podcast");
+
+    private static final PlayerSubtype[] VALUES = values();
+
+    private final String value;
+
+    PlayerSubtype(String value) {
+        this.value = value;
+    }
+
+    @Override
+    public String value() {
+        return value;
+    }
+
+    /**
+     * The constant BlueZ reports as {@code value}, or {@code null} if the
+     * value is {@code null} or not known.
+     */
+    public static PlayerSubtype fromValue(String value) {
+        for (PlayerSubtype constant : VALUES)
+            if (constant.value.equals(value))
+                return constant;
+        return null;
+    }
+
+}
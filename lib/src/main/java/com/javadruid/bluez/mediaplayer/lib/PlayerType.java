@@ -0,0 +1,37 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+/**
+ * Player types reported in the {@code Type} property.
+ */
+public enum PlayerType implements BluezValue {
+
+    AUDIO("Audio"),
+    VIDEO("Video"),
+    AUDIO_BROADCASTING("Audio Broadcasting"),
+    VIDEO_BROADCASTING("Video Broadcasting");
+
+    private static final PlayerType[] VALUES = values();
+
+    private final String value;
+
+    PlayerType(String value) {
+        this.value = value;
+    }
+
+    @Override
+    public String value() {
+        return value;
+    }
+
+    /**
+     * The constant BlueZ reports as {@code value}, or {@code null} if the
+     * value is {@code null} or not known.
+     */
+    public static PlayerType fromValue(String value) {
+        for (PlayerType constant : VALUES)
+            if (constant.value.equals(value))
+                return constant;
+        return null;
+    }
+
+}
@@ -0,0 +1,276 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaFolder1;
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaItem1;
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+import org.freedesktop.dbus.interfaces.Properties.PropertiesChanged;
+import org.freedesktop.dbus.types.UInt32;
+import org.freedesktop.dbus.types.Variant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The play queue of a player, the folder its {@code Playlist} property
+ * points to, as a list whose items are listed on demand.
+ * <p>
+ * {@link #get(int)} never blocks. It returns the item if it is loaded and
+ * {@code null} otherwise, and makes sure the batches around the index are
+ * being listed: the one holding it, {@code readBehind} before it and
+ * {@code readAhead} after it. Listeners added with
+ * {@link #subscribe(Runnable)} hear when items arrive or change, or the size
+ * changes, so a view can redraw instead of waiting.
+ * <p>
+ * Loaded items follow the {@code PropertiesChanged} signals of their
+ * {@code MediaItem1} objects without listing the folder again. When the
+ * {@code NumberOfItems} of the folder changes, loaded items are dropped and
+ * listed again as they are used. A player that moves to another
+ * {@code Playlist} needs a new instance.
+ */
+public class Playlist extends AbstractList<MediaItem> implements AutoCloseable {
+
+    public static final int DEFAULT_BATCH_SIZE = 20;
+    public static final int DEFAULT_READ_AHEAD = 2;
+    public static final int DEFAULT_READ_BEHIND = 1;
+
+    private static final Logger logger = LoggerFactory.getLogger(Playlist.class);
+
+    private final MediaPlayer player;
+    private final MediaBrowser browser;
+    private final String path;
+    private final int readAhead;
+    private final int readBehind;
+    private final Subscription folderSubscription;
+    private final Subscription itemSubscription;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private final Map<Integer, MediaItem> items = new HashMap<>();
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private final Set<Integer> requested = new HashSet<>();
+
+    private CompletableFuture<Integer> opened;
+    private int size;
+    private int generation;
+
+    /**
+     * The playlist of {@code player}, if it reports one.
+     */
+    public static Optional<Playlist> of(MediaPlayer player) {
+        return player.getPlaylist().map(path -> new Playlist(player, path));
+    }
+
+    public Playlist(MediaPlayer player, String path) {
+        this(player, path, DEFAULT_BATCH_SIZE, DEFAULT_READ_AHEAD, DEFAULT_READ_BEHIND);
+    }
+
+    /**
+     * @param batchSize items listed per {@code ListItems} call
+     * @param readAhead batches listed after the one used
+     * @param readBehind batches listed before the one used
+     */
+    public Playlist(MediaPlayer player, String path, int batchSize, int readAhead, int readBehind) {
+        this(player, new MediaBrowser(player, batchSize, readAhead + readBehind + 1, 0), path, readAhead, readBehind);
+    }
+
+    Playlist(MediaPlayer player, MediaBrowser browser, String path, int readAhead, int readBehind) {
+        if (readAhead < 0 || readBehind < 0)
+            throw new IllegalArgumentException("Negative read ahead or behind");
+        this.player = player;
+        this.browser = browser;
+        this.path = path;
+        this.readAhead = readAhead;
+        this.readBehind = readBehind;
+        this.folderSubscription = player.subscribeSignals(this::onFolderSignal);
+        this.itemSubscription = player.subscribeChildren(path, this::onItemSignal);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Changes into the playlist folder, if not done yet, and reads its size.
+     * The list is empty until this completes; {@link #load(int)} calls it
+     * as needed.
+     *
+     * @return the number of items
+     */
+    public synchronized CompletableFuture<Integer> open() {
+        if (opened == null || opened.isCompletedExceptionally())
+            opened = changeFolder();
+        return opened;
+    }
+
+    /**
+     * Number of items in the playlist, 0 until {@link #open()} completes.
+     */
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * The item at {@code index} if loaded, {@code null} while it is being
+     * listed.
+     */
+    @Override
+    public MediaItem get(int index) {
+        final MediaItem item;
+        synchronized (this) {
+            Objects.checkIndex(index, size);
+            item = items.get(index);
+        }
+        loadAround(index);
+        return item;
+    }
+
+    /**
+     * The item at {@code index}, listing its batch and the ones around it if
+     * needed; {@code null} past the end of the playlist.
+     */
+    public CompletableFuture<MediaItem> load(int index) {
+        return open().thenCompose(count -> {
+            if (index < 0 || index >= count)
+                return CompletableFuture.completedFuture(null);
+            synchronized (this) {
+                final MediaItem item = items.get(index);
+                if (item != null)
+                    return CompletableFuture.completedFuture(item);
+            }
+            final int batchSize = browser.getPageSize();
+            loadAround(index);
+            return inFolder(() -> browser.page(index / batchSize))
+                .thenApply(page -> index % batchSize < page.size()? page.get(index % batchSize): null);
+        });
+    }
+
+    /**
+     * Registers {@code listener} to run, on the signal or reply thread,
+     * whenever items are loaded or updated or the size changes.
+     */
+    public Subscription subscribe(Runnable listener) {
+        listeners.add(listener);
+        return () -> listeners.remove(listener);
+    }
+
+    @Override
+    public void close() {
+        folderSubscription.close();
+        itemSubscription.close();
+        browser.close();
+        listeners.clear();
+    }
+
+    private CompletableFuture<Integer> changeFolder() {
+        return browser.changeFolder(path)
+            .thenCompose(v -> player.getPropertyAsync(MediaFolder1.DBUS_INTERFACE_NAME, MediaBrowser.NUMBER_OF_ITEMS))
+            .thenApply(value -> {
+                final int count = value instanceof UInt32 n? n.intValue(): 0;
+                synchronized (this) {
+                    size = count;
+                }
+                notifyListeners();
+                return count;
+            });
+    }
+
+    private void loadAround(int index) {
+        final int batchSize = browser.getPageSize();
+        final int batch = index / batchSize;
+        final int first = Math.max(0, batch - readBehind);
+        for (int b = first; b <= batch + readAhead; b++) {
+            synchronized (this) {
+                if ((long) b * batchSize >= size)
+                    break;
+            }
+            request(b);
+        }
+    }
+
+    private void request(int batch) {
+        final int expected;
+        synchronized (this) {
+            if (!requested.add(batch))
+                return;
+            expected = generation;
+        }
+        inFolder(() -> browser.page(batch)).whenComplete((page, ex) -> {
+            synchronized (this) {
+                if (generation != expected)
+                    return;
+                if (ex != null) {
+                    requested.remove(batch);
+                } else {
+                    final int start = batch * browser.getPageSize();
+                    for (int i = 0; i < page.size(); i++) {
+                        final MediaItem item = page.get(i);
+                        items.put(start + i, item);
+                        indexes.put(item.path(), start + i);
+                    }
+                }
+            }
+            if (ex != null)
+                logger.warn("Could not list batch {} of playlist {}", batch, path, ex);
+            else
+                notifyListeners();
+        });
+    }
+
+    /**
+     * Runs {@code listing} once the playlist is open. The browser changes
+     * back into the playlist folder before listing if something else
+     * browsed away.
+     */
+    private <T> CompletableFuture<T> inFolder(Supplier<CompletableFuture<T>> listing) {
+        return open().thenCompose(count -> listing.get());
+    }
+
+    private void onFolderSignal(PropertiesChanged signal) {
+        if (!MediaFolder1.DBUS_INTERFACE_NAME.equals(signal.getInterfaceName()) || !path.equals(player.getCurrentFolder()))
+            return;
+        final Variant<?> count = signal.getPropertiesChanged().get(MediaBrowser.NUMBER_OF_ITEMS);
+        if (count == null || !(count.getValue() instanceof UInt32 value))
+            return;
+        synchronized (this) {
+            if (value.intValue() == size)
+                return;
+            generation++;
+            size = value.intValue();
+            items.clear();
+            indexes.clear();
+            requested.clear();
+        }
+        notifyListeners();
+    }
+
+    private void onItemSignal(PropertiesChanged signal) {
+        if (!MediaItem1.DBUS_INTERFACE_NAME.equals(signal.getInterfaceName()))
+            return;
+        synchronized (this) {
+            final Integer index = indexes.get(signal.getPath());
+            if (index == null)
+                return;
+            items.computeIfPresent(index, (i, item) -> item.with(signal.getPropertiesChanged()));
+        }
+        notifyListeners();
+    }
+
+    private void notifyListeners() {
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException ex) {
+                logger.warn("Error in listener", ex);
+            }
+        }
+    }
+
+}
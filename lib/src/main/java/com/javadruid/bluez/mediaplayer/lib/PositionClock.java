@@ -0,0 +1,121 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Playback position of a player extrapolated locally. The clock is anchored
+ * on the last {@code Position} and {@code Status} seen, advances on its own
+ * while the player is playing and re-syncs on every real update and track
+ * change, so reading it never goes to the bus.
+ * <p>
+ * The clock subscribes before it reads its initial state, so no update is
+ * missed in between; values from that read only fill in what no signal has
+ * set by then, so they never overwrite a newer update.
+ */
+public final class PositionClock implements AutoCloseable {
+
+    private final LongSupplier nanoTime;
+    private final Subscription subscription;
+
+    private long anchorPosition;
+    private long anchorNanos;
+    private boolean playing;
+    private boolean statusSeen;
+    private boolean positionSeen;
+    private Track track;
+    private long durationMillis;
+
+    public PositionClock(MediaPlayer player) {
+        this(player, System::nanoTime);
+    }
+
+    PositionClock(MediaPlayer player, LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+        this.subscription = player.subscribeDeltas(this::onChange);
+        try {
+            final PlayerState state = player.snapshot();
+            synchronized (this) {
+                if (track == null && state.track() != null) {
+                    track = state.track();
+                    durationMillis = track.duration().toMillis();
+                }
+                if (!statusSeen && state.status() != null)
+                    setStatus(PlayerStatus.fromValue(state.status()));
+                if (!positionSeen && state.position() != null)
+                    setPosition(Integer.toUnsignedLong(state.position()));
+            }
+        } catch (RuntimeException ex) {
+            subscription.close();
+            throw ex;
+        }
+    }
+
+    public synchronized long currentPositionMillis() {
+        final long position = playing
+            ? anchorPosition + TimeUnit.NANOSECONDS.toMillis(nanoTime.getAsLong() - anchorNanos)
+            : anchorPosition;
+        return durationMillis > 0? Math.min(position, durationMillis): position;
+    }
+
+    public synchronized boolean isPlaying() {
+        return playing;
+    }
+
+    /**
+     * Reports the extrapolated position to {@code listener} every
+     * {@code tick} on {@code scheduler}, until the returned subscription is
+     * closed.
+     */
+    public Subscription progress(Duration tick, ScheduledExecutorService scheduler, LongConsumer listener) {
+        final long period = tick.toNanos();
+        final ScheduledFuture<?> future = scheduler.scheduleAtFixedRate(
+            () -> listener.accept(currentPositionMillis()), 0, period, TimeUnit.NANOSECONDS);
+        return () -> future.cancel(false);
+    }
+
+    @Override
+    public void close() {
+        subscription.close();
+    }
+
+    /**
+     * Applies one signal as a whole: a new track first, as it resets the
+     * position, then the status and a position sent along with them. A
+     * {@code Track} resent with the same metadata keeps the position.
+     */
+    private synchronized void onChange(PropertyDelta delta) {
+        final Track newTrack = delta.get(PlayerProperty.TRACK);
+        if (newTrack != null && !newTrack.equals(track)) {
+            track = newTrack;
+            durationMillis = newTrack.duration().toMillis();
+            setPosition(0);
+            positionSeen = true;
+        }
+        if (delta.contains(PlayerProperty.STATUS)) {
+            setStatus(delta.get(PlayerProperty.STATUS));
+            statusSeen = true;
+        }
+        final Integer position = delta.get(PlayerProperty.POSITION);
+        if (position != null) {
+            setPosition(Integer.toUnsignedLong(position));
+            positionSeen = true;
+        }
+    }
+
+    private void setPosition(long position) {
+        anchorPosition = position;
+        anchorNanos = nanoTime.getAsLong();
+    }
+
+    private void setStatus(PlayerStatus status) {
+        anchorPosition = currentPositionMillis();
+        anchorNanos = nanoTime.getAsLong();
+        playing = status == PlayerStatus.PLAYING;
+    }
+
+}
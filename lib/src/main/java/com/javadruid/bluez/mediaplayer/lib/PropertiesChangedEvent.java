@@ -0,0 +1,36 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Delivery of one {@code PropertiesChanged} signal to the listeners of a
+ * player. Listeners with an executor only count for handing the signal
+ * over.
+ */
+@Name("com.javadruid.bluez.mediaplayer.PropertiesChanged")
+@Label("PropertiesChanged Delivery")
+@Description("Delivery of a PropertiesChanged signal to the listeners of a player")
+@Category({"BlueZ", "Media Player"})
+@Enabled(false)
+@StackTrace(false)
+class PropertiesChangedEvent extends Event {
+
+    @Label("Player")
+    String player;
+
+    @Label("Interface")
+    String interfaceName;
+
+    @Label("Properties")
+    String properties;
+
+    @Label("Listeners")
+    int listeners;
+
+}
@@ -0,0 +1,139 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.freedesktop.dbus.interfaces.Properties.PropertiesChanged;
+import org.freedesktop.dbus.types.Variant;
+
+/**
+ * Local copy of the properties of one D-Bus interface, loaded once with
+ * {@code GetAll} and kept current from {@code PropertiesChanged} signals.
+ * Properties listed as invalidated by a signal are forgotten until they are
+ * fetched again.
+ * <p>
+ * Values live in an array with one slot per known property name, so typed
+ * callers can read them by index without hashing the name. Names outside
+ * the known set are not cached. Every property starts invalidated, and
+ * stays so until a load or a read succeeds.
+ * <p>
+ * Signals may arrive while a {@code GetAll} or {@code Get} is on its way.
+ * Each slot remembers when a signal last touched it, and a reply to a call
+ * started before that leaves the slot alone, so an older reply never hides
+ * a newer signal.
+ */
+class PropertyCache {
+
+    private static final Object INVALIDATED = new Object();
+
+    private final String interfaceName;
+    private final Map<String, Integer> slots;
+    private final AtomicReferenceArray<Object> values;
+    private final long[] stamps;
+
+    private long clock;
+
+    PropertyCache(String interfaceName, List<String> names) {
+        this.interfaceName = interfaceName;
+        final Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < names.size(); i++)
+            indexes.put(names.get(i), i);
+        this.slots = Map.copyOf(indexes);
+        this.values = new AtomicReferenceArray<>(names.size());
+        this.stamps = new long[names.size()];
+        for (int i = 0; i < names.size(); i++)
+            values.set(i, INVALIDATED);
+    }
+
+    /**
+     * Marks the start of a load or a read; pass the result to
+     * {@link #load(Map, long)} or {@link #put(int, Object, long)} once the
+     * reply is in.
+     */
+    synchronized long mark() {
+        return clock;
+    }
+
+    /**
+     * Replaces the cached values with {@code all}, except those updated by
+     * a signal since {@code mark}. A {@code null} {@code all}, from a failed
+     * {@code GetAll}, invalidates them instead, so each is read again when
+     * asked for.
+     */
+    synchronized void load(Map<String, Variant<?>> all, long mark) {
+        for (int i = 0; i < values.length(); i++)
+            if (stamps[i] <= mark)
+                values.set(i, all != null? null: INVALIDATED);
+        if (all == null)
+            return;
+        all.forEach((name, value) -> {
+            final Integer slot = slots.get(name);
+            if (slot != null && stamps[slot] <= mark)
+                values.set(slot, value != null? value.getValue(): null);
+        });
+    }
+
+    Object get(String name) {
+        final Integer slot = slots.get(name);
+        return slot != null? get(slot): null;
+    }
+
+    Object get(int slot) {
+        final Object value = values.get(slot);
+        return value != INVALIDATED? value: null;
+    }
+
+    /**
+     * Whether the value of {@code name} has to be fetched from the bus,
+     * because a signal invalidated it or because it is not cached at all.
+     */
+    boolean isInvalidated(String name) {
+        final Integer slot = slots.get(name);
+        return slot == null || isInvalidated(slot);
+    }
+
+    boolean isInvalidated(int slot) {
+        return values.get(slot) == INVALIDATED;
+    }
+
+    void put(String name, Object value, long mark) {
+        final Integer slot = slots.get(name);
+        if (slot != null)
+            put(slot, value, mark);
+    }
+
+    /**
+     * Stores a value read with {@code Get}, unless a signal updated it
+     * since {@code mark}.
+     */
+    synchronized void put(int slot, Object value, long mark) {
+        if (stamps[slot] <= mark)
+            values.set(slot, value);
+    }
+
+    synchronized void update(PropertiesChanged signal) {
+        if (!interfaceName.equals(signal.getInterfaceName()))
+            return;
+        clock++;
+        signal.getPropertiesChanged().forEach(this::put);
+        signal.getPropertiesRemoved().forEach(this::invalidate);
+    }
+
+    private void put(String name, Variant<?> value) {
+        final Integer slot = slots.get(name);
+        if (slot != null) {
+            values.set(slot, value != null? value.getValue(): null);
+            stamps[slot] = clock;
+        }
+    }
+
+    private void invalidate(String name) {
+        final Integer slot = slots.get(name);
+        if (slot != null) {
+            values.set(slot, INVALIDATED);
+            stamps[slot] = clock;
+        }
+    }
+
+}
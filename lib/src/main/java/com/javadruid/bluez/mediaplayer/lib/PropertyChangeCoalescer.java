@@ -0,0 +1,87 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.freedesktop.dbus.types.Variant;
+
+/**
+ * Optional stage between a player and a property change listener that turns
+ * a burst of changes into a single delta. Changes received within the window
+ * are merged keeping only the latest value per property, and values equal to
+ * the last one delivered are dropped; {@code Track} dictionaries are compared
+ * by their decoded content. Deltas are delivered on the scheduler.
+ */
+public class PropertyChangeCoalescer implements Consumer<Map.Entry<String, Object>>, AutoCloseable {
+
+    private final Duration window;
+    private final ScheduledExecutorService scheduler;
+    private final Consumer<Map<String, Object>> downstream;
+    private final Map<String, Object> lastDelivered = new HashMap<>();
+
+    private Map<String, Object> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+
+    public PropertyChangeCoalescer(Duration window, ScheduledExecutorService scheduler, Consumer<Map<String, Object>> downstream) {
+        this.window = Objects.requireNonNull(window);
+        this.scheduler = Objects.requireNonNull(scheduler);
+        this.downstream = Objects.requireNonNull(downstream);
+    }
+
+    @Override
+    public synchronized void accept(Map.Entry<String, Object> change) {
+        pending.put(change.getKey(), change.getValue());
+        if (scheduledFlush == null)
+            scheduledFlush = scheduler.schedule(this::flush, window.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Delivers whatever has been merged so far without waiting for the
+     * window to close.
+     */
+    public void flush() {
+        final Map<String, Object> delta = takeDelta();
+        if (!delta.isEmpty())
+            downstream.accept(delta);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        pending.clear();
+    }
+
+    private synchronized Map<String, Object> takeDelta() {
+        scheduledFlush = null;
+        if (pending.isEmpty())
+            return Map.of();
+        final Map<String, Object> delta = new LinkedHashMap<>();
+        pending.forEach((name, value) -> {
+            if (!sameValue(name, lastDelivered.get(name), value)) {
+                delta.put(name, value);
+                lastDelivered.put(name, value);
+            }
+        });
+        pending = new LinkedHashMap<>();
+        return Collections.unmodifiableMap(delta);
+    }
+
+    private static boolean sameValue(String name, Object previous, Object current) {
+        if (MediaPlayer.TRACK.equals(name) && previous instanceof Map && current instanceof Map)
+            return Objects.equals(
+                MediaPlayer.toTrack((Map<String, Variant<?>>) previous),
+                MediaPlayer.toTrack((Map<String, Variant<?>>) current));
+        return Objects.equals(previous, current);
+    }
+
+}
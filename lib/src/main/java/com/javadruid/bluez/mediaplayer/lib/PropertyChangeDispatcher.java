@@ -0,0 +1,169 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.DBusSigHandler;
+import org.freedesktop.dbus.interfaces.Properties;
+import org.freedesktop.dbus.interfaces.Properties.PropertiesChanged;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fans the {@code PropertiesChanged} signals of one object out to any number
+ * of listeners through a single signal handler registration. The handler is
+ * registered with the first listener and removed with the last one.
+ * <p>
+ * Listeners given an executor run on it, one event at a time and in order,
+ * so they never hold up the dbus-java signal thread or each other. Listeners
+ * without one run inline on the signal thread and should be cheap.
+ */
+class PropertyChangeDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(PropertyChangeDispatcher.class);
+
+    private DBusConnection connection;
+    private Properties properties;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final DBusSigHandler<PropertiesChanged> handler = this::dispatch;
+
+    private boolean registered;
+
+    PropertyChangeDispatcher(DBusConnection connection, Properties properties) {
+        this.connection = connection;
+        this.properties = properties;
+    }
+
+    Subscription subscribe(Consumer<PropertiesChanged> consumer) {
+        return subscribe(consumer, null);
+    }
+
+    synchronized Subscription subscribe(Consumer<PropertiesChanged> consumer, Executor executor) {
+        final Listener listener = new Listener(consumer, executor != null? new SerialExecutor(executor): null);
+        if (!registered) {
+            try {
+                connection.addSigHandler(PropertiesChanged.class, properties, handler);
+            } catch (DBusException ex) {
+                logger.error("Error adding new listener", ex);
+                throw new RuntimeException(ex);
+            }
+            registered = true;
+        }
+        listeners.add(listener);
+        return () -> unsubscribe(listener);
+    }
+
+    int size() {
+        return listeners.size();
+    }
+
+    /**
+     * Moves the signal handler registration to a new proxy, keeping the
+     * listeners. The old registration is dropped on a best effort basis as
+     * its connection may already be gone.
+     */
+    synchronized void rebind(DBusConnection newConnection, Properties newProperties) {
+        if (registered) {
+            try {
+                connection.removeSigHandler(PropertiesChanged.class, properties, handler);
+            } catch (DBusException | RuntimeException ex) {
+                logger.debug("Error removing stale listener", ex);
+            }
+            registered = false;
+        }
+        connection = newConnection;
+        properties = newProperties;
+        if (!listeners.isEmpty()) {
+            try {
+                connection.addSigHandler(PropertiesChanged.class, properties, handler);
+            } catch (DBusException ex) {
+                logger.error("Error adding new listener", ex);
+                throw new RuntimeException(ex);
+            }
+            registered = true;
+        }
+    }
+
+    /**
+     * Drops every listener and the signal handler registration.
+     */
+    synchronized void close() {
+        listeners.clear();
+        unregister();
+    }
+
+    private synchronized void unsubscribe(Listener listener) {
+        if (listeners.remove(listener) && listeners.isEmpty())
+            unregister();
+    }
+
+    private void unregister() {
+        if (registered) {
+            registered = false;
+            try {
+                connection.removeSigHandler(PropertiesChanged.class, properties, handler);
+            } catch (DBusException ex) {
+                logger.error("Error removing listener", ex);
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
+    /**
+     * Delivers a signal received from the bus, after passing it to the
+     * {@link SignalRecorder} and counting it in {@link MediaPlayerMetrics}.
+     */
+    void dispatch(PropertiesChanged signal) {
+        deliver(signal, true);
+    }
+
+    /**
+     * Delivers a signal that did not come from the bus, such as one
+     * replayed from a log, which is neither recorded nor counted again.
+     */
+    void inject(PropertiesChanged signal) {
+        deliver(signal, false);
+    }
+
+    private void deliver(PropertiesChanged signal, boolean received) {
+        final PropertiesChangedEvent event = new PropertiesChangedEvent();
+        event.begin();
+        if (received) {
+            SignalRecorder.signal(signal);
+            MediaPlayerMetrics.INSTANCE.signal(signal.getPropertiesChanged().keySet());
+        }
+        int delivered = 0;
+        for (Listener listener : listeners) {
+            listener.deliver(signal);
+            delivered++;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.player = signal.getPath();
+            event.interfaceName = signal.getInterfaceName();
+            event.properties = String.join(",", signal.getPropertiesChanged().keySet());
+            event.listeners = delivered;
+            event.commit();
+        }
+    }
+
+    private record Listener(Consumer<PropertiesChanged> consumer, Executor executor) {
+
+        void deliver(PropertiesChanged signal) {
+            if (executor != null) {
+                executor.execute(() -> consumer.accept(signal));
+            } else {
+                try {
+                    consumer.accept(signal);
+                } catch (RuntimeException ex) {
+                    logger.warn("Error in listener", ex);
+                }
+            }
+        }
+
+    }
+
+}
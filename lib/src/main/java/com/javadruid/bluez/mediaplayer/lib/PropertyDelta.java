@@ -0,0 +1,68 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * The properties changed by one {@code PropertiesChanged} signal, decoded
+ * to their typed values. Values are held in an array indexed by
+ * {@link PlayerProperty#ordinal()}; properties the signal invalidated are
+ * contained with a {@code null} value.
+ */
+public final class PropertyDelta {
+
+    private final Object[] values;
+    private final int changed;
+
+    PropertyDelta(Object[] values, int changed) {
+        this.values = values;
+        this.changed = changed;
+    }
+
+    public boolean contains(PlayerProperty<?> property) {
+        return (changed & (1 << property.ordinal())) != 0;
+    }
+
+    /**
+     * The new value of {@code property}, or {@code null} if it did not
+     * change or was invalidated.
+     */
+    public <T> T get(PlayerProperty<T> property) {
+        return property.type().cast(values[property.ordinal()]);
+    }
+
+    public boolean isEmpty() {
+        return changed == 0;
+    }
+
+    public List<PlayerProperty<?>> properties() {
+        final List<PlayerProperty<?>> result = new ArrayList<>(Integer.bitCount(changed));
+        forEach((p, v) -> result.add(p));
+        return result;
+    }
+
+    /**
+     * Calls {@code action} with each changed property and its value, in
+     * ordinal order.
+     */
+    public void forEach(BiConsumer<PlayerProperty<?>, Object> action) {
+        final List<PlayerProperty<?>> all = PlayerProperty.values();
+        for (int bits = changed; bits != 0; bits &= bits - 1) {
+            final int ordinal = Integer.numberOfTrailingZeros(bits);
+            action.accept(all.get(ordinal), values[ordinal]);
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder result = new StringBuilder("{");
+        forEach((p, v) -> {
+            if (result.length() > 1)
+                result.append(", ");
+            result.append(p.name()).append('=').append(v);
+        });
+        return result.append('}').toString();
+    }
+
+}
@@ -0,0 +1,285 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaPlayer1;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.errors.Error;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.DBusInterface;
+import org.freedesktop.dbus.interfaces.Properties;
+import org.freedesktop.dbus.messages.Message;
+import org.freedesktop.dbus.messages.MethodCall;
+import org.freedesktop.dbus.types.Variant;
+import org.freedesktop.dbus.utils.DBusNamingUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The D-Bus plumbing of one BlueZ object: the connection, its
+ * {@code Properties} proxy and the interface whose properties are read and
+ * written. Every call is counted in {@link MediaPlayerMetrics}, emitted as
+ * a {@link MethodCallEvent} and, unless it only reads properties, passed to
+ * the {@link SignalRecorder}.
+ * <p>
+ * Calls made through a dbus-java proxy look the method up by the runtime
+ * classes of the parameters, which never match a method declaring a
+ * primitive or {@code Object} parameter, such as {@code Press(byte)} or
+ * {@code Set}. Those are sent as a {@link MethodCall} with an explicit
+ * signature instead.
+ * <p>
+ * Shared by {@link MediaPlayer} and {@link MediaTransport}.
+ */
+class RemoteProperties {
+
+    private static final Logger logger = LoggerFactory.getLogger(RemoteProperties.class);
+
+    private static final String SET_SIGNATURE = "ssv";
+
+    private final String objectPath;
+    private final String interfaceName;
+    private volatile DBusConnection connection;
+    private volatile Properties properties;
+
+    RemoteProperties(DBusConnection connection, String objectPath, String interfaceName) throws DBusException {
+        this.connection = connection;
+        this.objectPath = objectPath;
+        this.interfaceName = interfaceName;
+        this.properties = connection.getRemoteObject(MediaPlayer1.BUS_NAME, objectPath, Properties.class);
+    }
+
+    DBusConnection getConnection() {
+        return connection;
+    }
+
+    Properties getProperties() {
+        return properties;
+    }
+
+    /**
+     * Moves the calls to {@code newConnection}, where {@code newProperties}
+     * is the proxy of the same object.
+     */
+    void rebind(DBusConnection newConnection, Properties newProperties) {
+        connection = newConnection;
+        properties = newProperties;
+    }
+
+    /**
+     * The value of a property from {@code cache}, or read with {@code Get}
+     * and stored in {@code cache} if it is invalidated there. A failed read
+     * is not stored, nor is one overtaken by a signal. Without a cache the
+     * property is always read.
+     *
+     * @param slot index of the property in {@code cache}
+     */
+    Object getProperty(PropertyCache cache, int slot, String propertyName) {
+        if (cache != null && !cache.isInvalidated(slot))
+            return cache.get(slot);
+        final long mark = cache != null? cache.mark(): 0;
+        final long start = System.nanoTime();
+        final Object result = fetchProperty(propertyName);
+        MediaPlayerMetrics.INSTANCE.propertyRead(propertyName, start, result == null);
+        if (cache != null && result != null)
+            cache.put(slot, result, mark);
+        return result;
+    }
+
+    /**
+     * Reads a property with {@code Get}; {@code null} if the call fails.
+     */
+    Object fetchProperty(final String propertyName) {
+        try {
+            final Message reply = callMethod(properties, "Get", interfaceName, propertyName);
+            if (reply instanceof Error error) {
+                logger.warn("Error whilst getting property", error.getException());
+            } else if (reply != null && reply.getParameters()[0] instanceof Variant<?> result) {
+                return result.getValue();
+            }
+        } catch (DBusException ex) {
+            logger.warn("Could not retrieve property {}", propertyName, ex);
+        }
+        return null;
+    }
+
+    /**
+     * Reads every property with {@code GetAll}; {@code null} if the call
+     * fails.
+     */
+    Map<String, Variant<?>> getAllProperties() {
+        try {
+            final Message reply = callMethod(properties, "GetAll", interfaceName);
+            if (reply instanceof Error error) {
+                logger.warn("Error whilst getting all properties", error.getException());
+            } else if (reply != null) {
+                final Map<String, Variant<?>> result = (Map<String, Variant<?>>) reply.getParameters()[0];
+                if (result != null)
+                    return result;
+            }
+        } catch (DBusException ex) {
+            logger.warn("Could not retrieve properties", ex);
+        }
+        return null;
+    }
+
+    /**
+     * Writes a property with {@code Set} and waits for the reply; an error
+     * reply is logged.
+     */
+    void setProperty(final String propertyName, Object value) {
+        final Message reply = callMethod(Properties.class, objectPath, "Set", SET_SIGNATURE, interfaceName, propertyName, toVariant(value));
+        if (reply instanceof Error error)
+            logger.warn("Error whilst setting property {}", propertyName, error.getException());
+    }
+
+    CompletableFuture<Object> getPropertyAsync(final String propertyName) {
+        return getPropertyAsync(interfaceName, propertyName);
+    }
+
+    /**
+     * Reads a property of another interface of the same object.
+     */
+    CompletableFuture<Object> getPropertyAsync(final String otherInterfaceName, final String propertyName) {
+        return callAsync(properties, "Get", otherInterfaceName, propertyName)
+            .thenApply(value -> value instanceof Variant<?> variant? variant.getValue(): value);
+    }
+
+    CompletableFuture<Map<String, Variant<?>>> getAllPropertiesAsync() {
+        return callAsync(properties, "GetAll", interfaceName)
+            .thenApply(r -> r != null? (Map<String, Variant<?>>) r: Map.of());
+    }
+
+    CompletableFuture<Object> setPropertyAsync(final String propertyName, Object value) {
+        return callAsync(Properties.class, objectPath, "Set", SET_SIGNATURE, interfaceName, propertyName, toVariant(value));
+    }
+
+    /**
+     * Calls a method of {@code object} and waits for the reply, which is
+     * {@code null} if none came.
+     */
+    Message callMethod(final DBusInterface object, final String methodName, Object... parameters) {
+        return call(methodName, parameters, () -> connection.callMethodAsync(object, methodName, parameters).getCall());
+    }
+
+    /**
+     * Calls a method of the {@code type} interface of the object at
+     * {@code path}, with its parameters marshalled as {@code signature}, and
+     * waits for the reply, which is {@code null} if none came.
+     */
+    Message callMethod(final Class<? extends DBusInterface> type, final String path, final String methodName, final String signature, Object... parameters) {
+        return call(methodName, parameters, () -> {
+            final MethodCall call = newCall(type, path, methodName, (byte) 0, signature, parameters);
+            connection.sendMessage(call);
+            return call;
+        });
+    }
+
+    /**
+     * Calls a method of {@code object} without waiting; the future
+     * completes with the first value of the reply.
+     */
+    CompletableFuture<Object> callAsync(final DBusInterface object, final String methodName, Object... parameters) {
+        return callAsync(methodName, parameters, result -> connection.callWithCallback(object, methodName, result, parameters));
+    }
+
+    /**
+     * Calls a method of the {@code type} interface of the object at
+     * {@code path}, with its parameters marshalled as {@code signature},
+     * without waiting; the future completes with the first value of the
+     * reply.
+     */
+    CompletableFuture<Object> callAsync(final Class<? extends DBusInterface> type, final String path, final String methodName, final String signature, Object... parameters) {
+        return callAsync(methodName, parameters, result -> {
+            final MethodCall call = newCall(type, path, methodName, (byte) 0, signature, parameters);
+            connection.queueCallback(call, findMethod(type, methodName), result);
+            connection.sendMessage(call);
+        });
+    }
+
+    /**
+     * Ends {@code event} and commits it for a call to {@code member} of
+     * this object; {@code error} is {@code null} when the call succeeded.
+     */
+    void commit(MethodCallEvent event, String member, String error) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.objectPath = objectPath;
+            event.member = member;
+            event.error = error;
+            event.commit();
+        }
+    }
+
+    /**
+     * A call to a method of the {@code type} interface of the object at
+     * {@code path} of the BlueZ service.
+     */
+    static MethodCall newCall(Class<? extends DBusInterface> type, String path, String methodName, byte flags, String signature, Object... parameters) throws DBusException {
+        return new MethodCall(MediaPlayer1.BUS_NAME, path, DBusNamingUtil.getInterfaceName(type), methodName, flags, signature, parameters);
+    }
+
+    private Message call(String methodName, Object[] parameters, Sender sender) {
+        final MethodCallEvent event = new MethodCallEvent();
+        event.begin();
+        final long start = System.nanoTime();
+        record(methodName, parameters);
+        try {
+            final Message reply = sender.send().getReply();
+            MediaPlayerMetrics.INSTANCE.methodCall(methodName, start, reply == null || reply instanceof Error);
+            commit(event, methodName, reply == null? "no reply": reply instanceof Error error? error.getName(): null);
+            return reply;
+        } catch (DBusException | RuntimeException ex) {
+            MediaPlayerMetrics.INSTANCE.methodCall(methodName, start, true);
+            commit(event, methodName, ex.toString());
+            if (ex instanceof RuntimeException runtime)
+                throw runtime;
+            logger.error("Error calling {}", methodName, ex);
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private CompletableFuture<Object> callAsync(String methodName, Object[] parameters, AsyncSender sender) {
+        final MethodCallEvent event = new MethodCallEvent();
+        event.begin();
+        final long start = System.nanoTime();
+        final CompletableCallback<Object> result = new CompletableCallback<>();
+        record(methodName, parameters);
+        try {
+            sender.send(result);
+        } catch (DBusException | RuntimeException ex) {
+            result.completeExceptionally(ex);
+        }
+        return result.whenComplete((r, ex) -> {
+            MediaPlayerMetrics.INSTANCE.methodCall(methodName, start, ex != null);
+            commit(event, methodName, ex != null? ex.toString(): null);
+        });
+    }
+
+    private void record(String methodName, Object[] parameters) {
+        if (!"Get".equals(methodName) && !"GetAll".equals(methodName))
+            SignalRecorder.command(objectPath, methodName, parameters);
+    }
+
+    private static Method findMethod(Class<?> type, String methodName) {
+        for (Method method : type.getMethods())
+            if (method.getName().equals(methodName))
+                return method;
+        throw new IllegalArgumentException("No method " + methodName + " in " + type.getName());
+    }
+
+    private static Variant<?> toVariant(Object value) {
+        return value instanceof Variant<?> variant? variant: new Variant<>(value);
+    }
+
+    @FunctionalInterface
+    private interface Sender {
+        MethodCall send() throws DBusException;
+    }
+
+    @FunctionalInterface
+    private interface AsyncSender {
+        void send(CompletableCallback<Object> result) throws DBusException;
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+/**
+ * Values of the {@code Repeat} property.
+ */
+public enum RepeatMode implements BluezValue {
+
+    OFF("off"),
+    SINGLE_TRACK("singletrack"),
+    ALL_TRACKS("alltracks"),
+    GROUP("group");
+
+    private static final RepeatMode[] VALUES = values();
+
+    private final String value;
+
+    RepeatMode(String value) {
+        this.value = value;
+    }
+
+    @Override
+    public String value() {
+        return value;
+    }
+
+    /**
+     * The constant BlueZ reports as {@code value}, or {@code null} if the
+     * value is {@code null} or not known.
+     */
+    public static RepeatMode fromValue(String value) {
+        for (RepeatMode constant : VALUES)
+            if (constant.value.equals(value))
+                return constant;
+        return null;
+    }
+
+}
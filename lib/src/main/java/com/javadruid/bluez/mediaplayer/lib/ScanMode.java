@@ -0,0 +1,36 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+/**
+ * Values of the {@code Scan} property.
+ */
+public enum ScanMode implements BluezValue {
+
+    OFF("off"),
+    ALL_TRACKS("alltracks"),
+    GROUP("group");
+
+    private static final ScanMode[] VALUES = values();
+
+    private final String value;
+
+    ScanMode(String value) {
+        this.value = value;
+    }
+
+    @Override
+    public String value() {
+        return value;
+    }
+
+    /**
+     * The constant BlueZ reports as {@code value}, or {@code null} if the
+     * value is {@code null} or not known.
+     */
+    public static ScanMode fromValue(String value) {
+        for (ScanMode constant : VALUES)
+            if (constant.value.equals(value))
+                return constant;
+        return null;
+    }
+
+}
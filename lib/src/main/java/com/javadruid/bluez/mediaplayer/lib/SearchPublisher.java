@@ -0,0 +1,214 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+
+/**
+ * Results of one {@link MediaBrowser#search(String)}, published item by
+ * item as the pages of the results folder arrive. Pages are listed only
+ * while the subscriber has outstanding demand, so a subscriber that stops
+ * requesting after the first screenful stops the listing too.
+ * <p>
+ * Each search can be subscribed to once. A search superseded by a newer one
+ * stops listing and fails its subscriber with a
+ * {@link CancellationException}.
+ */
+final class SearchPublisher implements Flow.Publisher<MediaItem>, Flow.Subscription {
+
+    /** Handed to a subscriber that is turned away, as it has nothing to request. */
+    private static final Flow.Subscription REJECTED = new Flow.Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    private final MediaBrowser browser;
+    private final String query;
+    private final Deque<MediaItem> buffer = new ArrayDeque<>();
+    private final List<MediaItem> results = new ArrayList<>();
+
+    private Flow.Subscriber<? super MediaItem> subscriber;
+    private String folder;
+    private long demand;
+    private int nextPage;
+    private boolean started;
+    private boolean fetching;
+    private boolean exhausted;
+    private boolean draining;
+    private boolean terminated;
+    private Throwable error;
+
+    SearchPublisher(MediaBrowser browser, String query) {
+        this.browser = browser;
+        this.query = query;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super MediaItem> newSubscriber) {
+        Objects.requireNonNull(newSubscriber);
+        synchronized (this) {
+            if (subscriber != null) {
+                newSubscriber.onSubscribe(REJECTED);
+                newSubscriber.onError(new IllegalStateException("Search for '" + query + "' already has a subscriber"));
+                return;
+            }
+            subscriber = newSubscriber;
+        }
+        newSubscriber.onSubscribe(this);
+        start();
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            fail(new IllegalArgumentException("Non-positive request " + n));
+            return;
+        }
+        synchronized (this) {
+            demand = demand + n < 0? Long.MAX_VALUE: demand + n;
+        }
+        drain();
+    }
+
+    @Override
+    public synchronized void cancel() {
+        terminated = true;
+        buffer.clear();
+    }
+
+    /**
+     * Stops this search in favour of a newer one.
+     */
+    void supersede() {
+        fail(new CancellationException("Search for '" + query + "' superseded"));
+    }
+
+    private void start() {
+        synchronized (this) {
+            if (terminated || error != null)
+                return;
+        }
+        final List<MediaItem> cached = browser.cachedSearch(query);
+        if (cached != null) {
+            synchronized (this) {
+                buffer.addAll(cached);
+                exhausted = true;
+            }
+            drain();
+            return;
+        }
+        browser.startSearch(query).whenComplete((results, ex) -> {
+            if (ex != null) {
+                fail(ex);
+                return;
+            }
+            synchronized (this) {
+                folder = results;
+                started = true;
+            }
+            drain();
+        });
+    }
+
+    /**
+     * Lists the next page of the results folder, even if the browser has
+     * moved on to another folder since.
+     */
+    private void fetchMore() {
+        final String listed;
+        final int page;
+        synchronized (this) {
+            if (!started || fetching || exhausted || terminated || error != null || demand <= buffer.size())
+                return;
+            fetching = true;
+            listed = folder;
+            page = nextPage++;
+        }
+        browser.page(listed, page).whenComplete((items, ex) -> {
+            if (ex != null) {
+                fail(ex);
+                return;
+            }
+            final List<MediaItem> complete;
+            synchronized (this) {
+                fetching = false;
+                buffer.addAll(items);
+                results.addAll(items);
+                final int count = browser.getNumberOfItems(listed);
+                exhausted = items.size() < browser.getPageSize()
+                    || count >= 0 && (long) nextPage * browser.getPageSize() >= count;
+                complete = exhausted && !terminated? List.copyOf(results): null;
+            }
+            if (complete != null)
+                browser.cacheSearch(query, complete);
+            drain();
+        });
+    }
+
+    private void fail(Throwable ex) {
+        synchronized (this) {
+            if (terminated || error != null)
+                return;
+            error = ex instanceof CompletionException && ex.getCause() != null? ex.getCause(): ex;
+            buffer.clear();
+        }
+        drain();
+    }
+
+    /**
+     * Delivers what the subscriber has asked for, from one thread at a
+     * time, then lists more if the buffer cannot cover the demand.
+     */
+    private void drain() {
+        synchronized (this) {
+            if (draining)
+                return;
+            draining = true;
+        }
+        while (true) {
+            final Flow.Subscriber<? super MediaItem> target;
+            MediaItem next = null;
+            Throwable failure = null;
+            synchronized (this) {
+                target = subscriber;
+                if (target == null || terminated) {
+                    draining = false;
+                    return;
+                }
+                if (error != null) {
+                    terminated = true;
+                    failure = error;
+                } else if (demand > 0 && !buffer.isEmpty()) {
+                    next = buffer.poll();
+                    demand--;
+                } else if (buffer.isEmpty() && exhausted) {
+                    terminated = true;
+                } else {
+                    draining = false;
+                    break;
+                }
+            }
+            if (failure != null) {
+                target.onError(failure);
+                return;
+            }
+            if (next == null) {
+                target.onComplete();
+                return;
+            }
+            target.onNext(next);
+        }
+        fetchMore();
+    }
+
+}
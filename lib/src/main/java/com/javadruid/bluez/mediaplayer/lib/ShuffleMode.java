@@ -0,0 +1,36 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+/**
+ * Values of the {@code Shuffle} property.
+ */
+public enum ShuffleMode implements BluezValue {
+
+    OFF("off"),
+    ALL_TRACKS("alltracks"),
+    GROUP("group");
+
+    private static final ShuffleMode[] VALUES = values();
+
+    private final String value;
+
+    ShuffleMode(String value) {
+        this.value = value;
+    }
+
+    @Override
+    public String value() {
+        return value;
+    }
+
+    /**
+     * The constant BlueZ reports as {@code value}, or {@code null} if the
+     * value is {@code null} or not known.
+     */
+    public static ShuffleMode fromValue(String value) {
+        for (ShuffleMode constant : VALUES)
+            if (constant.value.equals(value))
+                return constant;
+        return null;
+    }
+
+}
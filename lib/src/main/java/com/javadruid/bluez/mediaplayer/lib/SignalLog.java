@@ -0,0 +1,154 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.types.UInt16;
+import org.freedesktop.dbus.types.UInt32;
+import org.freedesktop.dbus.types.UInt64;
+import org.freedesktop.dbus.types.Variant;
+
+/**
+ * Binary format shared by {@link SignalRecorder} and {@link SignalReplayer}.
+ * <p>
+ * A log starts with a {@value #HEADER_SIZE} byte header: magic, version and
+ * the wall clock time recording started at. Records follow back to back,
+ * each a type byte, the length of its body and the body. A zero type byte
+ * ends the log; the recorder writes the type byte of a record last, so a
+ * record cut short by a crash reads as the end of the log.
+ * <p>
+ * Paths and names are written once as {@link #STRING} records and referred
+ * to by index afterwards. Timestamps are nanoseconds since the start.
+ */
+final class SignalLog {
+
+    static final int MAGIC = 0x425A5243;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 16;
+
+    // Record types
+    static final byte END = 0;
+    static final byte STRING = 1;
+    static final byte SIGNAL = 2;
+    static final byte COMMAND = 3;
+
+    // Value tags
+    private static final byte NULL = 0;
+    private static final byte BOOLEAN = 1;
+    private static final byte BYTE = 2;
+    private static final byte INT16 = 3;
+    private static final byte UINT16 = 4;
+    private static final byte INT32 = 5;
+    private static final byte UINT32 = 6;
+    private static final byte INT64 = 7;
+    private static final byte UINT64 = 8;
+    private static final byte DOUBLE = 9;
+    private static final byte TEXT = 10;
+    private static final byte OBJECT_PATH = 11;
+    private static final byte DICTIONARY = 12;
+    private static final byte OTHER = 13;
+
+    private SignalLog() {
+    }
+
+    /**
+     * Writes a property or argument value. Variants are unwrapped,
+     * dictionaries keep their structure with their keys as text, and other
+     * values not listed in the format are kept as text.
+     */
+    static void putValue(ByteBuffer buffer, Object value) {
+        if (value instanceof Variant<?> variant)
+            value = variant.getValue();
+        switch (value) {
+            case null -> buffer.put(NULL);
+            case Boolean b -> buffer.put(BOOLEAN).put((byte) (b? 1: 0));
+            case Byte b -> buffer.put(BYTE).put(b);
+            case Short s -> buffer.put(INT16).putShort(s);
+            case UInt16 u -> buffer.put(UINT16).putShort(u.shortValue());
+            case Integer i -> buffer.put(INT32).putInt(i);
+            case UInt32 u -> buffer.put(UINT32).putInt(u.intValue());
+            case Long l -> buffer.put(INT64).putLong(l);
+            case UInt64 u -> putString(buffer.put(UINT64), u.toString());
+            case Double d -> buffer.put(DOUBLE).putDouble(d);
+            case String s -> putString(buffer.put(TEXT), s);
+            case DBusPath p -> putString(buffer.put(OBJECT_PATH), p.getPath());
+            case Map<?, ?> m -> {
+                buffer.put(DICTIONARY).putInt(m.size());
+                for (Map.Entry<?, ?> e : m.entrySet()) {
+                    putString(buffer, String.valueOf(e.getKey()));
+                    putValue(buffer, e.getValue());
+                }
+            }
+            default -> putString(buffer.put(OTHER), value.toString());
+        }
+    }
+
+    /**
+     * Reads a value as dbus-java delivers it: dictionaries come back as maps
+     * of variants.
+     */
+    static Object getValue(ByteBuffer buffer) {
+        final byte tag = buffer.get();
+        return switch (tag) {
+            case NULL -> null;
+            case BOOLEAN -> buffer.get() != 0;
+            case BYTE -> buffer.get();
+            case INT16 -> buffer.getShort();
+            case UINT16 -> new UInt16(Short.toUnsignedInt(buffer.getShort()));
+            case INT32 -> buffer.getInt();
+            case UINT32 -> new UInt32(Integer.toUnsignedLong(buffer.getInt()));
+            case INT64 -> buffer.getLong();
+            case UINT64 -> new UInt64(getString(buffer));
+            case DOUBLE -> buffer.getDouble();
+            case TEXT, OTHER -> getString(buffer);
+            case OBJECT_PATH -> new DBusPath(getString(buffer));
+            case DICTIONARY -> {
+                final int size = buffer.getInt();
+                final Map<String, Variant<?>> result = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    final String key = getString(buffer);
+                    final Variant<?> variant = toVariant(getValue(buffer));
+                    if (variant != null)
+                        result.put(key, variant);
+                }
+                yield result;
+            }
+            default -> throw new IllegalArgumentException("Unknown value tag " + tag);
+        };
+    }
+
+    static Variant<?> toVariant(Object value) {
+        if (value == null)
+            return null;
+        return value instanceof Map<?, ?> m? new Variant<>(m, "a{sv}"): new Variant<>(value);
+    }
+
+    /**
+     * Writes {@code value} as UTF-8 after its length in bytes. ASCII, which
+     * covers the property names and most metadata, is copied without an
+     * intermediate array.
+     */
+    static void putString(ByteBuffer buffer, String value) {
+        final int start = buffer.position();
+        final int length = value.length();
+        buffer.putInt(length);
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c >= 0x80) {
+                final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                buffer.putInt(start, bytes.length).position(start + 4).put(bytes);
+                return;
+            }
+            buffer.put((byte) c);
+        }
+    }
+
+    static String getString(ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,271 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.freedesktop.dbus.interfaces.Properties.PropertiesChanged;
+import org.freedesktop.dbus.types.Variant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records every {@code PropertiesChanged} signal delivered to a player and
+ * every command sent by one to an append-only binary log, for
+ * {@link SignalReplayer} to play back later.
+ * <p>
+ * There is at most one recording per process, started with
+ * {@link #start(Path)} and stopped by closing it. Records are written
+ * straight into a memory mapped region of the file, which grows a region at
+ * a time; paths and names are written once and referred to by index after
+ * that. Appending a signal takes no system calls and costs around a
+ * microsecond, less than receiving it from the bus, so recording can be left
+ * on. When the log reaches its size limit, or the file cannot be extended,
+ * recording stops with a log message.
+ */
+public final class SignalRecorder implements Closeable {
+
+    /** Size limit of a log unless one is given, 1 GiB. */
+    public static final long DEFAULT_MAX_SIZE = 1L << 30;
+
+    static final int REGION_SIZE = 16 << 20;
+
+    private static final Logger logger = LoggerFactory.getLogger(SignalRecorder.class);
+
+    private static volatile SignalRecorder active;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final long maxSize;
+    private final int regionSize;
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Integer> strings = new HashMap<>();
+    private ByteBuffer body = ByteBuffer.allocate(1024);
+    private int[] names = new int[16];
+    private Variant<?>[] values = new Variant<?>[16];
+    private MappedByteBuffer region;
+    private long regionStart;
+    private boolean closed;
+
+    SignalRecorder(Path file, long maxSize, int regionSize) throws IOException {
+        if (maxSize < SignalLog.HEADER_SIZE)
+            throw new IllegalArgumentException("Size limit too small: " + maxSize);
+        this.file = file;
+        this.maxSize = maxSize;
+        this.regionSize = regionSize;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            map(0, regionSize);
+            region.putInt(SignalLog.MAGIC)
+                .putShort(SignalLog.VERSION)
+                .putShort((short) 0)
+                .putLong(System.currentTimeMillis());
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Starts recording to {@code file}, replacing its contents, with the
+     * default size limit.
+     *
+     * @throws IllegalStateException if a recording is already running
+     */
+    public static SignalRecorder start(Path file) throws IOException {
+        return start(file, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Starts recording to {@code file}, replacing its contents. Recording
+     * stops once the log would grow past {@code maxSize} bytes.
+     *
+     * @throws IllegalStateException if a recording is already running
+     */
+    public static synchronized SignalRecorder start(Path file, long maxSize) throws IOException {
+        if (active != null)
+            throw new IllegalStateException("Already recording to " + active.file);
+        final SignalRecorder recorder = new SignalRecorder(file, maxSize, REGION_SIZE);
+        active = recorder;
+        return recorder;
+    }
+
+    /**
+     * Whether a recording is running.
+     */
+    public static boolean isRecording() {
+        return active != null;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Bytes written so far, header included.
+     */
+    public synchronized long size() {
+        return closed? -1: regionStart + region.position();
+    }
+
+    /**
+     * Stops recording and trims the file to what was written.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        synchronized (SignalRecorder.class) {
+            if (active == this)
+                active = null;
+        }
+        try {
+            final long end = regionStart + region.position();
+            region.force();
+            region = null;
+            channel.truncate(end);
+        } finally {
+            channel.close();
+        }
+    }
+
+    static void signal(PropertiesChanged signal) {
+        final SignalRecorder recorder = active;
+        if (recorder != null)
+            recorder.record(signal);
+    }
+
+    static void command(String path, String member, Object[] arguments) {
+        final SignalRecorder recorder = active;
+        if (recorder != null)
+            recorder.record(path, member, arguments);
+    }
+
+    synchronized void record(PropertiesChanged signal) {
+        if (closed)
+            return;
+        final long nanos = System.nanoTime() - startNanos;
+        final Map<String, Variant<?>> changed = signal.getPropertiesChanged();
+        final List<String> removed = signal.getPropertiesRemoved();
+        final int path = id(signal.getPath());
+        final int iface = id(signal.getInterfaceName());
+        if (names.length < changed.size() + removed.size())
+            names = new int[changed.size() + removed.size()];
+        if (values.length < changed.size())
+            values = new Variant<?>[changed.size()];
+        // One pass over the entries: DBusMap sorts keySet() but not values()
+        int n = 0;
+        for (Map.Entry<String, Variant<?>> e : changed.entrySet()) {
+            values[n] = e.getValue();
+            names[n++] = id(e.getKey());
+        }
+        for (String name : removed)
+            names[n++] = id(name);
+        while (!closed) {
+            try {
+                body.clear();
+                body.putLong(nanos).putInt(path).putInt(iface).putShort((short) changed.size());
+                for (n = 0; n < changed.size(); n++) {
+                    body.putInt(names[n]);
+                    SignalLog.putValue(body, values[n]);
+                }
+                body.putShort((short) removed.size());
+                for (int i = 0; i < removed.size(); i++)
+                    body.putInt(names[n++]);
+                append(SignalLog.SIGNAL, body.flip());
+                Arrays.fill(values, 0, changed.size(), null);
+                return;
+            } catch (BufferOverflowException ex) {
+                body = ByteBuffer.allocate(body.capacity() * 2);
+            }
+        }
+    }
+
+    synchronized void record(String path, String member, Object[] arguments) {
+        if (closed)
+            return;
+        final long nanos = System.nanoTime() - startNanos;
+        final int pathId = id(path);
+        final int memberId = id(member);
+        while (!closed) {
+            try {
+                body.clear();
+                body.putLong(nanos).putInt(pathId).putInt(memberId).putShort((short) arguments.length);
+                for (Object argument : arguments)
+                    SignalLog.putValue(body, argument);
+                append(SignalLog.COMMAND, body.flip());
+                return;
+            } catch (BufferOverflowException ex) {
+                body = ByteBuffer.allocate(body.capacity() * 2);
+            }
+        }
+    }
+
+    private int id(String value) {
+        Integer id = strings.get(value);
+        if (id == null) {
+            id = strings.size();
+            final ByteBuffer definition = ByteBuffer.allocate(8 + 4 * value.length());
+            definition.putInt(id);
+            SignalLog.putString(definition, value);
+            append(SignalLog.STRING, definition.flip());
+            strings.put(value, id);
+        }
+        return id;
+    }
+
+    /**
+     * Appends one record. The type byte goes in last, so readers never see
+     * a partly written record.
+     */
+    private void append(byte type, ByteBuffer record) {
+        if (closed)
+            return;
+        final int size = 1 + 4 + record.remaining();
+        final long end = regionStart + region.position() + size;
+        if (end + 1 > maxSize) {
+            logger.warn("Recording to {} reached its limit of {} bytes, stopping", file, maxSize);
+            closeQuietly();
+            return;
+        }
+        if (region.remaining() < size + 1) {
+            try {
+                map(regionStart + region.position(), Math.max(regionSize, size + 1));
+            } catch (IOException | RuntimeException ex) {
+                logger.error("Error extending recording {}, stopping", file, ex);
+                closeQuietly();
+                return;
+            }
+        }
+        final int position = region.position();
+        region.position(position + 1);
+        region.putInt(record.remaining()).put(record);
+        region.put(position, type);
+    }
+
+    private void map(long offset, int size) throws IOException {
+        region = channel.map(FileChannel.MapMode.READ_WRITE, offset, size);
+        region.order(ByteOrder.BIG_ENDIAN);
+        regionStart = offset;
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException ex) {
+            logger.warn("Error closing recording {}", file, ex);
+        }
+    }
+
+}
@@ -0,0 +1,218 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.Properties.PropertiesChanged;
+import org.freedesktop.dbus.types.Variant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads a log written by {@link SignalRecorder}, either record by record
+ * with {@link #forEach(Listener)} or by feeding the recorded signals back to
+ * the subscribers of live {@link MediaPlayer} objects with
+ * {@link #replay(Function, boolean)}.
+ * <p>
+ * A log that was cut short, for example because the process died while
+ * recording, reads up to the last complete record.
+ */
+public final class SignalReplayer implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignalReplayer.class);
+
+    private static final long MAX_REGION_SIZE = Integer.MAX_VALUE;
+
+    /**
+     * Receives the records of a log in order. Timestamps are nanoseconds
+     * since the recording started.
+     */
+    public interface Listener {
+
+        default void propertiesChanged(long nanos, String path, String interfaceName,
+            Map<String, Object> changed, List<String> invalidated) {
+        }
+
+        default void command(long nanos, String path, String member, List<Object> arguments) {
+        }
+
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final Instant startTime;
+
+    public SignalReplayer(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            final ByteBuffer header = ByteBuffer.allocate(SignalLog.HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0);
+            header.flip();
+            if (header.remaining() < SignalLog.HEADER_SIZE || header.getInt() != SignalLog.MAGIC)
+                throw new IOException("Not a signal recording: " + file);
+            final short version = header.getShort();
+            if (version != SignalLog.VERSION)
+                throw new IOException("Unsupported recording version " + version + ": " + file);
+            header.getShort();
+            startTime = Instant.ofEpochMilli(header.getLong());
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Wall clock time the recording started at.
+     */
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Hands every record of the log to {@code listener}, in order. Stops
+     * early if the current thread is interrupted.
+     *
+     * @return the number of signals and commands read
+     */
+    public long forEach(Listener listener) throws IOException {
+        final List<String> strings = new ArrayList<>();
+        final long size = channel.size();
+        long offset = SignalLog.HEADER_SIZE;
+        long count = 0;
+        while (offset < size && !Thread.currentThread().isInterrupted()) {
+            final MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                Math.min(size - offset, MAX_REGION_SIZE));
+            int position = 0;
+            while (!Thread.currentThread().isInterrupted()) {
+                if (region.limit() - position < 5)
+                    break;
+                final byte type = region.get(position);
+                if (type == SignalLog.END)
+                    return count;
+                final int length = region.getInt(position + 1);
+                if (region.limit() - position - 5 < length)
+                    break;
+                final ByteBuffer record = region.slice(position + 5, length);
+                position += 5 + length;
+                try {
+                    count += read(type, record, strings, listener)? 1: 0;
+                } catch (RuntimeException ex) {
+                    logger.error("Error reading record at {} of {}", offset + position - length - 5, file, ex);
+                    throw new IOException("Corrupt recording: " + file, ex);
+                }
+            }
+            if (position == 0)
+                break;
+            offset += position;
+        }
+        return count;
+    }
+
+    /**
+     * Delivers the recorded signals to the subscribers of the players
+     * returned by {@code players} for their paths, as if they had come from
+     * the bus. Signals of paths without a player are skipped. Replays at the
+     * recorded pace when {@code realTime} is set, and as fast as possible
+     * otherwise. Recorded commands are not sent again, and replayed signals
+     * are not recorded again nor counted in {@link MediaPlayerMetrics}.
+     *
+     * @return the number of signals delivered
+     */
+    public long replay(Function<String, MediaPlayer> players, boolean realTime) throws IOException {
+        final long start = System.nanoTime();
+        final long[] delivered = {0};
+        forEach(new Listener() {
+            @Override
+            public void propertiesChanged(long nanos, String path, String interfaceName,
+                Map<String, Object> changed, List<String> invalidated) {
+                final MediaPlayer player = players.apply(path);
+                if (player == null)
+                    return;
+                if (realTime)
+                    awaitNanos(start + nanos);
+                final Map<String, Variant<?>> variants = new LinkedHashMap<>();
+                changed.forEach((name, value) -> {
+                    final Variant<?> variant = SignalLog.toVariant(value);
+                    if (variant != null)
+                        variants.put(name, variant);
+                });
+                try {
+                    player.inject(new PropertiesChanged(path, interfaceName, variants, invalidated));
+                    delivered[0]++;
+                } catch (DBusException ex) {
+                    logger.warn("Error replaying signal for {}", path, ex);
+                }
+            }
+        });
+        return delivered[0];
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static boolean read(byte type, ByteBuffer record, List<String> strings, Listener listener) {
+        switch (type) {
+            case SignalLog.STRING -> {
+                final int id = record.getInt();
+                if (id != strings.size())
+                    throw new IllegalStateException("String " + id + " out of order");
+                strings.add(SignalLog.getString(record));
+                return false;
+            }
+            case SignalLog.SIGNAL -> {
+                final long nanos = record.getLong();
+                final String path = strings.get(record.getInt());
+                final String interfaceName = strings.get(record.getInt());
+                final int changedCount = Short.toUnsignedInt(record.getShort());
+                final Map<String, Object> changed = new LinkedHashMap<>();
+                for (int i = 0; i < changedCount; i++) {
+                    final String name = strings.get(record.getInt());
+                    changed.put(name, SignalLog.getValue(record));
+                }
+                final String[] invalidated = new String[Short.toUnsignedInt(record.getShort())];
+                for (int i = 0; i < invalidated.length; i++)
+                    invalidated[i] = strings.get(record.getInt());
+                listener.propertiesChanged(nanos, path, interfaceName, changed, Arrays.asList(invalidated));
+                return true;
+            }
+            case SignalLog.COMMAND -> {
+                final long nanos = record.getLong();
+                final String path = strings.get(record.getInt());
+                final String member = strings.get(record.getInt());
+                final int argumentCount = Short.toUnsignedInt(record.getShort());
+                final List<Object> arguments = new ArrayList<>(argumentCount);
+                for (int i = 0; i < argumentCount; i++)
+                    arguments.add(SignalLog.getValue(record));
+                listener.command(nanos, path, member, arguments);
+                return true;
+            }
+            default -> {
+                // Written by a newer version; skip it
+                return false;
+            }
+        }
+    }
+
+    private static void awaitNanos(long deadline) {
+        for (long wait = deadline - System.nanoTime(); wait > 0 && !Thread.currentThread().isInterrupted();
+            wait = deadline - System.nanoTime())
+            LockSupport.parkNanos(wait);
+    }
+
+}
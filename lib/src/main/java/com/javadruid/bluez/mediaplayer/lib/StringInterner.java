@@ -0,0 +1,34 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+/**
+ * Bounded, lossy string intern cache. Equal strings seen close together
+ * come back as the same instance; a colliding string simply replaces the
+ * previous one, so the table never grows and lookups never lock.
+ */
+final class StringInterner {
+
+    private final String[] table;
+    private final int mask;
+
+    /**
+     * @param capacity number of slots, rounded up to a power of two
+     */
+    StringInterner(int capacity) {
+        final int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        table = new String[size];
+        mask = size - 1;
+    }
+
+    String intern(String value) {
+        if (value == null)
+            return null;
+        final int hash = value.hashCode();
+        final int index = (hash ^ (hash >>> 16)) & mask;
+        final String cached = table[index];
+        if (value.equals(cached))
+            return cached;
+        table[index] = value;
+        return value;
+    }
+
+}
@@ -0,0 +1,12 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+/**
+ * Handle to a registered listener. Closing it stops delivery; closing it
+ * more than once has no further effect.
+ */
+public interface Subscription extends AutoCloseable {
+
+    @Override
+    void close();
+
+}
@@ -0,0 +1,123 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import org.freedesktop.dbus.types.UInt32;
+import org.freedesktop.dbus.types.Variant;
+
+/**
+ * Decodes the BlueZ {@code Track} dictionary. The last result is kept, so a
+ * dictionary that has not changed since the previous call gives back the
+ * same {@link Track} without allocating, and metadata strings are shared
+ * across decoders through a bounded intern cache.
+ * <p>
+ * Every entry of the dictionary is kept alongside the {@link Track}, with
+ * the values unwrapped, including keys without a component of their own
+ * such as {@code Item} or {@code ImgHandle}.
+ */
+final class TrackDecoder {
+
+    static final String ALBUM = "Album";
+    static final String ARTIST = "Artist";
+    static final String DURATION = "Duration";
+    static final String GENRE = "Genre";
+    static final String NUMBER_OF_TRACKS = "NumberOfTracks";
+    static final String TITLE = "Title";
+    static final String TRACK_NUMBER = "TrackNumber";
+
+    private static final StringInterner strings = new StringInterner(4096);
+
+    private volatile Decoded last;
+
+    Track decode(Map<String, Variant<?>> dict) {
+        return dict != null? lookup(dict).track: null;
+    }
+
+    /**
+     * Every entry of {@code dict} with the values unwrapped, from the same
+     * decoding as {@link #decode(Map)}.
+     */
+    Map<String, Object> metadata(Map<String, Variant<?>> dict) {
+        return dict != null? lookup(dict).metadata: null;
+    }
+
+    /**
+     * Decodes without reusing any earlier result.
+     */
+    static Track decodeOnce(Map<String, Variant<?>> dict) {
+        return dict != null? decoded(dict).track: null;
+    }
+
+    private Decoded lookup(Map<String, Variant<?>> dict) {
+        final Decoded previous = last;
+        if (previous != null && previous.matches(dict))
+            return previous;
+        final Decoded decoded = decoded(dict);
+        last = decoded;
+        return decoded;
+    }
+
+    private static Decoded decoded(Map<String, Variant<?>> dict) {
+        final int size = dict.size();
+        final String[] keys = new String[size];
+        final Object[] values = new Object[size];
+        final Map<String, Object> metadata = new LinkedHashMap<>(size * 2);
+        int i = 0;
+        for (Map.Entry<String, Variant<?>> e : dict.entrySet()) {
+            if (i == size)
+                break;
+            final Variant<?> variant = e.getValue();
+            final Object raw = variant != null? variant.getValue(): null;
+            keys[i] = strings.intern(e.getKey());
+            values[i] = raw instanceof String s? strings.intern(s): raw;
+            if (values[i] != null)
+                metadata.put(keys[i], values[i]);
+            i++;
+        }
+        final Track track = new Track(
+            (String) metadata.get(ARTIST),
+            toInt(metadata.get(NUMBER_OF_TRACKS)),
+            (String) metadata.get(TITLE),
+            (String) metadata.get(ALBUM),
+            Duration.ofMillis(toLong(metadata.get(DURATION))),
+            (String) metadata.get(GENRE),
+            toInt(metadata.get(TRACK_NUMBER)));
+        return new Decoded(dict, keys, values, track, Collections.unmodifiableMap(metadata));
+    }
+
+    private static int toInt(Object value) {
+        return value != null? ((UInt32) value).intValue(): 0;
+    }
+
+    private static long toLong(Object value) {
+        return value != null? ((UInt32) value).longValue(): 0;
+    }
+
+    private record Decoded(Map<String, Variant<?>> source, String[] keys, Object[] values, Track track,
+        Map<String, Object> metadata) {
+
+        /**
+         * Whether {@code dict} holds the same entries as the one decoded,
+         * checked with keyed lookups only, so nothing is allocated.
+         */
+        boolean matches(Map<String, Variant<?>> dict) {
+            if (dict == source)
+                return true;
+            if (dict.size() != keys.length)
+                return false;
+            for (int i = 0; i < keys.length; i++) {
+                final Variant<?> variant = dict.get(keys[i]);
+                if (variant == null && !dict.containsKey(keys[i]))
+                    return false;
+                if (!Objects.equals(variant != null? variant.getValue(): null, values[i]))
+                    return false;
+            }
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,212 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaPlayer1;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.interfaces.Properties.PropertiesChanged;
+import org.freedesktop.dbus.types.Variant;
+
+/**
+ * The last tracks played by a player, kept from its {@code Track} and
+ * {@code Status} signals in a ring buffer of fixed capacity. The oldest entry
+ * makes room for a new one, so memory stays constant however long the
+ * player runs.
+ * <p>
+ * Entries live in parallel primitive arrays and are only turned into
+ * {@link Entry} objects when read. The signal handler looks up two
+ * properties and stores a few longs; signals without a track or status
+ * change cost a couple of map lookups.
+ */
+public class TrackHistory implements AutoCloseable {
+
+    /**
+     * One track played.
+     *
+     * @param started when the track came on
+     * @param stopped when the next track replaced it, {@code null} for the
+     * current track
+     * @param played how long the track spent playing, going by the status
+     * reported
+     * @param device object path of the device the track played on
+     */
+    public record Entry(Track track, Instant started, Instant stopped, Duration played, String device) {
+
+    }
+
+    private static final long NONE = -1;
+
+    private final LongSupplier nanoTime;
+    private final Instant origin;
+    private final long originNanos;
+    private final Subscription subscription;
+
+    private final Track[] tracks;
+    private final String[] devices;
+    private final long[] startedNanos;
+    private final long[] stoppedNanos;
+    private final long[] playedNanos;
+    private int head = -1;
+    private int size;
+    private String device;
+    private long playingSince = NONE;
+
+    public TrackHistory(MediaPlayer player, int capacity) {
+        this(player, capacity, System::nanoTime);
+    }
+
+    TrackHistory(MediaPlayer player, int capacity, LongSupplier nanoTime) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        this.nanoTime = nanoTime;
+        this.originNanos = nanoTime.getAsLong();
+        this.origin = Instant.now();
+        this.tracks = new Track[capacity];
+        this.devices = new String[capacity];
+        this.startedNanos = new long[capacity];
+        this.stoppedNanos = new long[capacity];
+        this.playedNanos = new long[capacity];
+        this.subscription = player.subscribeSignals(signal -> onSignal(player, signal));
+        final PlayerState state = player.snapshot();
+        synchronized (this) {
+            if (device == null)
+                device = state.device();
+            if (size == 0 && state.track() != null)
+                setTrack(state.track());
+            if (playingSince == NONE && state.status() != null)
+                setStatus(state.status());
+        }
+    }
+
+    public int capacity() {
+        return tracks.length;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * The entry {@code index} places back from the most recent one, which is
+     * at index 0.
+     *
+     * @throws IndexOutOfBoundsException if there are not that many entries
+     */
+    public synchronized Entry get(int index) {
+        Objects.checkIndex(index, size);
+        return entry(slot(index));
+    }
+
+    /**
+     * The current or last track played.
+     */
+    public synchronized Optional<Entry> latest() {
+        return size > 0? Optional.of(entry(head)): Optional.empty();
+    }
+
+    /**
+     * Hands the entries to {@code action}, most recent first, without
+     * copying the history.
+     */
+    public synchronized void forEach(Consumer<? super Entry> action) {
+        for (int i = 0; i < size; i++)
+            action.accept(entry(slot(i)));
+    }
+
+    @Override
+    public void close() {
+        subscription.close();
+    }
+
+    private void onSignal(MediaPlayer player, PropertiesChanged signal) {
+        if (!MediaPlayer1.DBUS_INTERFACE_NAME.equals(signal.getInterfaceName()))
+            return;
+        final Map<String, Variant<?>> changed = signal.getPropertiesChanged();
+        final Variant<?> track = changed.get(MediaPlayer.TRACK);
+        final Variant<?> status = changed.get(MediaPlayer.STATUS);
+        final Variant<?> newDevice = changed.get(MediaPlayer.DEVICE);
+        if (track == null && status == null && newDevice == null)
+            return;
+        final Track decoded = track != null? player.decodeTrack(track.getValue()): null;
+        synchronized (this) {
+            if (newDevice != null && newDevice.getValue() instanceof DBusPath path)
+                device = path.getPath();
+            if (decoded != null)
+                setTrack(decoded);
+            if (status != null)
+                setStatus((String) status.getValue());
+        }
+    }
+
+    /**
+     * Starts a new entry unless {@code track} is the current one with
+     * updated metadata, in which case the current entry takes it.
+     */
+    private void setTrack(Track track) {
+        final long now = nanoTime.getAsLong();
+        if (size > 0 && stoppedNanos[head] == NONE && sameTrack(tracks[head], track)) {
+            tracks[head] = track;
+            return;
+        }
+        if (size > 0 && stoppedNanos[head] == NONE) {
+            stoppedNanos[head] = now;
+            if (playingSince != NONE)
+                playedNanos[head] += now - playingSince;
+        }
+        if (track.title() == null && track.artist() == null && track.album() == null)
+            return;
+        head = (head + 1) % tracks.length;
+        size = Math.min(size + 1, tracks.length);
+        tracks[head] = track;
+        devices[head] = device;
+        startedNanos[head] = now;
+        stoppedNanos[head] = NONE;
+        playedNanos[head] = 0;
+        if (playingSince != NONE)
+            playingSince = now;
+    }
+
+    private void setStatus(String status) {
+        final boolean playing = PlayerStatus.PLAYING.value().equals(status);
+        if (playing == (playingSince != NONE))
+            return;
+        final long now = nanoTime.getAsLong();
+        if (playing) {
+            playingSince = now;
+        } else {
+            if (size > 0 && stoppedNanos[head] == NONE)
+                playedNanos[head] += now - playingSince;
+            playingSince = NONE;
+        }
+    }
+
+    private int slot(int index) {
+        return Math.floorMod(head - index, tracks.length);
+    }
+
+    private Entry entry(int slot) {
+        final boolean current = slot == head && stoppedNanos[slot] == NONE;
+        long played = playedNanos[slot];
+        if (current && playingSince != NONE)
+            played += nanoTime.getAsLong() - playingSince;
+        return new Entry(tracks[slot], toInstant(startedNanos[slot]),
+            current? null: toInstant(stoppedNanos[slot]), Duration.ofNanos(played), devices[slot]);
+    }
+
+    private Instant toInstant(long nanos) {
+        return origin.plusNanos(nanos - originNanos);
+    }
+
+    private static boolean sameTrack(Track a, Track b) {
+        return a == b || Objects.equals(a.title(), b.title())
+            && Objects.equals(a.artist(), b.artist())
+            && Objects.equals(a.album(), b.album())
+            && a.trackNumber() == b.trackNumber();
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+/**
+ * State of an audio transport reported in the {@code State} property.
+ */
+public enum TransportState implements BluezValue {
+
+    IDLE("idle"),
+    PENDING("pending"),
+    BROADCASTING("broadcasting"),
+    ACTIVE("active");
+
+    private static final TransportState[] VALUES = values();
+
+    private final String value;
+
+    TransportState(String value) {
+        this.value = value;
+    }
+
+    @Override
+    public String value() {
+        return value;
+    }
+
+    /**
+     * The constant BlueZ reports as {@code value}, or {@code null} if the
+     * value is {@code null} or not known.
+     */
+    public static TransportState fromValue(String value) {
+        for (TransportState constant : VALUES)
+            if (constant.value.equals(value))
+                return constant;
+        return null;
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.javadruid.bluez.mediaplayer.lib.interfaces;
+
+import java.util.Map;
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.annotations.DBusInterfaceName;
+import org.freedesktop.dbus.interfaces.DBusInterface;
+import org.freedesktop.dbus.types.Variant;
+
+@DBusInterfaceName(MediaFolder1.DBUS_INTERFACE_NAME)
+public interface MediaFolder1 extends DBusInterface {
+
+    static final String DBUS_INTERFACE_NAME = "org.bluez.MediaFolder1";
+
+    // Methods
+    DBusPath Search(String value, Map<String, Variant<?>> filter);
+
+    Map<DBusPath, Map<String, Variant<?>>> ListItems(Map<String, Variant<?>> filter);
+
+    void ChangeFolder(DBusPath folder);
+
+    // Properties
+    int getNumberOfItems();
+
+    String getName();
+}
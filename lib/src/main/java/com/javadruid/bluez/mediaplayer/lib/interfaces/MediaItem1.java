@@ -0,0 +1,30 @@
+package com.javadruid.bluez.mediaplayer.lib.interfaces;
+
+import java.util.Map;
+import org.freedesktop.dbus.ObjectPath;
+import org.freedesktop.dbus.annotations.DBusInterfaceName;
+import org.freedesktop.dbus.interfaces.DBusInterface;
+
+@DBusInterfaceName(MediaItem1.DBUS_INTERFACE_NAME)
+public interface MediaItem1 extends DBusInterface {
+
+    static final String DBUS_INTERFACE_NAME = "org.bluez.MediaItem1";
+
+    // Methods
+    void Play();
+
+    void AddtoNowPlaying();
+
+    // Properties
+    ObjectPath getPlayer();
+
+    String getName();
+
+    String getType();
+
+    String getFolderType();
+
+    boolean isPlayable();
+
+    Map<String, Object> getMetadata();
+}
@@ -0,0 +1,34 @@
+package com.javadruid.bluez.mediaplayer.lib.interfaces;
+
+import org.freedesktop.dbus.ObjectPath;
+import org.freedesktop.dbus.annotations.DBusInterfaceName;
+import org.freedesktop.dbus.interfaces.DBusInterface;
+import org.freedesktop.dbus.types.UInt16;
+
+@DBusInterfaceName(MediaTransport1.DBUS_INTERFACE_NAME)
+public interface MediaTransport1 extends DBusInterface {
+
+    static final String DBUS_INTERFACE_NAME = "org.bluez.MediaTransport1";
+
+    // Methods
+    void Release();
+
+    // Properties
+    ObjectPath getDevice();
+
+    String getUUID();
+
+    byte getCodec();
+
+    byte[] getConfiguration();
+
+    String getState();
+
+    UInt16 getDelay();
+
+    UInt16 getVolume();
+
+    void setVolume(UInt16 volume);
+
+    ObjectPath getEndpoint();
+}
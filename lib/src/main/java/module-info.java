@@ -1,5 +1,7 @@
 module com.javadruid.bluez.mediaplayer.lib {
     requires java.base;
+    requires java.management;
+    requires jdk.jfr;
     requires org.freedesktop.dbus;
 
     exports com.javadruid.bluez.mediaplayer.lib;
@@ -0,0 +1,176 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaPlayer1;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.exceptions.DBusExecutionException;
+import org.freedesktop.dbus.interfaces.CallbackHandler;
+import org.freedesktop.dbus.interfaces.Properties;
+import org.freedesktop.dbus.messages.Message;
+import org.freedesktop.dbus.messages.MethodCall;
+import org.freedesktop.dbus.types.Variant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class AsyncMediaPlayerTest {
+
+    private static final String path = "path";
+
+    @Mock
+    private DBusConnection connection;
+    @Mock
+    private MediaPlayer1 remoteObject;
+    @Mock
+    private Properties properties;
+
+    @Test
+    public void testPlay() throws Exception {
+        doAnswer(i -> {
+            i.<CallbackHandler<Object>>getArgument(2).handle(null);
+            return null;
+        }).when(connection).callWithCallback(eq(remoteObject), eq(MediaPlayer.PLAY), any(CallbackHandler.class));
+
+        final CompletableFuture<Void> result = newTestInstance().play();
+
+        assertTrue(result.isDone());
+        assertNull(result.get());
+    }
+
+    @Test
+    public void testPlayError() throws Exception {
+        doAnswer(i -> {
+            i.<CallbackHandler<Object>>getArgument(2).handleError(new DBusExecutionException("error"));
+            return null;
+        }).when(connection).callWithCallback(eq(remoteObject), eq(MediaPlayer.PLAY), any(CallbackHandler.class));
+
+        final CompletableFuture<Void> result = newTestInstance().play();
+
+        assertThrows(ExecutionException.class, result::get);
+    }
+
+    @Test
+    public void testPress() throws Exception {
+        newTestInstance().press((byte) 0);
+
+        final ArgumentCaptor<MethodCall> captor = ArgumentCaptor.forClass(MethodCall.class);
+        verify(connection).queueCallback(captor.capture(), any(Method.class), any(CallbackHandler.class));
+        verify(connection).sendMessage(captor.getValue());
+        assertEquals(MediaPlayer.PRESS, captor.getValue().getName());
+        assertEquals(MediaPlayer.KEY_SIGNATURE, captor.getValue().getSig());
+        assertEquals(List.of((byte) 0), List.of(captor.getValue().getParameters()));
+    }
+
+    @Test
+    public void testPressFireAndForget() throws Exception {
+        final AsyncMediaPlayer instance = newTestInstance();
+        instance.getPlayer().setFireAndForgetKeys(true);
+        final CompletableFuture<Void> result = instance.press((byte) 0);
+
+        final ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+        verify(connection).sendMessage(captor.capture());
+        assertEquals(MediaPlayer.PRESS, captor.getValue().getName());
+        assertEquals(Message.Flags.NO_REPLY_EXPECTED, captor.getValue().getFlags() & Message.Flags.NO_REPLY_EXPECTED);
+        verify(connection, never()).queueCallback(any(MethodCall.class), any(Method.class), any(CallbackHandler.class));
+        assertTrue(result.isDone());
+        assertNull(result.get());
+    }
+
+    @Test
+    public void testPressFireAndForgetError() throws Exception {
+        final RuntimeException error = new RuntimeException();
+        doThrow(error).when(connection).sendMessage(any(Message.class));
+
+        final AsyncMediaPlayer instance = newTestInstance();
+        instance.getPlayer().setFireAndForgetKeys(true);
+        final CompletableFuture<Void> result = instance.press((byte) 0);
+
+        final ExecutionException thrown = assertThrows(ExecutionException.class, result::get);
+        assertEquals(error, thrown.getCause());
+    }
+
+    @Test
+    public void testGetStatus() throws Exception {
+        doAnswer(i -> {
+            i.<CallbackHandler<Object>>getArgument(2).handle(new Variant<>("playing"));
+            return null;
+        }).when(connection).callWithCallback(eq(properties), eq("Get"), any(CallbackHandler.class),
+            eq(MediaPlayer1.DBUS_INTERFACE_NAME), eq(MediaPlayer.STATUS));
+
+        final Optional<String> result = newTestInstance().getStatus().get();
+
+        assertEquals("playing", result.get());
+    }
+
+    @Test
+    public void testGetStatusError() throws Exception {
+        doAnswer(i -> {
+            i.<CallbackHandler<Object>>getArgument(2).handleError(new DBusExecutionException("error"));
+            return null;
+        }).when(connection).callWithCallback(eq(properties), eq("Get"), any(CallbackHandler.class),
+            eq(MediaPlayer1.DBUS_INTERFACE_NAME), eq(MediaPlayer.STATUS));
+
+        final Optional<String> result = newTestInstance().getStatus().get();
+
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    public void testSetEqualizer() throws Exception {
+        final CompletableFuture<Void> result = newTestInstance().setEqualizer("on");
+
+        final ArgumentCaptor<MethodCall> captor = ArgumentCaptor.forClass(MethodCall.class);
+        final ArgumentCaptor<CallbackHandler> callback = ArgumentCaptor.forClass(CallbackHandler.class);
+        verify(connection).queueCallback(captor.capture(), any(Method.class), callback.capture());
+        verify(connection).sendMessage(captor.getValue());
+        assertEquals("Set", captor.getValue().getName());
+        assertEquals("ssv", captor.getValue().getSig());
+        assertEquals(List.of(MediaPlayer1.DBUS_INTERFACE_NAME, MediaPlayer.EQUALIZER, new Variant<>("on")),
+            List.of(captor.getValue().getParameters()));
+        callback.getValue().handle(null);
+        assertTrue(result.isDone());
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        doAnswer(i -> {
+            i.<CallbackHandler<Object>>getArgument(2).handle(Map.of(MediaPlayer.NAME, new Variant<>("name")));
+            return null;
+        }).when(connection).callWithCallback(eq(properties), eq("GetAll"), any(CallbackHandler.class),
+            eq(MediaPlayer1.DBUS_INTERFACE_NAME));
+
+        final PlayerState result = newTestInstance().snapshot().get();
+
+        assertEquals("name", result.name());
+    }
+
+    private AsyncMediaPlayer newTestInstance() throws DBusException {
+        when(connection.getRemoteObject(MediaPlayer1.BUS_NAME, path, MediaPlayer1.class))
+            .thenReturn(remoteObject);
+        when(connection.getRemoteObject(MediaPlayer1.BUS_NAME, path, Properties.class))
+            .thenReturn(properties);
+        return new MediaPlayer(connection, path).async();
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaPlayer1;
+import java.time.Duration;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.DBus.NameOwnerChanged;
+import org.freedesktop.dbus.interfaces.DBusSigHandler;
+import org.freedesktop.dbus.interfaces.Local.Disconnected;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ConnectionSupervisorTest {
+
+    private static final Duration BACKOFF = Duration.ofMillis(10);
+    private static final Duration POLL_INTERVAL = Duration.ofHours(1);
+
+    @Mock
+    private MediaPlayerManager manager;
+    @Mock
+    private DBusConnection connection;
+
+    private ConnectionSupervisor instance;
+
+    @AfterEach
+    public void tearDown() {
+        if (instance != null)
+            instance.close();
+    }
+
+    @Test
+    public void testRecoverWhenBluezReturns() throws Exception {
+        final DBusSigHandler<NameOwnerChanged> handler = start();
+
+        handler.handle(new NameOwnerChanged("/", MediaPlayer1.BUS_NAME, ":1.1", ""));
+        verify(manager, after(50).never()).recover();
+        handler.handle(new NameOwnerChanged("/", "org.example", "", ":1.2"));
+        verify(manager, after(50).never()).recover();
+        handler.handle(new NameOwnerChanged("/", MediaPlayer1.BUS_NAME, "", ":1.3"));
+        verify(manager, timeout(1000)).recover();
+    }
+
+    @Test
+    public void testRetryWithBackoff() throws Exception {
+        doThrow(new RuntimeException("not yet"))
+            .doThrow(new RuntimeException("not yet"))
+            .doNothing()
+            .when(manager).recover();
+        final DBusSigHandler<NameOwnerChanged> handler = start();
+
+        handler.handle(new NameOwnerChanged("/", MediaPlayer1.BUS_NAME, "", ":1.3"));
+
+        verify(manager, timeout(1000).times(3)).recover();
+        verify(manager, after(100).times(3)).recover();
+    }
+
+    @Test
+    public void testRecoverWhenDisconnected() throws Exception {
+        start();
+        final ArgumentCaptor<DBusSigHandler> captor = ArgumentCaptor.forClass(DBusSigHandler.class);
+        verify(connection).addSigHandler(same(Disconnected.class), captor.capture());
+        when(manager.isConnected()).thenReturn(false);
+
+        captor.getValue().handle(new Disconnected("/"));
+
+        verify(manager, timeout(1000)).recover();
+    }
+
+    @Test
+    public void testSignalsAfterClose() throws Exception {
+        final DBusSigHandler<NameOwnerChanged> handler = start();
+        final ArgumentCaptor<DBusSigHandler> captor = ArgumentCaptor.forClass(DBusSigHandler.class);
+        verify(connection).addSigHandler(same(Disconnected.class), captor.capture());
+
+        instance.close();
+        captor.getValue().handle(new Disconnected("/"));
+        handler.handle(new NameOwnerChanged("/", MediaPlayer1.BUS_NAME, "", ":1.3"));
+
+        verify(connection).removeSigHandler(same(Disconnected.class), same(captor.getValue()));
+        verify(manager, after(50).never()).recover();
+    }
+
+    @Test
+    public void testPoll() throws Exception {
+        when(manager.primaryConnection()).thenReturn(connection);
+        when(manager.isConnected()).thenReturn(true, false, true);
+        doNothing().when(manager).recover();
+
+        instance = new ConnectionSupervisor(manager, BACKOFF, BACKOFF, Duration.ofMillis(10));
+        instance.start();
+
+        verify(manager, timeout(1000)).recover();
+        verify(manager, after(100).times(1)).recover();
+    }
+
+    @Test
+    public void testWatchNewConnection() throws Exception {
+        final DBusConnection other = mock(DBusConnection.class);
+        final DBusSigHandler<NameOwnerChanged> handler = start();
+        when(manager.primaryConnection()).thenReturn(other);
+
+        handler.handle(new NameOwnerChanged("/", MediaPlayer1.BUS_NAME, "", ":1.3"));
+
+        verify(other, timeout(1000)).addSigHandler(same(NameOwnerChanged.class), any(DBusSigHandler.class));
+        verify(connection, timeout(1000)).removeSigHandler(same(NameOwnerChanged.class), same(handler));
+    }
+
+    private DBusSigHandler<NameOwnerChanged> start() throws DBusException {
+        lenient().when(manager.primaryConnection()).thenReturn(connection);
+        instance = new ConnectionSupervisor(manager, BACKOFF, BACKOFF, POLL_INTERVAL);
+        instance.start();
+        final ArgumentCaptor<DBusSigHandler> captor = ArgumentCaptor.forClass(DBusSigHandler.class);
+        verify(connection, timeout(1000)).addSigHandler(same(NameOwnerChanged.class), captor.capture());
+        return captor.getValue();
+    }
+
+}
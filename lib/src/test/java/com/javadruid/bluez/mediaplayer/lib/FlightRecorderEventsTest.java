@@ -0,0 +1,132 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaPlayer1;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.Event;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.freedesktop.dbus.DBusAsyncReply;
+import org.freedesktop.dbus.DBusMap;
+import org.freedesktop.dbus.ObjectPath;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.DBusSigHandler;
+import org.freedesktop.dbus.interfaces.ObjectManager;
+import org.freedesktop.dbus.interfaces.Properties;
+import org.freedesktop.dbus.interfaces.Properties.PropertiesChanged;
+import org.freedesktop.dbus.messages.Message;
+import org.freedesktop.dbus.messages.MethodCall;
+import org.freedesktop.dbus.types.Variant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class FlightRecorderEventsTest {
+
+    private static final String signalPath = "/org/bluez/hci0/dev_00_00_00_00_00_00/player0";
+
+    @Mock
+    private DBusConnection connection;
+    @Mock
+    private MediaPlayer1 remoteObject;
+    @Mock
+    private Properties properties;
+    @Mock
+    private ObjectManager objectManager;
+    @Mock
+    private DBusAsyncReply reply;
+    @Mock
+    private MethodCall call;
+    @Mock
+    private Message message;
+
+    @Test
+    public void testMethodCallEvent() throws Exception {
+        when(connection.getRemoteObject(MediaPlayer1.BUS_NAME, signalPath, MediaPlayer1.class)).thenReturn(remoteObject);
+        when(connection.getRemoteObject(MediaPlayer1.BUS_NAME, signalPath, Properties.class)).thenReturn(properties);
+        when(connection.callMethodAsync(remoteObject, MediaPlayer.PLAY)).thenReturn(reply);
+        when(reply.getCall()).thenReturn(call);
+        when(call.getReply()).thenReturn(message);
+        final MediaPlayer instance = new MediaPlayer(connection, signalPath);
+
+        final List<RecordedEvent> events = record(MethodCallEvent.class, instance::play);
+
+        assertEquals(1, events.size());
+        assertEquals(signalPath, events.get(0).getString("objectPath"));
+        assertEquals(MediaPlayer.PLAY, events.get(0).getString("member"));
+        assertNull(events.get(0).getString("error"));
+    }
+
+    @Test
+    public void testPropertiesChangedEvent() throws Exception {
+        final PropertyChangeDispatcher instance = new PropertyChangeDispatcher(connection, properties);
+        instance.subscribe(s -> {});
+        final ArgumentCaptor<DBusSigHandler> captor = ArgumentCaptor.forClass(DBusSigHandler.class);
+        verify(connection).addSigHandler(same(PropertiesChanged.class), eq(properties), captor.capture());
+        final PropertiesChanged signal = new PropertiesChanged(signalPath, MediaPlayer1.DBUS_INTERFACE_NAME,
+            Map.of(MediaPlayer.STATUS, new Variant<>("playing")), List.of());
+
+        final List<RecordedEvent> events = record(PropertiesChangedEvent.class, () -> captor.getValue().handle(signal));
+
+        assertEquals(1, events.size());
+        assertEquals(signalPath, events.get(0).getString("player"));
+        assertEquals(MediaPlayer.STATUS, events.get(0).getString("properties"));
+        assertEquals(1, events.get(0).getInt("listeners"));
+    }
+
+    @Test
+    public void testManagedObjectsScanEvent() throws Exception {
+        when(connection.getRemoteObject(MediaPlayer1.BUS_NAME, "/", ObjectManager.class)).thenReturn(objectManager);
+        when(connection.callMethodAsync(objectManager, "GetManagedObjects")).thenReturn(reply);
+        when(reply.getCall()).thenReturn(call);
+        when(call.getReply()).thenReturn(message);
+        when(message.getParameters()).thenReturn(new Object[]{
+            new DBusMap<>(new Object[][]{
+                {new ObjectPath("source", "/org/bluez"), new DBusMap<>(new Object[][]{})},
+                {new ObjectPath("source", "/org/bluez/hci0"), new DBusMap<>(new Object[][]{})}
+            })
+        });
+        final MediaPlayerManager instance = new MediaPlayerManager(connection);
+
+        final List<RecordedEvent> events = record(ManagedObjectsScanEvent.class, () -> instance.getMediaPlayers().toList());
+
+        assertEquals(1, events.size());
+        assertEquals(2, events.get(0).getInt("objects"));
+        assertTrue(events.get(0).getDuration().toNanos() >= 0);
+    }
+
+    private static List<RecordedEvent> record(Class<? extends Event> type, Runnable action) throws IOException {
+        final Path file = Files.createTempFile("events", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(type).withThreshold(Duration.ZERO);
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().equals(type.getAnnotation(Name.class).value()))
+                .toList();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+}
@@ -0,0 +1,413 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaFolder1;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import org.freedesktop.dbus.DBusMap;
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.Properties.PropertiesChanged;
+import org.freedesktop.dbus.types.UInt32;
+import org.freedesktop.dbus.types.Variant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class MediaBrowserTest {
+
+    private static final String playerPath = "/org/bluez/hci0/dev_00_00_00_00_00_00/player0";
+    private static final String root = playerPath + "/Filesystem";
+    private static final String results = playerPath + "/Search";
+
+    @Mock
+    private MediaPlayer player;
+    @Mock
+    private Subscription subscription;
+
+    private final AtomicReference<String> currentFolder = new AtomicReference<>(root);
+
+    @Test
+    public void testPage() throws Exception {
+        final MediaBrowser instance = newTestInstance(4);
+        mockPage(0, 2, 2);
+
+        final List<MediaItem> items = instance.page(0).get();
+
+        assertEquals(2, items.size());
+        final MediaItem first = items.get(0);
+        assertEquals(root + "/item0", first.path());
+        assertEquals("Item 0", first.name());
+        assertEquals(ItemType.AUDIO, first.type());
+        assertTrue(first.playable());
+        assertEquals("Title 0", first.metadata().title());
+        assertEquals(4, instance.getNumberOfItems());
+    }
+
+    @Test
+    public void testPageCached() throws Exception {
+        final MediaBrowser instance = newTestInstance(2);
+        mockPage(0, 2, 2);
+
+        instance.page(0).get();
+        instance.page(0).get();
+        instance.item(1).get();
+
+        verify(player, times(1)).callFolderAsync(MediaBrowser.LIST_ITEMS, filter(0, 2));
+    }
+
+    @Test
+    public void testPrefetchesNextPage() throws Exception {
+        final MediaBrowser instance = newTestInstance(5);
+        mockPage(0, 2, 2);
+        mockPage(2, 2, 2);
+
+        instance.page(0).get();
+
+        verify(player).callFolderAsync(MediaBrowser.LIST_ITEMS, filter(2, 2));
+        verify(player, never()).callFolderAsync(MediaBrowser.LIST_ITEMS, filter(4, 2));
+        assertEquals(root + "/item3", instance.item(3).get().path());
+    }
+
+    @Test
+    public void testNoPrefetchPastEnd() throws Exception {
+        final MediaBrowser instance = newTestInstance(3);
+        mockPage(2, 1, 2);
+
+        assertNull(instance.item(3).get());
+
+        verify(player, never()).callFolderAsync(MediaBrowser.LIST_ITEMS, filter(4, 2));
+    }
+
+    @Test
+    public void testNumberOfItemsChangeDropsPages() throws Exception {
+        final MediaBrowser instance = newTestInstance(2);
+        mockPage(0, 2, 2);
+        final Consumer<PropertiesChanged> listener = captureListener();
+
+        instance.page(0).get();
+        listener.accept(numberOfItems(2));
+        instance.page(0).get();
+        listener.accept(numberOfItems(3));
+        instance.page(0).get();
+
+        verify(player, times(2)).callFolderAsync(MediaBrowser.LIST_ITEMS, filter(0, 2));
+        assertEquals(3, instance.getNumberOfItems());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() throws Exception {
+        final MediaBrowser instance = newTestInstance(-1, 1, 2);
+        mockPage(0, 1, 1);
+        mockPage(1, 1, 1);
+        mockPage(2, 1, 1);
+        mockPage(3, 1, 1);
+
+        instance.page(0).get();
+        instance.page(2).get();
+        instance.page(0).get();
+
+        verify(player, times(2)).callFolderAsync(MediaBrowser.LIST_ITEMS, filter(0, 1));
+    }
+
+    @Test
+    public void testChangeFolder() throws Exception {
+        final MediaBrowser instance = newTestInstance(2);
+        final MediaItem folder = new MediaItem(root + "/item9", "Albums", ItemType.FOLDER, FolderType.ALBUMS, false, null);
+        mockChangeFolder(folder.path());
+        mockPage(0, 2, 2);
+
+        instance.page(0).get();
+        instance.open(folder).get();
+        instance.page(0).get();
+
+        assertEquals(folder.path(), instance.getFolder());
+        verify(player, times(2)).callFolderAsync(MediaBrowser.LIST_ITEMS, filter(0, 2));
+    }
+
+    @Test
+    public void testChangesBackAfterOtherBrowser() throws Exception {
+        final MediaBrowser instance = newTestInstance(2);
+        final MediaBrowser other = new MediaBrowser(player, 2, MediaBrowser.DEFAULT_CACHED_PAGES);
+        final String folder = root + "/item9";
+        mockChangeFolder(folder);
+        mockChangeFolder(root);
+        mockPage(0, 2, 2);
+
+        instance.page(0).get();
+        other.changeFolder(folder).get();
+        instance.invalidate();
+        instance.page(0).get();
+
+        assertEquals(root, currentFolder.get());
+        assertEquals(folder, other.getFolder());
+        verify(player).changeFolderAsync(root);
+        verify(player, times(2)).callFolderAsync(MediaBrowser.LIST_ITEMS, filter(0, 2));
+    }
+
+    @Test
+    public void testNumberOfItemsOfOtherFolder() throws Exception {
+        final MediaBrowser instance = newTestInstance(2);
+        final MediaBrowser other = new MediaBrowser(player, 2, MediaBrowser.DEFAULT_CACHED_PAGES);
+        mockChangeFolder(root + "/item9");
+
+        other.changeFolder(root + "/item9").get();
+        captureListeners().getFirst().accept(numberOfItems(40));
+
+        assertEquals(2, instance.getNumberOfItems());
+    }
+
+    @Test
+    public void testPlay() throws Exception {
+        final MediaBrowser instance = newTestInstance(2);
+        final MediaItem item = new MediaItem(root + "/item0", "Item 0", ItemType.AUDIO, null, true, null);
+        when(player.callItemAsync(item.path(), MediaBrowser.PLAY)).thenReturn(CompletableFuture.completedFuture(null));
+
+        instance.play(item).get();
+
+        verify(player).callItemAsync(item.path(), MediaBrowser.PLAY);
+    }
+
+    @Test
+    public void testSearch() {
+        final MediaBrowser instance = newTestInstance(3);
+        mockSearch("query");
+        mockPage(0, 2, 2);
+        mockPage(2, 1, 2);
+        final TestSubscriber subscriber = new TestSubscriber(1);
+
+        instance.search("query").subscribe(subscriber);
+
+        assertEquals(List.of(root + "/item0", root + "/item1", root + "/item2"), subscriber.paths());
+        assertTrue(subscriber.completed);
+        assertEquals(results, instance.getFolder());
+    }
+
+    @Test
+    public void testSearchFollowsDemand() {
+        final MediaBrowser instance = newTestInstance(-1, 2, MediaBrowser.DEFAULT_CACHED_PAGES);
+        mockSearch("query");
+        mockPage(0, 2, 2);
+        mockPage(2, 2, 2);
+        final TestSubscriber subscriber = new TestSubscriber(0);
+
+        instance.search("query").subscribe(subscriber);
+        subscriber.subscription.request(1);
+
+        assertEquals(List.of(root + "/item0"), subscriber.paths());
+        assertFalse(subscriber.completed);
+        verify(player, never()).callFolderAsync(MediaBrowser.LIST_ITEMS, filter(4, 2));
+    }
+
+    @Test
+    public void testSearchListsResultsFolder() {
+        final MediaBrowser instance = newTestInstance(2);
+        mockSearch("query");
+        mockChangeFolder(root);
+        mockPage(0, 2, 2);
+        final TestSubscriber subscriber = new TestSubscriber(0);
+
+        instance.search("query").subscribe(subscriber);
+        instance.changeFolder(root);
+        subscriber.subscription.request(2);
+
+        assertEquals(List.of(root + "/item0", root + "/item1"), subscriber.paths());
+        assertEquals(results, currentFolder.get());
+        verify(player, times(2)).changeFolderAsync(results);
+    }
+
+    @Test
+    public void testSearchSecondSubscriber() {
+        final MediaBrowser instance = newTestInstance(2);
+        mockSearch("query");
+        final Flow.Publisher<MediaItem> search = instance.search("query");
+        final TestSubscriber first = new TestSubscriber(0);
+        final TestSubscriber second = new TestSubscriber(Long.MAX_VALUE);
+
+        search.subscribe(first);
+        search.subscribe(second);
+
+        assertInstanceOf(IllegalStateException.class, second.error);
+        assertTrue(first.items.isEmpty());
+        assertTrue(second.items.isEmpty());
+        verify(player, never()).callFolderAsync(eq(MediaBrowser.LIST_ITEMS), any());
+    }
+
+    @Test
+    public void testSearchCached() {
+        final MediaBrowser instance = newTestInstance(2);
+        mockSearch("query");
+        mockPage(0, 2, 2);
+
+        instance.search("query").subscribe(new TestSubscriber(Long.MAX_VALUE));
+        final TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE);
+        instance.search("query").subscribe(subscriber);
+
+        assertEquals(List.of(root + "/item0", root + "/item1"), subscriber.paths());
+        assertTrue(subscriber.completed);
+        verify(player, times(1)).callFolderAsync(MediaBrowser.SEARCH, "query", Map.of());
+    }
+
+    @Test
+    public void testSearchSuperseded() {
+        final MediaBrowser instance = newTestInstance(2);
+        when(player.callFolderAsync(MediaBrowser.SEARCH, "q", Map.of())).thenReturn(new CompletableFuture<>());
+        final TestSubscriber first = new TestSubscriber(Long.MAX_VALUE);
+
+        instance.search("q").subscribe(first);
+        instance.search("qu");
+
+        assertInstanceOf(CancellationException.class, first.error);
+        assertTrue(first.items.isEmpty());
+    }
+
+    @Test
+    public void testSearchFailure() {
+        final MediaBrowser instance = newTestInstance(2);
+        final DBusException failure = new DBusException("Not supported");
+        when(player.callFolderAsync(MediaBrowser.SEARCH, "query", Map.of())).thenReturn(CompletableFuture.failedFuture(failure));
+        final TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE);
+
+        instance.search("query").subscribe(subscriber);
+
+        assertEquals(failure, subscriber.error);
+    }
+
+    @Test
+    public void testClose() {
+        final MediaBrowser instance = newTestInstance(2);
+
+        instance.close();
+
+        verify(subscription).close();
+    }
+
+    private MediaBrowser newTestInstance(int numberOfItems) {
+        return newTestInstance(numberOfItems, 2, MediaBrowser.DEFAULT_CACHED_PAGES);
+    }
+
+    private MediaBrowser newTestInstance(int numberOfItems, int pageSize, int cachedPages) {
+        when(player.getObjectPath()).thenReturn(playerPath);
+        when(player.subscribeSignals(any(Consumer.class))).thenReturn(subscription);
+        lenient().when(player.getCurrentFolder()).thenAnswer(i -> currentFolder.get());
+        when(player.getPropertyAsync(MediaFolder1.DBUS_INTERFACE_NAME, MediaBrowser.NUMBER_OF_ITEMS))
+            .thenReturn(CompletableFuture.completedFuture(numberOfItems >= 0? new UInt32(numberOfItems): null));
+        return new MediaBrowser(player, pageSize, cachedPages);
+    }
+
+    private List<Consumer> captureListeners() {
+        final ArgumentCaptor<Consumer> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(player, times(2)).subscribeSignals(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private Consumer<PropertiesChanged> captureListener() {
+        final ArgumentCaptor<Consumer> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(player).subscribeSignals(captor.capture());
+        return captor.getValue();
+    }
+
+    private void mockPage(int start, int count, int pageSize) {
+        final Map<DBusPath, Map<String, Variant<?>>> listed = new LinkedHashMap<>();
+        for (int i = start; i < start + count; i++) {
+            listed.put(new DBusPath(root + "/item" + i), Map.of(
+                MediaItem.NAME, new Variant<>("Item " + i),
+                MediaItem.TYPE, new Variant<>("audio"),
+                MediaItem.PLAYABLE, new Variant<>(true),
+                MediaItem.METADATA, new Variant<>(new DBusMap<String, Variant<?>>(new Object[][]{
+                    {"Title", new Variant<>("Title " + i)}
+                }), "a{sv}")));
+        }
+        when(player.callFolderAsync(eq(MediaBrowser.LIST_ITEMS), eq(filter(start, pageSize))))
+            .thenReturn(CompletableFuture.completedFuture(listed));
+    }
+
+    private void mockSearch(String query) {
+        when(player.callFolderAsync(MediaBrowser.SEARCH, query, Map.of()))
+            .thenReturn(CompletableFuture.completedFuture(new DBusPath(results)));
+        mockChangeFolder(results);
+    }
+
+    private void mockChangeFolder(String folder) {
+        when(player.changeFolderAsync(folder)).thenAnswer(i -> {
+            currentFolder.set(folder);
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    private static Map<String, Variant<?>> filter(int start, int pageSize) {
+        return Map.of(
+            MediaBrowser.START, new Variant<>(new UInt32(start)),
+            MediaBrowser.END, new Variant<>(new UInt32(start + pageSize - 1)));
+    }
+
+    private static PropertiesChanged numberOfItems(int count) throws DBusException {
+        return new PropertiesChanged(playerPath, MediaFolder1.DBUS_INTERFACE_NAME,
+            Map.of(MediaBrowser.NUMBER_OF_ITEMS, new Variant<>(new UInt32(count))), List.of());
+    }
+
+    private static class TestSubscriber implements Flow.Subscriber<MediaItem> {
+
+        private final long initialRequest;
+        private final List<MediaItem> items = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private boolean completed;
+        private Throwable error;
+
+        TestSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialRequest > 0)
+                subscription.request(initialRequest);
+        }
+
+        @Override
+        public void onNext(MediaItem item) {
+            items.add(item);
+            if (initialRequest == 1)
+                subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+        List<String> paths() {
+            return items.stream().map(MediaItem::path).toList();
+        }
+
+    }
+
+}
@@ -1,16 +1,28 @@
 package com.javadruid.bluez.mediaplayer.lib;
 
 import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaPlayer1;
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaTransport1;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
 import org.freedesktop.dbus.DBusAsyncReply;
 import org.freedesktop.dbus.DBusMap;
 import org.freedesktop.dbus.ObjectPath;
 import org.freedesktop.dbus.connections.impl.DBusConnection;
 import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.DBusSigHandler;
 import org.freedesktop.dbus.interfaces.ObjectManager;
+import org.freedesktop.dbus.interfaces.ObjectManager.InterfacesAdded;
 import org.freedesktop.dbus.interfaces.Properties;
+import org.freedesktop.dbus.interfaces.Properties.PropertiesChanged;
 import org.freedesktop.dbus.messages.Message;
 import org.freedesktop.dbus.messages.MethodCall;
+import org.freedesktop.dbus.types.UInt16;
+import org.freedesktop.dbus.types.Variant;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
@@ -18,7 +30,13 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -71,6 +89,35 @@ public class MediaPlayerManagerTest {
         verify(connection).getRemoteObject(MediaPlayer1.BUS_NAME, path_02, Properties.class);
     }
 
+    @Test
+    public void testGetMediaPlayersCanonical() throws DBusException {
+        final String path_01 = "path_01";
+        mockManagedObjects(managedObjects(path_01), managedObjects(path_01));
+
+        final MediaPlayerManager instance = new MediaPlayerManager(connection);
+        final MediaPlayer first = instance.getMediaPlayers().findFirst().get();
+        final MediaPlayer second = instance.getMediaPlayers().findFirst().get();
+
+        assertSame(first, second);
+        verify(connection, times(1)).getRemoteObject(MediaPlayer1.BUS_NAME, path_01, MediaPlayer1.class);
+    }
+
+    @Test
+    public void testGetMediaPlayersReleasesMissing() throws DBusException {
+        final String path_01 = "path_01";
+        final String path_02 = "path_02";
+        mockManagedObjects(managedObjects(path_01, path_02), managedObjects(path_02));
+
+        final MediaPlayerManager instance = new MediaPlayerManager(connection);
+        final MediaPlayer removed = instance.getMediaPlayers().findFirst().get();
+        removed.onPropertyChange(System.out::println);
+        final List<MediaPlayer> result = instance.getMediaPlayers().toList();
+
+        assertEquals(1, result.size());
+        assertEquals(path_02, result.get(0).getObjectPath());
+        verify(connection).removeSigHandler(same(PropertiesChanged.class), (Properties) isNull(), any(DBusSigHandler.class));
+    }
+
     @Test
     public void testClose() throws Exception {
         when(connection.getRemoteObject(MediaPlayer1.BUS_NAME, "/", ObjectManager.class))
@@ -83,6 +130,92 @@ public class MediaPlayerManagerTest {
     }
 
 
+    @Test
+    public void testShardedConnections() throws DBusException {
+        final DBusConnection other = Mockito.mock(DBusConnection.class);
+        final List<DBusConnection> connections = List.of(connection, other);
+        final List<String> paths = List.of("path_01", "path_02", "path_03", "path_04");
+        mockManagedObjects(managedObjects(paths.toArray(String[]::new)));
+
+        final MediaPlayerManager instance = new MediaPlayerManager(connections);
+        assertEquals(4, instance.getMediaPlayers().count());
+
+        for (String path : paths) {
+            final DBusConnection expected = connections.get(ConnectionPool.index(path, 2));
+            verify(expected).getRemoteObject(MediaPlayer1.BUS_NAME, path, MediaPlayer1.class);
+            verify(connections.get(1 - connections.indexOf(expected)), never())
+                .getRemoteObject(MediaPlayer1.BUS_NAME, path, MediaPlayer1.class);
+        }
+        verify(other, never()).callMethodAsync(any(), any());
+    }
+
+    @Test
+    public void testCloseShardedConnections() throws Exception {
+        final DBusConnection other = Mockito.mock(DBusConnection.class);
+        when(connection.getRemoteObject(MediaPlayer1.BUS_NAME, "/", ObjectManager.class))
+            .thenReturn(objectManager);
+        Mockito.doThrow(IOException.class).when(connection).close();
+        final MediaPlayerManager instance = new MediaPlayerManager(List.of(connection, other));
+
+        assertThrows(IOException.class, instance::close);
+
+        verify(other).close();
+    }
+
+    @Test
+    public void testRecoverReconnects() throws Exception {
+        final DBusConnection other = Mockito.mock(DBusConnection.class);
+        final ObjectManager otherObjectManager = Mockito.mock(ObjectManager.class);
+        mockManagedObjects(managedObjects("path_01", "path_02"));
+        when(other.getRemoteObject(MediaPlayer1.BUS_NAME, "/", ObjectManager.class))
+            .thenReturn(otherObjectManager);
+        final DBusAsyncReply reply = Mockito.mock(DBusAsyncReply.class);
+        when(other.callMethodAsync(otherObjectManager, "GetManagedObjects"))
+            .thenReturn(reply);
+        final MethodCall call = Mockito.mock(MethodCall.class);
+        when(reply.getCall()).thenReturn(call);
+        final Message message = Mockito.mock(Message.class);
+        when(call.getReply()).thenReturn(message);
+        when(message.getParameters()).thenReturn(managedObjects("path_01"));
+        final Iterator<DBusConnection> connections = List.of(connection, other).iterator();
+
+        final MediaPlayerManager instance = new MediaPlayerManager(() -> List.of(connections.next()));
+        final MediaPlayer kept = instance.getMediaPlayers().findFirst().get();
+        instance.recover();
+
+        verify(connection).close();
+        assertSame(other, instance.primaryConnection());
+        verify(other).getRemoteObject(MediaPlayer1.BUS_NAME, "path_01", MediaPlayer1.class);
+        assertEquals(1, instance.playerCount());
+        when(message.getParameters()).thenReturn(managedObjects("path_01"));
+        assertSame(kept, instance.getMediaPlayers().findFirst().get());
+    }
+
+    @Test
+    public void testRecoverSameConnection() throws Exception {
+        mockManagedObjects(managedObjects("path_01"), managedObjects("path_01"));
+        when(connection.isConnected()).thenReturn(true);
+
+        final MediaPlayerManager instance = new MediaPlayerManager(connection);
+        final MediaPlayerRegistry registry = instance.registry();
+        instance.recover();
+
+        assertEquals(1, registry.currentPlayers().size());
+        verify(connection, times(2)).getRemoteObject(MediaPlayer1.BUS_NAME, "path_01", MediaPlayer1.class);
+        verify(connection, times(2)).addSigHandler(same(InterfacesAdded.class), same(objectManager), any(DBusSigHandler.class));
+        verify(connection, never()).close();
+    }
+
+    @Test
+    public void testRecoverWithoutConnector() throws Exception {
+        when(connection.getRemoteObject(MediaPlayer1.BUS_NAME, "/", ObjectManager.class))
+            .thenReturn(objectManager);
+
+        final MediaPlayerManager instance = new MediaPlayerManager(connection);
+
+        assertThrows(IllegalStateException.class, instance::recover);
+    }
+
     @Test
     public void testConstructorDBusException() throws DBusException {
         when(connection.getRemoteObject(MediaPlayer1.BUS_NAME, "/", ObjectManager.class))
@@ -91,6 +224,48 @@ public class MediaPlayerManagerTest {
         assertThrows(RuntimeException.class, () -> new MediaPlayerManager(connection));
     }
 
+    @Test
+    public void testRegistry() throws DBusException {
+        mockManagedObjects(managedObjects("path_01"));
+
+        final MediaPlayerManager instance = new MediaPlayerManager(connection);
+        final MediaPlayerRegistry registry = instance.registry();
+
+        assertSame(registry, instance.registry());
+        assertEquals(1, registry.currentPlayers().size());
+        assertSame(registry.currentPlayers().iterator().next(), instance.getMediaPlayers().findFirst().get());
+    }
+
+    @Test
+    public void testGetTransport() throws DBusException {
+        final String device = "/org/bluez/hci0/dev_00_00_00_00_00_01";
+        final String transportPath = device + "/fd1";
+        mockManagedObjects(new Object[]{new DBusMap(new Object[][]{
+            {new ObjectPath("source", "/org/bluez/hci0/dev_00_00_00_00_00_00/fd0"), transport("/org/bluez/hci0/dev_00_00_00_00_00_00")},
+            {new ObjectPath("source", transportPath), transport(device)}
+        })});
+        final Properties properties = Mockito.mock(Properties.class);
+        when(connection.getRemoteObject(MediaPlayer1.BUS_NAME, transportPath, Properties.class)).thenReturn(properties);
+        final DBusAsyncReply reply = Mockito.mock(DBusAsyncReply.class);
+        when(connection.callMethodAsync(properties, "GetAll", MediaTransport1.DBUS_INTERFACE_NAME)).thenReturn(reply);
+        final MethodCall call = Mockito.mock(MethodCall.class);
+        when(reply.getCall()).thenReturn(call);
+        final Message message = Mockito.mock(Message.class);
+        when(call.getReply()).thenReturn(message);
+        when(message.getParameters()).thenReturn(new Object[]{Map.of(MediaTransport.VOLUME, new Variant<>(new UInt16(50)))});
+        final MediaPlayer player = Mockito.mock(MediaPlayer.class);
+        when(player.getDevice()).thenReturn(Optional.of(device));
+        final ScheduledExecutorService scheduler = Mockito.mock(ScheduledExecutorService.class);
+
+        final MediaPlayerManager instance = new MediaPlayerManager(connection);
+        final MediaTransport result = instance.getTransport(player, Duration.ofMillis(100), scheduler).get();
+
+        assertEquals(transportPath, result.getObjectPath());
+        assertEquals(Optional.of(50), result.getVolume());
+        when(player.getDevice()).thenReturn(Optional.of("/org/bluez/hci0/dev_00_00_00_00_00_02"));
+        assertEquals(Optional.empty(), instance.getTransport(player, Duration.ofMillis(100), scheduler));
+    }
+
     @Test
     public void testGetMediaPlayersDBusException() throws DBusException {
         when(connection.getRemoteObject(MediaPlayer1.BUS_NAME, "/", ObjectManager.class))
@@ -108,4 +283,36 @@ public class MediaPlayerManagerTest {
         assertThrows(RuntimeException.class, () -> instance.getMediaPlayers());
     }
 
+    private void mockManagedObjects(Object[] first, Object[]... next) throws DBusException {
+        when(connection.getRemoteObject(MediaPlayer1.BUS_NAME, "/", ObjectManager.class))
+            .thenReturn(objectManager);
+        final DBusAsyncReply reply = Mockito.mock(DBusAsyncReply.class);
+        when(connection.callMethodAsync(objectManager, "GetManagedObjects"))
+            .thenReturn(reply);
+        final MethodCall call = Mockito.mock(MethodCall.class);
+        when(reply.getCall()).thenReturn(call);
+        final Message message = Mockito.mock(Message.class);
+        when(call.getReply()).thenReturn(message);
+        when(message.getParameters()).thenReturn(first, next);
+    }
+
+    private static DBusMap transport(String device) {
+        return new DBusMap(new Object[][]{
+            {MediaTransport1.DBUS_INTERFACE_NAME, Map.of(MediaTransport.DEVICE, new Variant<>(new ObjectPath("source", device)))}
+        });
+    }
+
+    private static Object[] managedObjects(String... paths) {
+        final Object[][] entries = new Object[paths.length][];
+        for (int i = 0; i < paths.length; i++) {
+            entries[i] = new Object[]{
+                new ObjectPath("source", paths[i]), new DBusMap(new Object[][]{
+                    {MediaPlayer1.DBUS_INTERFACE_NAME},
+                    {new Object()}
+                })
+            };
+        }
+        return new DBusMap[]{new DBusMap(entries)};
+    }
+
 }
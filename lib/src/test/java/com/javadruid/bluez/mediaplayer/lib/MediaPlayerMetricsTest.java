@@ -0,0 +1,105 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class MediaPlayerMetricsTest {
+
+    private final MediaPlayerMetrics instance = MediaPlayerMetrics.INSTANCE;
+
+    @Mock
+    private MediaPlayerManager manager;
+
+    @Test
+    public void testHistogramBuckets() {
+        for (long value : new long[]{0, 1, 3, 4, 5, 7, 8, 9, 15, 16, 1_000, 1_000_000, Long.MAX_VALUE}) {
+            final int bucket = LatencyHistogram.bucket(value);
+            assertTrue(value <= LatencyHistogram.upperBound(bucket), "upper bound of " + value);
+            assertTrue(bucket == 0 || value > LatencyHistogram.upperBound(bucket - 1), "lower bound of " + value);
+        }
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++)
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+
+        assertEquals(500_000, histogram.percentile(0.5), 500_000 * 0.25);
+        assertEquals(990_000, histogram.percentile(0.99), 990_000 * 0.25);
+        assertEquals(1_000_000, histogram.max());
+
+        histogram.reset();
+
+        assertEquals(0, histogram.percentile(0.5));
+        assertEquals(0, histogram.max());
+    }
+
+    @Test
+    public void testMethodCall() {
+        final long start = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(2);
+        instance.methodCall("testMethodCall", start, false);
+        instance.methodCall("testMethodCall", start, true);
+
+        final CallStatistics result = instance.getMethodCalls().get("testMethodCall");
+        assertEquals(2, result.count());
+        assertEquals(1, result.errors());
+        assertTrue(result.maxMillis() >= 2);
+        assertTrue(result.p50Millis() <= result.p99Millis());
+    }
+
+    @Test
+    public void testSignal() {
+        final long before = instance.getSignalCount();
+
+        instance.signal(Set.of("testSignal", MediaPlayer.STATUS));
+
+        assertEquals(before + 1, instance.getSignalCount());
+        assertEquals(1L, instance.getSignalsByProperty().get("testSignal"));
+    }
+
+    @Test
+    public void testManagers() {
+        when(manager.playerCount()).thenReturn(3);
+        when(manager.subscriptionCount()).thenReturn(5);
+        final int players = instance.getActivePlayers();
+        final int subscriptions = instance.getActiveSubscriptions();
+
+        instance.addManager(manager);
+        try {
+            assertEquals(players + 3, instance.getActivePlayers());
+            assertEquals(subscriptions + 5, instance.getActiveSubscriptions());
+        } finally {
+            instance.removeManager(manager);
+        }
+        assertEquals(players, instance.getActivePlayers());
+    }
+
+    @Test
+    public void testRegister() throws JMException {
+        instance.propertyRead("testRegister", System.nanoTime(), false);
+        instance.register();
+        instance.register();
+
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = new ObjectName(MediaPlayerMetricsMXBean.OBJECT_NAME);
+        assertTrue(server.isRegistered(name));
+        final TabularData reads = (TabularData) server.getAttribute(name, "PropertyReads");
+        assertTrue(reads.containsKey(new Object[]{"testRegister"}));
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaPlayer1;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.DBusSigHandler;
+import org.freedesktop.dbus.interfaces.ObjectManager;
+import org.freedesktop.dbus.interfaces.ObjectManager.InterfacesAdded;
+import org.freedesktop.dbus.interfaces.ObjectManager.InterfacesRemoved;
+import org.freedesktop.dbus.messages.DBusSignal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class MediaPlayerRegistryTest {
+
+    private static final String path_01 = "/org/bluez/hci0/dev_00_00_00_00_00_01/player0";
+    private static final String path_02 = "/org/bluez/hci0/dev_00_00_00_00_00_02/player0";
+
+    @Mock
+    private DBusConnection connection;
+    @Mock
+    private ObjectManager objectManager;
+
+    private final List<MediaPlayer> added = new ArrayList<>();
+    private final List<MediaPlayer> removed = new ArrayList<>();
+    private final List<String> released = new ArrayList<>();
+
+    @Test
+    public void testStart() throws DBusException {
+        final MediaPlayerRegistry instance = newTestInstance();
+
+        assertEquals(1, instance.currentPlayers().size());
+        verify(connection).addSigHandler(same(InterfacesAdded.class), eq(objectManager), any(DBusSigHandler.class));
+        verify(connection).addSigHandler(same(InterfacesRemoved.class), eq(objectManager), any(DBusSigHandler.class));
+    }
+
+    @Test
+    public void testInterfacesAdded() throws DBusException {
+        final MediaPlayerRegistry instance = newTestInstance();
+        captureHandler(InterfacesAdded.class).handle(new InterfacesAdded("/", new DBusPath(path_02),
+            Map.of(MediaPlayer1.DBUS_INTERFACE_NAME, Map.of())));
+
+        assertEquals(2, instance.currentPlayers().size());
+        assertEquals(1, added.size());
+    }
+
+    @Test
+    public void testInterfacesAddedOtherInterface() throws DBusException {
+        final MediaPlayerRegistry instance = newTestInstance();
+        captureHandler(InterfacesAdded.class).handle(new InterfacesAdded("/", new DBusPath(path_02),
+            Map.of("org.bluez.Device1", Map.of())));
+
+        assertEquals(1, instance.currentPlayers().size());
+        assertTrue(added.isEmpty());
+    }
+
+    @Test
+    public void testInterfacesAddedKnownPlayer() throws DBusException {
+        final MediaPlayerRegistry instance = newTestInstance();
+        captureHandler(InterfacesAdded.class).handle(new InterfacesAdded("/", new DBusPath(path_01),
+            Map.of(MediaPlayer1.DBUS_INTERFACE_NAME, Map.of())));
+
+        assertEquals(1, instance.currentPlayers().size());
+        assertTrue(added.isEmpty());
+    }
+
+    @Test
+    public void testInterfacesRemoved() throws DBusException {
+        final MediaPlayerRegistry instance = newTestInstance();
+        captureHandler(InterfacesRemoved.class).handle(new InterfacesRemoved("/", new DBusPath(path_01),
+            List.of(MediaPlayer1.DBUS_INTERFACE_NAME)));
+
+        assertTrue(instance.currentPlayers().isEmpty());
+        assertEquals(1, removed.size());
+        assertEquals(List.of(path_01), released);
+    }
+
+    @Test
+    public void testClose() throws DBusException {
+        final MediaPlayerRegistry instance = newTestInstance();
+        instance.close();
+
+        assertTrue(instance.currentPlayers().isEmpty());
+        verify(connection).removeSigHandler(same(InterfacesAdded.class), eq(objectManager), any(DBusSigHandler.class));
+        verify(connection).removeSigHandler(same(InterfacesRemoved.class), eq(objectManager), any(DBusSigHandler.class));
+    }
+
+    private MediaPlayerRegistry newTestInstance() {
+        final MediaPlayerRegistry instance = new MediaPlayerRegistry(connection, objectManager, this::mediaPlayer, released::add);
+        instance.addListener(new MediaPlayerRegistry.Listener() {
+            @Override
+            public void playerAdded(MediaPlayer player) {
+                added.add(player);
+            }
+
+            @Override
+            public void playerRemoved(MediaPlayer player) {
+                removed.add(player);
+            }
+        });
+        instance.start(Stream.of(path_01));
+        added.clear();
+        return instance;
+    }
+
+    private MediaPlayer mediaPlayer(String path) {
+        try {
+            return new MediaPlayer(connection, path);
+        } catch (DBusException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private <T extends DBusSignal> DBusSigHandler<T> captureHandler(Class<T> type) throws DBusException {
+        final ArgumentCaptor<DBusSigHandler> captor = ArgumentCaptor.forClass(DBusSigHandler.class);
+        verify(connection).addSigHandler(same(type), eq(objectManager), captor.capture());
+        return captor.getValue();
+    }
+
+}
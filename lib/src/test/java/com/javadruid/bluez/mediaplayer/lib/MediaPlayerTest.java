@@ -2,6 +2,9 @@ package com.javadruid.bluez.mediaplayer.lib;
 
 import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaPlayer1;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import org.freedesktop.dbus.DBusAsyncReply;
 import org.freedesktop.dbus.DBusMap;
@@ -9,6 +12,8 @@ import org.freedesktop.dbus.ObjectPath;
 import org.freedesktop.dbus.connections.impl.DBusConnection;
 import org.freedesktop.dbus.errors.Error;
 import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.exceptions.DBusExecutionException;
+import org.freedesktop.dbus.interfaces.CallbackHandler;
 import org.freedesktop.dbus.interfaces.DBusSigHandler;
 import org.freedesktop.dbus.interfaces.Properties;
 import org.freedesktop.dbus.interfaces.Properties.PropertiesChanged;
@@ -19,17 +24,25 @@ import org.freedesktop.dbus.types.UInt32;
 import org.freedesktop.dbus.types.Variant;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -37,6 +50,7 @@ import static org.mockito.Mockito.when;
 public class MediaPlayerTest {
 
     private static final String path = "path";
+    private static final String signalPath = "/org/bluez/hci0/dev_00_00_00_00_00_00/player0";
 
     @Mock
     private DBusConnection connection;
@@ -71,14 +85,28 @@ public class MediaPlayerTest {
 
     @Test
     public void testHold() throws DBusException {
-        when(connection.callMethodAsync(remoteObject, MediaPlayer.HOLD, (byte)0))
-            .thenReturn(reply);
-        when(reply.getCall()).thenReturn(call);
+        mockSentCall();
 
         final MediaPlayer instance = newTestInstance();
         instance.hold((byte)0);
 
-        verify(connection).callMethodAsync(remoteObject, MediaPlayer.HOLD, (byte)0);
+        final MethodCall sent = captureSentCall();
+        assertEquals(MediaPlayer.HOLD, sent.getName());
+        assertEquals(MediaPlayer1.DBUS_INTERFACE_NAME, sent.getInterface());
+        assertEquals(MediaPlayer.KEY_SIGNATURE, sent.getSig());
+        assertEquals(List.of((byte) 0), List.of(sent.getParameters()));
+    }
+
+    @Test
+    public void testMethodCallMetrics() throws DBusException {
+        mockObjectCall(MediaPlayer.REWIND);
+        final CallStatistics before = MediaPlayerMetrics.INSTANCE.getMethodCalls().get(MediaPlayer.REWIND);
+
+        final MediaPlayer instance = newTestInstance();
+        instance.rewind();
+
+        final CallStatistics after = MediaPlayerMetrics.INSTANCE.getMethodCalls().get(MediaPlayer.REWIND);
+        assertEquals((before != null? before.count(): 0) + 1, after.count());
     }
 
     @Test
@@ -113,14 +141,16 @@ public class MediaPlayerTest {
 
     @Test
     public void testPress() throws DBusException {
-        when(connection.callMethodAsync(remoteObject, MediaPlayer.PRESS, (byte)0))
-            .thenReturn(reply);
-        when(reply.getCall()).thenReturn(call);
+        mockSentCall();
 
         final MediaPlayer instance = newTestInstance();
         instance.press((byte)0);
 
-        verify(connection).callMethodAsync(remoteObject, MediaPlayer.PRESS, (byte)0);
+        final MethodCall sent = captureSentCall();
+        assertEquals(MediaPlayer.PRESS, sent.getName());
+        assertEquals(MediaPlayer1.DBUS_INTERFACE_NAME, sent.getInterface());
+        assertEquals(MediaPlayer.KEY_SIGNATURE, sent.getSig());
+        assertEquals(List.of((byte) 0), List.of(sent.getParameters()));
     }
 
     @Test
@@ -197,14 +227,12 @@ public class MediaPlayerTest {
     @Test
     public void testSetEqualizer() throws DBusException {
         final String equalizer = "equalizer";
-        when(connection.callMethodAsync(properties, "Set", MediaPlayer1.DBUS_INTERFACE_NAME, MediaPlayer.EQUALIZER, equalizer))
-            .thenReturn(reply);
-        when(reply.getCall()).thenReturn(call);
+        mockSentCall();
 
         final MediaPlayer instance = newTestInstance();
         instance.setEqualizer(equalizer);
 
-        verify(connection).callMethodAsync(properties, "Set", MediaPlayer1.DBUS_INTERFACE_NAME, MediaPlayer.EQUALIZER, equalizer);
+        verifySet(MediaPlayer.EQUALIZER, equalizer);
     }
 
     @Test
@@ -338,6 +366,25 @@ public class MediaPlayerTest {
         assertEquals(expectedResult, result.get());
     }
 
+    @Test
+    public void testGetTrackMetadata() throws IllegalArgumentException, DBusException {
+        final DBusMap<String, Variant<?>> track = new DBusMap<>(
+            new Object[][]{
+                {"Title", new Variant<>("title")},
+                {"ImgHandle", new Variant<>("1234567")}
+            });
+        when(connection.callMethodAsync(properties, "Get", MediaPlayer1.DBUS_INTERFACE_NAME, MediaPlayer.TRACK))
+            .thenReturn(reply);
+        when(reply.getCall()).thenReturn(call);
+        when(call.getReply()).thenReturn(message);
+        when(message.getParameters()).thenReturn(new Object[]{new Variant<>(track, new DBusMapType(String.class, Variant.class))});
+
+        final MediaPlayer instance = newTestInstance();
+        final Optional<Map<String, Object>> result = instance.getTrackMetadata();
+
+        assertEquals(Map.of("Title", "title", "ImgHandle", "1234567"), result.get());
+    }
+
     @Test
     public void testGetType() throws IllegalArgumentException, DBusException {
         final String type = "type";
@@ -441,12 +488,415 @@ public class MediaPlayerTest {
         assertTrue(result.isEmpty());
     }
 
+    @Test
+    public void testEnableCache() throws Exception {
+        mockGetAll(Map.of(
+            MediaPlayer.STATUS, new Variant<>("playing"),
+            MediaPlayer.NAME, new Variant<>("name")));
+
+        final MediaPlayer instance = newTestInstance();
+        instance.enableCache();
+
+        assertTrue(instance.isCacheEnabled());
+        assertEquals("playing", instance.getStatus().get());
+        assertEquals("name", instance.getName().get());
+        assertTrue(instance.getEqualizer().isEmpty());
+        verify(connection).addSigHandler(same(PropertiesChanged.class), eq(properties), any(DBusSigHandler.class));
+        verify(connection, never()).callMethodAsync(properties, "Get", MediaPlayer1.DBUS_INTERFACE_NAME, MediaPlayer.STATUS);
+    }
+
+    @Test
+    public void testCacheUpdatedFromSignal() throws Exception {
+        mockGetAll(Map.of(MediaPlayer.STATUS, new Variant<>("playing")));
+
+        final MediaPlayer instance = newTestInstance();
+        instance.enableCache();
+        captureSignalHandler().handle(new PropertiesChanged(signalPath, MediaPlayer1.DBUS_INTERFACE_NAME,
+            Map.of(MediaPlayer.STATUS, new Variant<>("paused")), List.of()));
+
+        assertEquals("paused", instance.getStatus().get());
+    }
+
+    @Test
+    public void testCacheKeepsSignalDuringLoad() throws Exception {
+        mockGetAll(Map.of());
+        when(message.getParameters()).thenAnswer(i -> {
+            captureSignalHandler().handle(new PropertiesChanged(signalPath, MediaPlayer1.DBUS_INTERFACE_NAME,
+                Map.of(MediaPlayer.STATUS, new Variant<>("paused")), List.of()));
+            return new Object[]{Map.of(
+                MediaPlayer.STATUS, new Variant<>("playing"),
+                MediaPlayer.NAME, new Variant<>("name"))};
+        });
+
+        final MediaPlayer instance = newTestInstance();
+        instance.enableCache();
+
+        assertEquals("paused", instance.getStatus().get());
+        assertEquals("name", instance.getName().get());
+    }
+
+    @Test
+    public void testCacheIgnoresOtherInterfaces() throws Exception {
+        mockGetAll(Map.of(MediaPlayer.NAME, new Variant<>("name")));
+
+        final MediaPlayer instance = newTestInstance();
+        instance.enableCache();
+        captureSignalHandler().handle(new PropertiesChanged(signalPath, "org.bluez.MediaFolder1",
+            Map.of(MediaPlayer.NAME, new Variant<>("folder")), List.of()));
+
+        assertEquals("name", instance.getName().get());
+    }
+
+    @Test
+    public void testCacheInvalidatedProperty() throws Exception {
+        mockGetAll(Map.of(MediaPlayer.STATUS, new Variant<>("playing")));
+
+        final MediaPlayer instance = newTestInstance();
+        instance.enableCache();
+        captureSignalHandler().handle(new PropertiesChanged(signalPath, MediaPlayer1.DBUS_INTERFACE_NAME,
+            Map.of(), List.of(MediaPlayer.STATUS)));
+        when(connection.callMethodAsync(properties, "Get", MediaPlayer1.DBUS_INTERFACE_NAME, MediaPlayer.STATUS))
+            .thenReturn(reply);
+        when(message.getParameters()).thenReturn(new Object[]{new Variant<>("stopped")});
+
+        assertEquals("stopped", instance.getStatus().get());
+        assertEquals("stopped", instance.getStatus().get());
+        verify(connection, times(1)).callMethodAsync(properties, "Get", MediaPlayer1.DBUS_INTERFACE_NAME, MediaPlayer.STATUS);
+    }
+
+    @Test
+    public void testEnableCacheAfterError() throws Exception {
+        when(connection.callMethodAsync(properties, "GetAll", MediaPlayer1.DBUS_INTERFACE_NAME))
+            .thenReturn(reply);
+        when(connection.callMethodAsync(properties, "Get", MediaPlayer1.DBUS_INTERFACE_NAME, MediaPlayer.STATUS))
+            .thenReturn(reply);
+        when(reply.getCall()).thenReturn(call);
+        when(call.getReply()).thenReturn(mock(Error.class), message);
+        when(message.getParameters()).thenReturn(new Object[]{new Variant<>("playing")});
+
+        final MediaPlayer instance = newTestInstance();
+        instance.enableCache();
+
+        assertEquals("playing", instance.getStatus().get());
+        assertEquals("playing", instance.getStatus().get());
+        verify(connection, times(1)).callMethodAsync(properties, "Get", MediaPlayer1.DBUS_INTERFACE_NAME, MediaPlayer.STATUS);
+    }
+
+    @Test
+    public void testCacheKeepsSignalDuringGet() throws Exception {
+        mockGetAll(Map.of(MediaPlayer.STATUS, new Variant<>("playing")));
+
+        final MediaPlayer instance = newTestInstance();
+        instance.enableCache();
+        final DBusSigHandler<PropertiesChanged> handler = captureSignalHandler();
+        handler.handle(new PropertiesChanged(signalPath, MediaPlayer1.DBUS_INTERFACE_NAME,
+            Map.of(), List.of(MediaPlayer.STATUS)));
+        when(connection.callMethodAsync(properties, "Get", MediaPlayer1.DBUS_INTERFACE_NAME, MediaPlayer.STATUS))
+            .thenReturn(reply);
+        when(message.getParameters()).thenAnswer(i -> {
+            handler.handle(new PropertiesChanged(signalPath, MediaPlayer1.DBUS_INTERFACE_NAME,
+                Map.of(MediaPlayer.STATUS, new Variant<>("paused")), List.of()));
+            return new Object[]{new Variant<>("stopped")};
+        });
+
+        assertEquals("stopped", instance.getStatus().get());
+        assertEquals("paused", instance.getStatus().get());
+    }
+
+    @Test
+    public void testCacheSkipsFailedGet() throws Exception {
+        mockGetAll(Map.of(MediaPlayer.STATUS, new Variant<>("playing")));
+
+        final MediaPlayer instance = newTestInstance();
+        instance.enableCache();
+        captureSignalHandler().handle(new PropertiesChanged(signalPath, MediaPlayer1.DBUS_INTERFACE_NAME,
+            Map.of(), List.of(MediaPlayer.STATUS)));
+        when(connection.callMethodAsync(properties, "Get", MediaPlayer1.DBUS_INTERFACE_NAME, MediaPlayer.STATUS))
+            .thenReturn(reply);
+        when(call.getReply()).thenReturn(mock(Error.class));
+
+        assertTrue(instance.getStatus().isEmpty());
+        assertTrue(instance.getStatus().isEmpty());
+        verify(connection, times(2)).callMethodAsync(properties, "Get", MediaPlayer1.DBUS_INTERFACE_NAME, MediaPlayer.STATUS);
+    }
+
+    @Test
+    public void testCacheSkipsFailedGetAsync() throws Exception {
+        mockGetAll(Map.of(MediaPlayer.STATUS, new Variant<>("playing")));
+        doAnswer(i -> {
+            i.<CallbackHandler<Object>>getArgument(2).handleError(new DBusExecutionException("error"));
+            return null;
+        }).when(connection).callWithCallback(eq(properties), eq("Get"), any(CallbackHandler.class),
+            eq(MediaPlayer1.DBUS_INTERFACE_NAME), eq(MediaPlayer.STATUS));
+
+        final MediaPlayer instance = newTestInstance();
+        instance.enableCache();
+        captureSignalHandler().handle(new PropertiesChanged(signalPath, MediaPlayer1.DBUS_INTERFACE_NAME,
+            Map.of(), List.of(MediaPlayer.STATUS)));
+
+        assertTrue(instance.async().getStatus().get().isEmpty());
+        assertTrue(instance.async().getStatus().get().isEmpty());
+        verify(connection, times(2)).callWithCallback(eq(properties), eq("Get"), any(CallbackHandler.class),
+            eq(MediaPlayer1.DBUS_INTERFACE_NAME), eq(MediaPlayer.STATUS));
+    }
+
+    @Test
+    public void testDisableCache() throws Exception {
+        mockGetAll(Map.of(MediaPlayer.STATUS, new Variant<>("playing")));
+
+        final MediaPlayer instance = newTestInstance();
+        instance.enableCache();
+        instance.disableCache();
+
+        assertFalse(instance.isCacheEnabled());
+        verify(connection).removeSigHandler(same(PropertiesChanged.class), eq(properties), any(DBusSigHandler.class));
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        final DBusMap<String, Variant<?>> track = new DBusMap<>(
+            new Object[][]{
+                {"Artist", new Variant<>("artist")},
+                {"Title", new Variant<>("title")},
+                {"Duration", new Variant<>(new UInt32(1000))}
+            });
+        mockGetAll(Map.of(
+            MediaPlayer.BROWSABLE, new Variant<>(Boolean.TRUE),
+            MediaPlayer.DEVICE, new Variant<>(new ObjectPath("source", path)),
+            MediaPlayer.POSITION, new Variant<>(new UInt32(42)),
+            MediaPlayer.STATUS, new Variant<>("playing"),
+            MediaPlayer.TRACK, new Variant<>(track, new DBusMapType(String.class, Variant.class))));
+
+        final MediaPlayer instance = newTestInstance();
+        final PlayerState result = instance.snapshot();
+
+        assertEquals(Boolean.TRUE, result.browsable());
+        assertEquals(path, result.device());
+        assertEquals(42, result.position());
+        assertEquals("playing", result.status());
+        assertEquals(new Track("artist", 0, "title", null, Duration.ofSeconds(1), null, 0), result.track());
+        assertNull(result.name());
+        assertNull(result.searchable());
+    }
+
+    @Test
+    public void testSnapshotCached() throws Exception {
+        mockGetAll(Map.of(MediaPlayer.STATUS, new Variant<>("playing")));
+
+        final MediaPlayer instance = newTestInstance();
+        instance.enableCache();
+        final PlayerState result = instance.snapshot();
+
+        assertEquals("playing", result.status());
+        verify(connection, times(1)).callMethodAsync(properties, "GetAll", MediaPlayer1.DBUS_INTERFACE_NAME);
+    }
+
+    @Test
+    public void testPressFireAndForget() throws Exception {
+        final MediaPlayer instance = newTestInstance(signalPath);
+        instance.setFireAndForgetKeys(true);
+        instance.press((byte) 0x44);
+
+        final ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+        verify(connection).sendMessage(captor.capture());
+        final Message sent = captor.getValue();
+        assertEquals(MediaPlayer.PRESS, sent.getName());
+        assertEquals(signalPath, sent.getPath());
+        assertEquals(Message.Flags.NO_REPLY_EXPECTED, sent.getFlags() & Message.Flags.NO_REPLY_EXPECTED);
+        verify(connection, never()).callMethodAsync(remoteObject, MediaPlayer.PRESS, (byte) 0x44);
+    }
+
+    @Test
+    public void testReleaseFireAndForget() throws Exception {
+        final MediaPlayer instance = newTestInstance(signalPath);
+        instance.setFireAndForgetKeys(true);
+        instance.release();
+
+        final ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+        verify(connection).sendMessage(captor.capture());
+        assertEquals(MediaPlayer.RELEASE, captor.getValue().getName());
+    }
+
+    @Test
+    public void testFireAndForgetError() throws Exception {
+        final RuntimeException error = new RuntimeException();
+        doThrow(error).when(connection).sendMessage(any(Message.class));
+        final List<Throwable> errors = new ArrayList<>();
+
+        final MediaPlayer instance = newTestInstance(signalPath);
+        instance.setFireAndForgetKeys(true);
+        instance.setErrorListener(errors::add);
+        instance.hold((byte) 0x44);
+
+        assertEquals(List.of(error), errors);
+    }
+
+    @Test
+    public void testFireAndForgetFailingListener() throws Exception {
+        doThrow(new RuntimeException()).when(connection).sendMessage(any(Message.class));
+
+        final MediaPlayer instance = newTestInstance(signalPath);
+        instance.setFireAndForgetKeys(true);
+        instance.setErrorListener(ex -> {
+            throw new IllegalStateException();
+        });
+        instance.release();
+
+        verify(connection).sendMessage(any(Message.class));
+    }
+
+    @Test
+    public void testSubscribe() throws Exception {
+        final List<Map.Entry<String, Object>> first = new ArrayList<>();
+        final List<Map.Entry<String, Object>> second = new ArrayList<>();
+
+        final MediaPlayer instance = newTestInstance();
+        instance.subscribe(first::add);
+        final Subscription subscription = instance.subscribe(second::add, Runnable::run);
+        captureSignalHandler().handle(new PropertiesChanged(signalPath, MediaPlayer1.DBUS_INTERFACE_NAME,
+            Map.of(MediaPlayer.STATUS, new Variant<>("paused")), List.of()));
+        subscription.close();
+
+        assertEquals(List.of(Map.entry(MediaPlayer.STATUS, "paused")), first);
+        assertEquals(List.of(Map.entry(MediaPlayer.STATUS, "paused")), second);
+        verify(connection, never()).removeSigHandler(same(PropertiesChanged.class), eq(properties), any(DBusSigHandler.class));
+    }
+
+    @Test
+    public void testSubscribeIgnoresOtherInterfaces() throws Exception {
+        final List<Map.Entry<String, Object>> received = new ArrayList<>();
+
+        final MediaPlayer instance = newTestInstance();
+        instance.subscribe(received::add);
+        captureSignalHandler().handle(new PropertiesChanged(signalPath, "org.bluez.MediaFolder1",
+            Map.of(MediaPlayer.NAME, new Variant<>("folder")), List.of()));
+
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void testGetTyped() throws DBusException {
+        mockProperty(MediaPlayer.STATUS, "paused");
+
+        final MediaPlayer instance = newTestInstance();
+
+        assertEquals(Optional.of(PlayerStatus.PAUSED), instance.get(PlayerProperty.STATUS));
+    }
+
+    @Test
+    public void testGetTypedCached() throws DBusException {
+        mockGetAll(Map.of(MediaPlayer.REPEAT, new Variant<>("alltracks")));
+
+        final MediaPlayer instance = newTestInstance();
+        instance.enableCache();
+
+        assertEquals(Optional.of(RepeatMode.ALL_TRACKS), instance.get(PlayerProperty.REPEAT));
+        assertEquals(Optional.empty(), instance.get(PlayerProperty.SHUFFLE));
+        verify(connection, never()).callMethodAsync(properties, "Get", MediaPlayer1.DBUS_INTERFACE_NAME, MediaPlayer.REPEAT);
+    }
+
+    @Test
+    public void testSetTyped() throws DBusException {
+        mockSentCall();
+
+        final MediaPlayer instance = newTestInstance();
+        instance.set(PlayerProperty.SHUFFLE, ShuffleMode.GROUP);
+
+        verifySet(MediaPlayer.SHUFFLE, "group");
+    }
+
+    @Test
+    public void testSubscribeDeltas() throws DBusException {
+        final List<PropertyDelta> deltas = new ArrayList<>();
+        final List<Integer> positions = new ArrayList<>();
+
+        final MediaPlayer instance = newTestInstance();
+        instance.subscribeDeltas(deltas::add);
+        instance.subscribe(PlayerProperty.POSITION, positions::add, null);
+        final DBusSigHandler<PropertiesChanged> handler = captureSignalHandler();
+        handler.handle(new PropertiesChanged(signalPath, MediaPlayer1.DBUS_INTERFACE_NAME,
+            Map.of(MediaPlayer.STATUS, new Variant<>("playing"), MediaPlayer.POSITION, new Variant<>(new UInt32(7))),
+            List.of(MediaPlayer.NAME)));
+        handler.handle(new PropertiesChanged(signalPath, MediaPlayer1.DBUS_INTERFACE_NAME,
+            Map.of(MediaPlayer.STATUS, new Variant<>("paused")), List.of()));
+
+        assertEquals(2, deltas.size());
+        assertEquals(PlayerStatus.PLAYING, deltas.get(0).get(PlayerProperty.STATUS));
+        assertEquals(7, deltas.get(0).get(PlayerProperty.POSITION));
+        assertTrue(deltas.get(0).contains(PlayerProperty.NAME));
+        assertEquals(List.of(PlayerProperty.STATUS), deltas.get(1).properties());
+        assertEquals(List.of(7), positions);
+    }
+
+    @Test
+    public void testEquals() throws DBusException {
+        final MediaPlayer instance = newTestInstance();
+        final MediaPlayer other = newTestInstance();
+        final MediaPlayer different = newTestInstance(signalPath);
+
+        assertEquals(instance, other);
+        assertEquals(instance.hashCode(), other.hashCode());
+        assertNotEquals(instance, different);
+    }
+
+    @Test
+    public void testDispose() throws Exception {
+        final MediaPlayer instance = newTestInstance();
+        instance.onPropertyChange(System.out::println);
+        instance.dispose();
+
+        verify(connection).removeSigHandler(same(PropertiesChanged.class), eq(properties), any(DBusSigHandler.class));
+    }
+
+    @Test
+    public void testRebind() throws Exception {
+        mockGetAll(Map.of(MediaPlayer.STATUS, new Variant<>("playing")));
+        final DBusConnection newConnection = mock(DBusConnection.class);
+        final MediaPlayer1 newRemoteObject = mock(MediaPlayer1.class);
+        final Properties newProperties = mock(Properties.class);
+        when(newConnection.getRemoteObject(MediaPlayer1.BUS_NAME, path, MediaPlayer1.class))
+            .thenReturn(newRemoteObject);
+        when(newConnection.getRemoteObject(MediaPlayer1.BUS_NAME, path, Properties.class))
+            .thenReturn(newProperties);
+        final DBusAsyncReply newReply = mock(DBusAsyncReply.class);
+        final MethodCall newCall = mock(MethodCall.class);
+        final Message newMessage = mock(Message.class);
+        when(newConnection.callMethodAsync(newProperties, "GetAll", MediaPlayer1.DBUS_INTERFACE_NAME))
+            .thenReturn(newReply);
+        when(newConnection.callMethodAsync(newRemoteObject, MediaPlayer.PLAY))
+            .thenReturn(newReply);
+        when(newReply.getCall()).thenReturn(newCall);
+        when(newCall.getReply()).thenReturn(newMessage);
+        when(newMessage.getParameters()).thenReturn(new Object[]{Map.of(MediaPlayer.STATUS, new Variant<>("paused"))});
+
+        final MediaPlayer instance = newTestInstance();
+        final List<Map.Entry<String, Object>> received = new ArrayList<>();
+        instance.subscribe(received::add);
+        instance.enableCache();
+        instance.rebind(newConnection);
+
+        assertEquals("paused", instance.getStatus().get());
+        verify(connection).removeSigHandler(same(PropertiesChanged.class), eq(properties), any(DBusSigHandler.class));
+        final ArgumentCaptor<DBusSigHandler> captor = ArgumentCaptor.forClass(DBusSigHandler.class);
+        verify(newConnection).addSigHandler(same(PropertiesChanged.class), eq(newProperties), captor.capture());
+        captor.getValue().handle(new PropertiesChanged(signalPath, MediaPlayer1.DBUS_INTERFACE_NAME,
+            Map.of(MediaPlayer.STATUS, new Variant<>("stopped")), List.of()));
+        assertEquals(List.of(Map.entry(MediaPlayer.STATUS, "stopped")), received);
+        assertEquals("stopped", instance.getStatus().get());
+        instance.play();
+        verify(newConnection).callMethodAsync(newRemoteObject, MediaPlayer.PLAY);
+    }
+
     private MediaPlayer newTestInstance() throws DBusException {
-        when(connection.getRemoteObject(MediaPlayer1.BUS_NAME, path, MediaPlayer1.class))
+        return newTestInstance(path);
+    }
+
+    private MediaPlayer newTestInstance(String objectPath) throws DBusException {
+        when(connection.getRemoteObject(MediaPlayer1.BUS_NAME, objectPath, MediaPlayer1.class))
             .thenReturn(remoteObject);
-        when(connection.getRemoteObject(MediaPlayer1.BUS_NAME, path, Properties.class))
+        when(connection.getRemoteObject(MediaPlayer1.BUS_NAME, objectPath, Properties.class))
             .thenReturn(properties);
-        return new MediaPlayer(connection, path);
+        return new MediaPlayer(connection, objectPath);
     }
 
     private void mockObjectCall(final String methodName) {
@@ -455,6 +905,44 @@ public class MediaPlayerTest {
         when(reply.getCall()).thenReturn(call);
     }
 
+    private void mockGetAll(final Map<String, Variant<?>> result) throws DBusException {
+        when(connection.callMethodAsync(properties, "GetAll", MediaPlayer1.DBUS_INTERFACE_NAME))
+            .thenReturn(reply);
+        when(reply.getCall()).thenReturn(call);
+        when(call.getReply()).thenReturn(message);
+        when(message.getParameters()).thenReturn(new Object[]{result});
+    }
+
+    /**
+     * Answers every call sent as a raw {@link MethodCall} with
+     * {@code message}.
+     */
+    private void mockSentCall() {
+        doAnswer(i -> {
+            i.<MethodCall>getArgument(0).setReply(message);
+            return null;
+        }).when(connection).sendMessage(any(MethodCall.class));
+    }
+
+    private MethodCall captureSentCall() {
+        final ArgumentCaptor<MethodCall> captor = ArgumentCaptor.forClass(MethodCall.class);
+        verify(connection).sendMessage(captor.capture());
+        return captor.getValue();
+    }
+
+    private void verifySet(final String propertyName, final Object value) throws DBusException {
+        final MethodCall set = captureSentCall();
+        assertEquals("Set", set.getName());
+        assertEquals("ssv", set.getSig());
+        assertEquals(List.of(MediaPlayer1.DBUS_INTERFACE_NAME, propertyName, new Variant<>(value)), List.of(set.getParameters()));
+    }
+
+    private DBusSigHandler<PropertiesChanged> captureSignalHandler() throws DBusException {
+        final ArgumentCaptor<DBusSigHandler> captor = ArgumentCaptor.forClass(DBusSigHandler.class);
+        verify(connection).addSigHandler(same(PropertiesChanged.class), eq(properties), captor.capture());
+        return captor.getValue();
+    }
+
     private void mockProperty(final String propertyName, final Object result) throws IllegalArgumentException, DBusException {
         when(connection.callMethodAsync(properties, "Get", MediaPlayer1.DBUS_INTERFACE_NAME, propertyName))
             .thenReturn(reply);
@@ -0,0 +1,260 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaPlayer1;
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaTransport1;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.freedesktop.dbus.DBusAsyncReply;
+import org.freedesktop.dbus.ObjectPath;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.exceptions.DBusExecutionException;
+import org.freedesktop.dbus.interfaces.CallbackHandler;
+import org.freedesktop.dbus.interfaces.DBusSigHandler;
+import org.freedesktop.dbus.interfaces.Properties;
+import org.freedesktop.dbus.interfaces.Properties.PropertiesChanged;
+import org.freedesktop.dbus.messages.Message;
+import org.freedesktop.dbus.messages.MethodCall;
+import org.freedesktop.dbus.types.UInt16;
+import org.freedesktop.dbus.types.Variant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class MediaTransportTest {
+
+    private static final String path = "/org/bluez/hci0/dev_00_00_00_00_00_00/fd0";
+    private static final String device = "/org/bluez/hci0/dev_00_00_00_00_00_00";
+    private static final Duration interval = Duration.ofMillis(100);
+
+    @Mock
+    private DBusConnection connection;
+    @Mock
+    private Properties properties;
+    @Mock
+    private ScheduledExecutorService scheduler;
+    @Mock
+    private ScheduledFuture<?> future;
+    @Mock
+    private DBusAsyncReply reply;
+    @Mock
+    private MethodCall call;
+    @Mock
+    private Message message;
+
+    private final AtomicLong now = new AtomicLong();
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final List<Long> delays = new ArrayList<>();
+    private final List<CallbackHandler<Object>> writes = new ArrayList<>();
+    private final List<MethodCall> calls = new ArrayList<>();
+
+    @Test
+    public void testGetAll() throws Exception {
+        final MediaTransport instance = newTestInstance(Map.of(
+            MediaTransport.DEVICE, new Variant<>(new ObjectPath("source", device)),
+            MediaTransport.UUID, new Variant<>("0000110a-0000-1000-8000-00805f9b34fb"),
+            MediaTransport.CODEC, new Variant<>((byte) 2),
+            MediaTransport.STATE, new Variant<>("active"),
+            MediaTransport.DELAY, new Variant<>(new UInt16(1500)),
+            MediaTransport.VOLUME, new Variant<>(new UInt16(64))));
+
+        assertEquals(Optional.of(device), instance.getDevice());
+        assertEquals(Optional.of("0000110a-0000-1000-8000-00805f9b34fb"), instance.getUuid());
+        assertEquals(Optional.of((byte) 2), instance.getCodec());
+        assertEquals(Optional.of(TransportState.ACTIVE), instance.getState());
+        assertEquals(Optional.of(1500), instance.getDelay());
+        assertEquals(Optional.of(64), instance.getVolume());
+        verify(connection, never()).callMethodAsync(same(properties), eq("Get"), any(), any());
+    }
+
+    @Test
+    public void testSignalUpdatesCache() throws Exception {
+        final MediaTransport instance = newTestInstance(Map.of(
+            MediaTransport.STATE, new Variant<>("idle"),
+            MediaTransport.VOLUME, new Variant<>(new UInt16(64))));
+        final List<Map.Entry<String, Object>> changes = new ArrayList<>();
+        instance.subscribe(changes::add);
+
+        captureSignalHandler().handle(new PropertiesChanged(path, MediaTransport1.DBUS_INTERFACE_NAME,
+            Map.of(MediaTransport.VOLUME, new Variant<>(new UInt16(20))), List.of(MediaTransport.STATE)));
+
+        assertEquals(Optional.of(20), instance.getVolume());
+        assertEquals(List.of(Map.entry(MediaTransport.VOLUME, new UInt16(20))), changes);
+        when(connection.callMethodAsync(properties, "Get", MediaTransport1.DBUS_INTERFACE_NAME, MediaTransport.STATE))
+            .thenReturn(reply);
+        when(message.getParameters()).thenReturn(new Object[]{new Variant<>("pending")});
+        assertEquals(Optional.of(TransportState.PENDING), instance.getState());
+    }
+
+    @Test
+    public void testSetVolumeCoalesces() throws Exception {
+        final MediaTransport instance = newTestInstance(Map.of());
+        mockScheduler();
+
+        instance.setVolume(10);
+        instance.setVolume(20);
+        instance.setVolume(30);
+        runScheduled();
+
+        assertEquals(List.of(0L), delays);
+        assertEquals(1, writes.size());
+        final MethodCall set = calls.getFirst();
+        assertEquals("org.freedesktop.DBus.Properties", set.getInterface());
+        assertEquals("Set", set.getName());
+        assertEquals("ssv", set.getSig());
+        assertEquals(path, set.getPath());
+        verify(connection).sendMessage(set);
+        verifyVolumeWritten(30);
+    }
+
+    @Test
+    public void testSetVolumeBoundedRate() throws Exception {
+        final MediaTransport instance = newTestInstance(Map.of());
+        mockScheduler();
+        instance.setVolume(10);
+        runScheduled();
+
+        now.addAndGet(Duration.ofMillis(30).toNanos());
+        instance.setVolume(40);
+        instance.setVolume(50);
+        assertEquals(List.of(0L), delays);
+        writes.getFirst().handle(null);
+        runScheduled();
+
+        assertEquals(List.of(0L, Duration.ofMillis(70).toNanos()), delays);
+        assertEquals(2, writes.size());
+        verifyVolumeWritten(10);
+        verifyVolumeWritten(50);
+    }
+
+    @Test
+    public void testSetVolumeAfterError() throws Exception {
+        final MediaTransport instance = newTestInstance(Map.of());
+        mockScheduler();
+        instance.setVolume(10);
+        runScheduled();
+        writes.getFirst().handleError(new DBusExecutionException("error"));
+
+        now.addAndGet(interval.toNanos());
+        instance.setVolume(20);
+        runScheduled();
+
+        assertEquals(List.of(0L, 0L), delays);
+        verifyVolumeWritten(20);
+    }
+
+    @Test
+    public void testSetVolumeOutOfRange() throws Exception {
+        final MediaTransport instance = newTestInstance(Map.of());
+
+        assertThrows(IllegalArgumentException.class, () -> instance.setVolume(-1));
+        assertThrows(IllegalArgumentException.class, () -> instance.setVolume(MediaTransport.MAX_VOLUME + 1));
+    }
+
+    @Test
+    public void testCloseWritesPending() throws Exception {
+        final MediaTransport instance = newTestInstance(Map.of());
+        instance.subscribe(e -> {});
+        mockScheduler();
+        instance.setVolume(10);
+        runScheduled();
+        writes.getFirst().handle(null);
+        instance.setVolume(20);
+        when(future.cancel(false)).thenReturn(true);
+
+        instance.close();
+        runScheduled();
+
+        assertEquals(List.of(0L, interval.toNanos(), 0L), delays);
+        assertThrows(IllegalStateException.class, () -> instance.setVolume(30));
+        verifyVolumeWritten(20);
+        verify(connection, times(1)).removeSigHandler(same(PropertiesChanged.class), eq(properties), any(DBusSigHandler.class));
+    }
+
+    @Test
+    public void testCloseAfterSchedulerShutdown() throws Exception {
+        final MediaTransport instance = newTestInstance(Map.of());
+        instance.subscribe(e -> {});
+        mockScheduler();
+        instance.setVolume(10);
+        runScheduled();
+        writes.getFirst().handle(null);
+        instance.setVolume(20);
+        when(future.cancel(false)).thenReturn(true);
+        doThrow(new RejectedExecutionException()).when(scheduler).schedule(any(Runnable.class), anyLong(), eq(TimeUnit.NANOSECONDS));
+
+        instance.close();
+
+        assertEquals(1, writes.size());
+        verify(connection, times(1)).removeSigHandler(same(PropertiesChanged.class), eq(properties), any(DBusSigHandler.class));
+    }
+
+    private MediaTransport newTestInstance(Map<String, Variant<?>> all) throws DBusException {
+        when(connection.getRemoteObject(MediaPlayer1.BUS_NAME, path, Properties.class)).thenReturn(properties);
+        when(connection.callMethodAsync(properties, "GetAll", MediaTransport1.DBUS_INTERFACE_NAME))
+            .thenReturn(reply);
+        when(reply.getCall()).thenReturn(call);
+        when(call.getReply()).thenReturn(message);
+        when(message.getParameters()).thenReturn(new Object[]{all});
+        return new MediaTransport(connection, path, interval, scheduler, now::get);
+    }
+
+    private void mockScheduler() {
+        doAnswer(i -> {
+            scheduled.add(i.getArgument(0));
+            delays.add(i.getArgument(1));
+            return future;
+        }).when(scheduler).schedule(any(Runnable.class), anyLong(), eq(TimeUnit.NANOSECONDS));
+        doAnswer(i -> {
+            calls.add(i.getArgument(0));
+            writes.add(i.getArgument(2));
+            return null;
+        }).when(connection).queueCallback(any(MethodCall.class), any(Method.class), any(CallbackHandler.class));
+    }
+
+    private void runScheduled() {
+        while (!scheduled.isEmpty())
+            scheduled.removeFirst().run();
+    }
+
+    private void verifyVolumeWritten(int volume) throws DBusException {
+        final List<Object> expected = List.of(MediaTransport1.DBUS_INTERFACE_NAME, MediaTransport.VOLUME, new Variant<>(new UInt16(volume)));
+        int written = 0;
+        for (MethodCall set : calls)
+            if (expected.equals(List.of(set.getParameters())))
+                written++;
+        assertEquals(1, written);
+    }
+
+    private DBusSigHandler<PropertiesChanged> captureSignalHandler() throws DBusException {
+        final ArgumentCaptor<DBusSigHandler> captor = ArgumentCaptor.forClass(DBusSigHandler.class);
+        verify(connection).addSigHandler(same(PropertiesChanged.class), eq(properties), captor.capture());
+        return captor.getValue();
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.freedesktop.dbus.exceptions.DBusExecutionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PlayerGroupTest {
+
+    @Mock
+    private MediaPlayer first;
+    @Mock
+    private MediaPlayer second;
+    @Mock
+    private AsyncMediaPlayer firstAsync;
+    @Mock
+    private AsyncMediaPlayer secondAsync;
+
+    @Test
+    public void testAllOk() {
+        when(first.async()).thenReturn(firstAsync);
+        when(second.async()).thenReturn(secondAsync);
+        when(firstAsync.pause()).thenReturn(CompletableFuture.completedFuture(null));
+        when(secondAsync.pause()).thenReturn(CompletableFuture.completedFuture(null));
+
+        final List<PlayerGroup.Result> result = new PlayerGroup(List.of(first, second)).pause().join();
+
+        assertEquals(2, result.size());
+        assertSame(first, result.get(0).player());
+        assertSame(second, result.get(1).player());
+        assertTrue(result.stream().allMatch(PlayerGroup.Result::isOk));
+    }
+
+    @Test
+    public void testSentBeforeAnyReply() {
+        final CompletableFuture<Void> firstReply = new CompletableFuture<>();
+        when(first.async()).thenReturn(firstAsync);
+        when(second.async()).thenReturn(secondAsync);
+        when(firstAsync.play()).thenReturn(firstReply);
+        when(secondAsync.play()).thenReturn(CompletableFuture.completedFuture(null));
+
+        final CompletableFuture<List<PlayerGroup.Result>> result = new PlayerGroup(List.of(first, second)).play();
+
+        verify(secondAsync).play();
+        assertFalse(result.isDone());
+        firstReply.complete(null);
+        assertTrue(result.join().stream().allMatch(PlayerGroup.Result::isOk));
+    }
+
+    @Test
+    public void testFailure() {
+        final DBusExecutionException error = new DBusExecutionException("failed");
+        when(first.async()).thenReturn(firstAsync);
+        when(second.async()).thenReturn(secondAsync);
+        when(firstAsync.next()).thenReturn(CompletableFuture.failedFuture(error));
+        when(secondAsync.next()).thenThrow(new IllegalStateException());
+
+        final List<PlayerGroup.Result> result = new PlayerGroup(List.of(first, second)).next().join();
+
+        assertEquals(PlayerGroup.Outcome.FAILED, result.get(0).outcome());
+        assertSame(error, result.get(0).error());
+        assertEquals(PlayerGroup.Outcome.FAILED, result.get(1).outcome());
+        assertTrue(result.get(1).error() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testDeadline() {
+        final CompletableFuture<Void> pending = new CompletableFuture<>();
+        when(first.async()).thenReturn(firstAsync);
+        when(second.async()).thenReturn(secondAsync);
+        when(firstAsync.stop()).thenReturn(pending);
+        when(secondAsync.stop()).thenReturn(CompletableFuture.completedFuture(null));
+
+        final List<PlayerGroup.Result> result = new PlayerGroup(List.of(first, second), Duration.ofMillis(50)).stop().join();
+
+        assertEquals(PlayerGroup.Outcome.TIMED_OUT, result.get(0).outcome());
+        assertNull(result.get(0).error());
+        assertTrue(result.get(1).isOk());
+        assertFalse(pending.isDone());
+    }
+
+}
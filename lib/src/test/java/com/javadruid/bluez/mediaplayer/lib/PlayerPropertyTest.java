@@ -0,0 +1,64 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import java.util.List;
+import org.freedesktop.dbus.ObjectPath;
+import org.freedesktop.dbus.types.UInt32;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PlayerPropertyTest {
+
+    @Test
+    public void testOrdinals() {
+        final List<PlayerProperty<?>> values = PlayerProperty.values();
+
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals(i, values.get(i).ordinal());
+            assertSame(values.get(i), PlayerProperty.forName(values.get(i).name()));
+        }
+        assertNull(PlayerProperty.forName("Unknown"));
+    }
+
+    @Test
+    public void testDecode() {
+        assertEquals(PlayerStatus.FORWARD_SEEK, PlayerProperty.STATUS.decode("forward-seek"));
+        assertEquals(RepeatMode.SINGLE_TRACK, PlayerProperty.REPEAT.decode("singletrack"));
+        assertEquals(PlayerType.AUDIO_BROADCASTING, PlayerProperty.TYPE.decode("Audio Broadcasting"));
+        assertEquals(42, PlayerProperty.POSITION.decode(new UInt32(42)));
+        assertEquals("/org/bluez/hci0", PlayerProperty.DEVICE.decode(new ObjectPath("source", "/org/bluez/hci0")));
+        assertNull(PlayerProperty.STATUS.decode("unknown"));
+        assertNull(PlayerProperty.STATUS.decode(null));
+    }
+
+    @Test
+    public void testEncode() {
+        assertTrue(PlayerProperty.SHUFFLE.isWritable());
+        assertEquals("alltracks", PlayerProperty.SHUFFLE.encode(ShuffleMode.ALL_TRACKS));
+        assertEquals("on", PlayerProperty.EQUALIZER.encode(EqualizerMode.ON));
+        assertFalse(PlayerProperty.STATUS.isWritable());
+        assertThrows(UnsupportedOperationException.class, () -> PlayerProperty.STATUS.encode(PlayerStatus.PLAYING));
+    }
+
+    @Test
+    public void testDelta() {
+        final Object[] values = new Object[PlayerProperty.values().size()];
+        values[PlayerProperty.STATUS.ordinal()] = PlayerStatus.PLAYING;
+        final PropertyDelta instance = new PropertyDelta(values,
+            1 << PlayerProperty.STATUS.ordinal() | 1 << PlayerProperty.NAME.ordinal());
+
+        assertTrue(instance.contains(PlayerProperty.STATUS));
+        assertTrue(instance.contains(PlayerProperty.NAME));
+        assertFalse(instance.contains(PlayerProperty.POSITION));
+        assertEquals(PlayerStatus.PLAYING, instance.get(PlayerProperty.STATUS));
+        assertNull(instance.get(PlayerProperty.NAME));
+        assertEquals(List.of(PlayerProperty.NAME, PlayerProperty.STATUS), instance.properties());
+        assertEquals("{Name=null, Status=PLAYING}", instance.toString());
+    }
+
+}
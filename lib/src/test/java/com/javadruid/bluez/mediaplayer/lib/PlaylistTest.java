@@ -0,0 +1,220 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaFolder1;
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaItem1;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.interfaces.Properties.PropertiesChanged;
+import org.freedesktop.dbus.types.UInt32;
+import org.freedesktop.dbus.types.Variant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PlaylistTest {
+
+    private static final String playerPath = "/org/bluez/hci0/dev_00_00_00_00_00_00/player0";
+    private static final String path = playerPath + "/NowPlaying";
+
+    @Mock
+    private MediaPlayer player;
+    @Mock
+    private MediaBrowser browser;
+    @Mock
+    private Subscription subscription;
+
+    @Test
+    public void testOpen() throws Exception {
+        final Playlist instance = newTestInstance(45);
+        final AtomicInteger changes = new AtomicInteger();
+        instance.subscribe(changes::incrementAndGet);
+
+        assertEquals(0, instance.size());
+        assertEquals(45, instance.open().get());
+
+        assertEquals(45, instance.size());
+        assertEquals(1, changes.get());
+        verify(browser).changeFolder(path);
+    }
+
+    @Test
+    public void testGetLoadsAround() throws Exception {
+        final Playlist instance = newTestInstance(45);
+        mockBatches(1, 2, 3);
+        instance.open().get();
+
+        assertNull(instance.get(25));
+        assertEquals(path + "/item25", instance.get(25).path());
+
+        verify(browser).page(1);
+        verify(browser).page(2);
+        verify(browser).page(3);
+        verify(browser, never()).page(0);
+        verify(browser, never()).page(4);
+    }
+
+    @Test
+    public void testGetLoadsOnce() throws Exception {
+        final Playlist instance = newTestInstance(15);
+        mockBatches(0, 1);
+        instance.open().get();
+
+        instance.get(0);
+        instance.get(5);
+        instance.get(14);
+
+        verify(browser, times(1)).page(0);
+        verify(browser, times(1)).page(1);
+    }
+
+    @Test
+    public void testLoad() throws Exception {
+        final Playlist instance = newTestInstance(15);
+        mockBatches(0, 1);
+
+        assertEquals(path + "/item12", instance.load(12).get().path());
+        assertNull(instance.load(15).get());
+        assertEquals(15, instance.size());
+    }
+
+    @Test
+    public void testItemUpdate() throws Exception {
+        final Playlist instance = newTestInstance(10);
+        mockBatches(0);
+        instance.open().get();
+        instance.get(3);
+
+        captureItemListener().accept(new PropertiesChanged(path + "/item3", MediaItem1.DBUS_INTERFACE_NAME,
+            Map.of(MediaItem.NAME, new Variant<>("Renamed")), List.of()));
+
+        assertEquals("Renamed", instance.get(3).name());
+        assertEquals(ItemType.AUDIO, instance.get(3).type());
+        verify(browser, times(1)).page(0);
+    }
+
+    @Test
+    public void testNumberOfItemsResets() throws Exception {
+        final Playlist instance = newTestInstance(10);
+        mockBatches(0);
+        instance.open().get();
+        instance.get(3);
+        when(player.getCurrentFolder()).thenReturn(path);
+
+        captureFolderListener().accept(new PropertiesChanged(playerPath, MediaFolder1.DBUS_INTERFACE_NAME,
+            Map.of(MediaBrowser.NUMBER_OF_ITEMS, new Variant<>(new UInt32(5))), List.of()));
+
+        assertEquals(5, instance.size());
+        instance.get(3);
+        verify(browser, times(2)).page(0);
+    }
+
+    @Test
+    public void testNumberOfItemsOfOtherFolder() throws Exception {
+        final Playlist instance = newTestInstance(10);
+        mockBatches(0);
+        instance.open().get();
+        instance.get(3);
+        when(player.getCurrentFolder()).thenReturn(playerPath + "/Filesystem");
+
+        captureFolderListener().accept(new PropertiesChanged(playerPath, MediaFolder1.DBUS_INTERFACE_NAME,
+            Map.of(MediaBrowser.NUMBER_OF_ITEMS, new Variant<>(new UInt32(5))), List.of()));
+
+        assertEquals(10, instance.size());
+        assertEquals(path + "/item3", instance.get(3).path());
+    }
+
+    @Test
+    public void testChangesBackAfterOtherBrowser() throws Exception {
+        final AtomicReference<String> currentFolder = new AtomicReference<>(playerPath + "/Filesystem");
+        when(player.getObjectPath()).thenReturn(playerPath);
+        when(player.getCurrentFolder()).thenAnswer(i -> currentFolder.get());
+        when(player.changeFolderAsync(any(String.class))).thenAnswer(i -> {
+            currentFolder.set(i.getArgument(0));
+            return CompletableFuture.completedFuture(null);
+        });
+        when(player.subscribeSignals(any(Consumer.class))).thenReturn(subscription);
+        when(player.subscribeChildren(eq(path), any(Consumer.class))).thenReturn(subscription);
+        when(player.getPropertyAsync(MediaFolder1.DBUS_INTERFACE_NAME, MediaBrowser.NUMBER_OF_ITEMS))
+            .thenReturn(CompletableFuture.completedFuture(new UInt32(40)));
+        when(player.callFolderAsync(eq(MediaBrowser.LIST_ITEMS), any(Map.class))).thenAnswer(i -> {
+            final String folder = currentFolder.get();
+            final Map<String, Variant<?>> filter = i.getArgument(1);
+            final long start = ((UInt32) filter.get(MediaBrowser.START).getValue()).longValue();
+            final Map<DBusPath, Map<String, Variant<?>>> listed = new LinkedHashMap<>();
+            for (long n = start; n < start + 10; n++)
+                listed.put(new DBusPath(folder + "/item" + n), Map.of(MediaItem.NAME, new Variant<>("Item " + n)));
+            return CompletableFuture.completedFuture(listed);
+        });
+        final Playlist instance = new Playlist(player, new MediaBrowser(player, 10, 4, 0), path, 0, 0);
+        final MediaBrowser other = new MediaBrowser(player);
+
+        assertEquals(path + "/item3", instance.load(3).get().path());
+        other.changeFolder(playerPath + "/Filesystem/item9").get();
+        assertEquals(path + "/item25", instance.load(25).get().path());
+
+        assertEquals(path, currentFolder.get());
+        verify(player, times(2)).changeFolderAsync(path);
+    }
+
+    @Test
+    public void testClose() {
+        final Playlist instance = newTestInstance(10);
+
+        instance.close();
+
+        verify(subscription, times(2)).close();
+        verify(browser).close();
+    }
+
+    private Playlist newTestInstance(int size) {
+        when(player.subscribeSignals(any(Consumer.class))).thenReturn(subscription);
+        when(player.subscribeChildren(eq(path), any(Consumer.class))).thenReturn(subscription);
+        lenient().when(browser.changeFolder(path)).thenReturn(CompletableFuture.completedFuture(null));
+        lenient().when(player.getPropertyAsync(MediaFolder1.DBUS_INTERFACE_NAME, MediaBrowser.NUMBER_OF_ITEMS))
+            .thenReturn(CompletableFuture.completedFuture(new UInt32(size)));
+        return new Playlist(player, browser, path, 1, 1);
+    }
+
+    private void mockBatches(int... batches) {
+        when(browser.getPageSize()).thenReturn(10);
+        for (int batch : batches) {
+            final List<MediaItem> items = new ArrayList<>();
+            for (int i = batch * 10; i < batch * 10 + 10; i++)
+                items.add(new MediaItem(path + "/item" + i, "Item " + i, ItemType.AUDIO, null, true, null));
+            when(browser.page(batch)).thenReturn(CompletableFuture.completedFuture(items));
+        }
+    }
+
+    private Consumer<PropertiesChanged> captureFolderListener() {
+        final ArgumentCaptor<Consumer> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(player).subscribeSignals(captor.capture());
+        return captor.getValue();
+    }
+
+    private Consumer<PropertiesChanged> captureItemListener() {
+        final ArgumentCaptor<Consumer> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(player).subscribeChildren(eq(path), captor.capture());
+        return captor.getValue();
+    }
+
+}
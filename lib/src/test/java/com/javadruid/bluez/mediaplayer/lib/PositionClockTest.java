@@ -0,0 +1,183 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PositionClockTest {
+
+    @Mock
+    private MediaPlayer player;
+    @Mock
+    private Subscription subscription;
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    public void testPlaying() {
+        final PositionClock instance = newTestInstance("playing", 1000, 60_000);
+
+        advance(500);
+
+        assertTrue(instance.isPlaying());
+        assertEquals(1500, instance.currentPositionMillis());
+    }
+
+    @Test
+    public void testPaused() {
+        final PositionClock instance = newTestInstance("paused", 1000, 60_000);
+
+        advance(500);
+
+        assertFalse(instance.isPlaying());
+        assertEquals(1000, instance.currentPositionMillis());
+    }
+
+    @Test
+    public void testClampedToDuration() {
+        final PositionClock instance = newTestInstance("playing", 59_000, 60_000);
+
+        advance(5000);
+
+        assertEquals(60_000, instance.currentPositionMillis());
+    }
+
+    @Test
+    public void testPositionUpdate() {
+        final PositionClock instance = newTestInstance("playing", 1000, 60_000);
+        final Consumer<PropertyDelta> listener = captureListener();
+
+        advance(500);
+        listener.accept(delta(PlayerProperty.POSITION, 5000));
+        advance(100);
+
+        assertEquals(5100, instance.currentPositionMillis());
+    }
+
+    @Test
+    public void testStatusUpdate() {
+        final PositionClock instance = newTestInstance("playing", 1000, 60_000);
+        final Consumer<PropertyDelta> listener = captureListener();
+
+        advance(500);
+        listener.accept(delta(PlayerProperty.STATUS, PlayerStatus.PAUSED));
+        advance(500);
+
+        assertEquals(1500, instance.currentPositionMillis());
+    }
+
+    @Test
+    public void testTrackChange() {
+        final PositionClock instance = newTestInstance("playing", 30_000, 60_000);
+        final Consumer<PropertyDelta> listener = captureListener();
+
+        listener.accept(delta(PlayerProperty.TRACK, track(10_000)));
+        advance(200);
+
+        assertEquals(200, instance.currentPositionMillis());
+    }
+
+    @Test
+    public void testSameTrackResent() {
+        final PositionClock instance = newTestInstance("playing", 30_000, 60_000);
+        final Consumer<PropertyDelta> listener = captureListener();
+
+        advance(200);
+        listener.accept(delta(PlayerProperty.TRACK, track(60_000)));
+
+        assertEquals(30_200, instance.currentPositionMillis());
+    }
+
+    @Test
+    public void testTrackChangeWithPosition() {
+        final PositionClock instance = newTestInstance("playing", 30_000, 60_000);
+        final Consumer<PropertyDelta> listener = captureListener();
+
+        listener.accept(delta(PlayerProperty.POSITION, 1000, PlayerProperty.TRACK, track(10_000)));
+        advance(200);
+
+        assertEquals(1200, instance.currentPositionMillis());
+    }
+
+    @Test
+    public void testSignalDuringSnapshot() {
+        when(player.subscribeDeltas(any(Consumer.class))).thenReturn(subscription);
+        when(player.snapshot()).thenAnswer(i -> {
+            captureListener().accept(delta(PlayerProperty.POSITION, 5000, PlayerProperty.STATUS, PlayerStatus.PAUSED));
+            return new PlayerState(null, null, null, null, null, 1000, null, null,
+                null, null, "playing", null, track(60_000), null);
+        });
+        final PositionClock instance = new PositionClock(player, now::get);
+
+        advance(500);
+
+        assertFalse(instance.isPlaying());
+        assertEquals(5000, instance.currentPositionMillis());
+    }
+
+    @Test
+    public void testSnapshotFailure() {
+        when(player.subscribeDeltas(any(Consumer.class))).thenReturn(subscription);
+        when(player.snapshot()).thenThrow(new RuntimeException("error"));
+
+        assertThrows(RuntimeException.class, () -> new PositionClock(player, now::get));
+        verify(subscription).close();
+    }
+
+    @Test
+    public void testClose() {
+        final PositionClock instance = newTestInstance("playing", 0, 0);
+
+        instance.close();
+
+        verify(subscription).close();
+    }
+
+    private PositionClock newTestInstance(String status, int position, long duration) {
+        when(player.subscribeDeltas(any(Consumer.class))).thenReturn(subscription);
+        when(player.snapshot()).thenReturn(new PlayerState(null, null, null, null, null, position, null, null,
+            null, null, status, null, track(duration), null));
+        return new PositionClock(player, now::get);
+    }
+
+    private Consumer<PropertyDelta> captureListener() {
+        final ArgumentCaptor<Consumer> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(player).subscribeDeltas(captor.capture());
+        return captor.getValue();
+    }
+
+    private static Track track(long duration) {
+        return new Track(null, 0, null, null, Duration.ofMillis(duration), null, 0);
+    }
+
+    private static PropertyDelta delta(Object... propertiesAndValues) {
+        final Object[] values = new Object[PlayerProperty.values().size()];
+        int changed = 0;
+        for (int i = 0; i < propertiesAndValues.length; i += 2) {
+            final PlayerProperty<?> property = (PlayerProperty<?>) propertiesAndValues[i];
+            values[property.ordinal()] = propertiesAndValues[i + 1];
+            changed |= 1 << property.ordinal();
+        }
+        return new PropertyDelta(values, changed);
+    }
+
+    private void advance(long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.freedesktop.dbus.DBusMap;
+import org.freedesktop.dbus.types.UInt32;
+import org.freedesktop.dbus.types.Variant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class PropertyChangeCoalescerTest {
+
+    private static final Duration window = Duration.ofMillis(100);
+
+    @Mock
+    private ScheduledExecutorService scheduler;
+    @Mock
+    private ScheduledFuture<?> future;
+
+    private final List<Map<String, Object>> deltas = new ArrayList<>();
+
+    @Test
+    public void testBurstMerged() {
+        doReturn(future).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        final PropertyChangeCoalescer instance = new PropertyChangeCoalescer(window, scheduler, deltas::add);
+
+        instance.accept(Map.entry(MediaPlayer.POSITION, new UInt32(1)));
+        instance.accept(Map.entry(MediaPlayer.STATUS, "playing"));
+        instance.accept(Map.entry(MediaPlayer.POSITION, new UInt32(2)));
+        captureFlush().run();
+
+        assertEquals(List.of(Map.of(MediaPlayer.POSITION, new UInt32(2), MediaPlayer.STATUS, "playing")), deltas);
+        verify(scheduler, times(1)).schedule(any(Runnable.class), eq(window.toNanos()), eq(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void testUnchangedDropped() {
+        doReturn(future).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        final PropertyChangeCoalescer instance = new PropertyChangeCoalescer(window, scheduler, deltas::add);
+
+        instance.accept(Map.entry(MediaPlayer.STATUS, "playing"));
+        instance.flush();
+        instance.accept(Map.entry(MediaPlayer.STATUS, "playing"));
+        instance.flush();
+
+        assertEquals(List.of(Map.of(MediaPlayer.STATUS, "playing")), deltas);
+    }
+
+    @Test
+    public void testSameTrackDropped() {
+        doReturn(future).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        final PropertyChangeCoalescer instance = new PropertyChangeCoalescer(window, scheduler, deltas::add);
+
+        instance.accept(Map.entry(MediaPlayer.TRACK, track("title")));
+        instance.flush();
+        instance.accept(Map.entry(MediaPlayer.TRACK, track("title")));
+        instance.flush();
+        instance.accept(Map.entry(MediaPlayer.TRACK, track("other")));
+        instance.flush();
+
+        assertEquals(2, deltas.size());
+    }
+
+    @Test
+    public void testClose() {
+        doReturn(future).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        final PropertyChangeCoalescer instance = new PropertyChangeCoalescer(window, scheduler, deltas::add);
+
+        instance.accept(Map.entry(MediaPlayer.STATUS, "playing"));
+        instance.close();
+        instance.flush();
+
+        assertTrue(deltas.isEmpty());
+        verify(future).cancel(false);
+    }
+
+    private Runnable captureFlush() {
+        final ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(captor.capture(), anyLong(), any(TimeUnit.class));
+        return captor.getValue();
+    }
+
+    private static DBusMap<String, Variant<?>> track(String title) {
+        return new DBusMap<>(new Object[][]{
+            {"Title", new Variant<>(title)},
+            {"Duration", new Variant<>(new UInt32(1000))}
+        });
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaPlayer1;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.DBusSigHandler;
+import org.freedesktop.dbus.interfaces.Properties;
+import org.freedesktop.dbus.interfaces.Properties.PropertiesChanged;
+import org.freedesktop.dbus.types.Variant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class PropertyChangeDispatcherTest {
+
+    private static final String signalPath = "/org/bluez/hci0/dev_00_00_00_00_00_00/player0";
+
+    @Mock
+    private DBusConnection connection;
+    @Mock
+    private Properties properties;
+
+    @Test
+    public void testSingleRegistration() throws DBusException {
+        final PropertyChangeDispatcher instance = new PropertyChangeDispatcher(connection, properties);
+        instance.subscribe(s -> {});
+        instance.subscribe(s -> {});
+
+        assertEquals(2, instance.size());
+        verify(connection, times(1)).addSigHandler(same(PropertiesChanged.class), eq(properties), any(DBusSigHandler.class));
+    }
+
+    @Test
+    public void testAllListenersReceive() throws DBusException {
+        final List<PropertiesChanged> first = new ArrayList<>();
+        final List<PropertiesChanged> second = new ArrayList<>();
+        final PropertyChangeDispatcher instance = new PropertyChangeDispatcher(connection, properties);
+        instance.subscribe(first::add);
+        instance.subscribe(second::add);
+
+        final PropertiesChanged signal = signal();
+        captureHandler().handle(signal);
+
+        assertEquals(List.of(signal), first);
+        assertEquals(List.of(signal), second);
+    }
+
+    @Test
+    public void testFailingListenerDoesNotStopOthers() throws DBusException {
+        final List<PropertiesChanged> received = new ArrayList<>();
+        final PropertyChangeDispatcher instance = new PropertyChangeDispatcher(connection, properties);
+        instance.subscribe(s -> {
+            throw new IllegalStateException();
+        });
+        instance.subscribe(received::add);
+
+        captureHandler().handle(signal());
+
+        assertEquals(1, received.size());
+    }
+
+    @Test
+    public void testListenerExecutor() throws DBusException {
+        final List<Runnable> tasks = new ArrayList<>();
+        final List<PropertiesChanged> received = new ArrayList<>();
+        final PropertyChangeDispatcher instance = new PropertyChangeDispatcher(connection, properties);
+        instance.subscribe(received::add, tasks::add);
+
+        captureHandler().handle(signal());
+        captureHandler().handle(signal());
+
+        assertTrue(received.isEmpty());
+        assertEquals(1, tasks.size());
+        tasks.get(0).run();
+        assertEquals(2, received.size());
+    }
+
+    @Test
+    public void testUnsubscribe() throws DBusException {
+        final PropertyChangeDispatcher instance = new PropertyChangeDispatcher(connection, properties);
+        final Subscription first = instance.subscribe(s -> {});
+        final Subscription second = instance.subscribe(s -> {});
+
+        first.close();
+        verify(connection, never()).removeSigHandler(same(PropertiesChanged.class), eq(properties), any(DBusSigHandler.class));
+        second.close();
+        second.close();
+        verify(connection, times(1)).removeSigHandler(same(PropertiesChanged.class), eq(properties), any(DBusSigHandler.class));
+        assertEquals(0, instance.size());
+    }
+
+    private DBusSigHandler<PropertiesChanged> captureHandler() throws DBusException {
+        final ArgumentCaptor<DBusSigHandler> captor = ArgumentCaptor.forClass(DBusSigHandler.class);
+        verify(connection).addSigHandler(same(PropertiesChanged.class), eq(properties), captor.capture());
+        return captor.getValue();
+    }
+
+    private static PropertiesChanged signal() throws DBusException {
+        return new PropertiesChanged(signalPath, MediaPlayer1.DBUS_INTERFACE_NAME,
+            Map.of(MediaPlayer.STATUS, new Variant<>("playing")), List.of());
+    }
+
+}
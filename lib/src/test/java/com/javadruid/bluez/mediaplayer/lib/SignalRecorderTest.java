@@ -0,0 +1,289 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaPlayer1;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.freedesktop.dbus.DBusAsyncReply;
+import org.freedesktop.dbus.DBusMap;
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.Properties;
+import org.freedesktop.dbus.interfaces.Properties.PropertiesChanged;
+import org.freedesktop.dbus.messages.MethodCall;
+import org.freedesktop.dbus.types.UInt32;
+import org.freedesktop.dbus.types.Variant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class SignalRecorderTest {
+
+    private static final String signalPath = "/org/bluez/hci0/dev_00_00_00_00_00_00/player0";
+
+    @TempDir
+    private Path directory;
+    @Mock
+    private DBusConnection connection;
+    @Mock
+    private MediaPlayer1 remoteObject;
+    @Mock
+    private Properties properties;
+    @Mock
+    private DBusAsyncReply reply;
+    @Mock
+    private MethodCall call;
+
+    private SignalRecorder recorder;
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        if (recorder != null)
+            recorder.close();
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final Path file = directory.resolve("signals.bin");
+        recorder = SignalRecorder.start(file);
+        assertTrue(SignalRecorder.isRecording());
+        final Map<String, Variant<?>> track = new LinkedHashMap<>();
+        track.put("Title", new Variant<>("Title"));
+        track.put("Duration", new Variant<>(new UInt32(180_000)));
+        SignalRecorder.signal(new PropertiesChanged(signalPath, MediaPlayer1.DBUS_INTERFACE_NAME, Map.of(
+            MediaPlayer.TRACK, new Variant<>(track, "a{sv}")), List.of(MediaPlayer.POSITION)));
+        SignalRecorder.command(signalPath, "Set", new Object[]{MediaPlayer1.DBUS_INTERFACE_NAME, MediaPlayer.REPEAT, new Variant<>("off")});
+        SignalRecorder.command(signalPath, MediaPlayer.PRESS, new Object[]{(byte) 0x44});
+        recorder.close();
+        assertFalse(SignalRecorder.isRecording());
+
+        final List<Object> records = new ArrayList<>();
+        try (SignalReplayer replayer = new SignalReplayer(file)) {
+            assertEquals(3, replayer.forEach(new SignalReplayer.Listener() {
+                @Override
+                public void propertiesChanged(long nanos, String path, String interfaceName, Map<String, Object> changed, List<String> invalidated) {
+                    records.add(List.of(path, interfaceName, changed, invalidated));
+                }
+
+                @Override
+                public void command(long nanos, String path, String member, List<Object> arguments) {
+                    records.add(List.of(path, member, arguments));
+                }
+            }));
+        }
+
+        assertEquals(List.of(
+            List.of(signalPath, MediaPlayer1.DBUS_INTERFACE_NAME, Map.of(MediaPlayer.TRACK, track), List.of(MediaPlayer.POSITION)),
+            List.of(signalPath, "Set", List.of(MediaPlayer1.DBUS_INTERFACE_NAME, MediaPlayer.REPEAT, "off")),
+            List.of(signalPath, MediaPlayer.PRESS, List.of((byte) 0x44))), records);
+    }
+
+    @Test
+    public void testRoundTripDBusMap() throws Exception {
+        final Path file = directory.resolve("signals.bin");
+        recorder = new SignalRecorder(file, SignalRecorder.DEFAULT_MAX_SIZE, 256);
+        final Map<String, Variant<?>> changed = new DBusMap<>(new Object[][]{
+            {MediaPlayer.STATUS, new Variant<>("playing")},
+            {MediaPlayer.POSITION, new Variant<>(new UInt32(42))}
+        });
+        recorder.record(new PropertiesChanged(signalPath, MediaPlayer1.DBUS_INTERFACE_NAME, changed, List.of()));
+        recorder.close();
+
+        final List<Map<String, Object>> replayed = new ArrayList<>();
+        try (SignalReplayer replayer = new SignalReplayer(file)) {
+            replayer.forEach(new SignalReplayer.Listener() {
+                @Override
+                public void propertiesChanged(long nanos, String path, String interfaceName, Map<String, Object> changed, List<String> invalidated) {
+                    replayed.add(changed);
+                }
+            });
+        }
+
+        assertEquals(List.of(Map.of(MediaPlayer.STATUS, "playing", MediaPlayer.POSITION, new UInt32(42))), replayed);
+    }
+
+    @Test
+    public void testGrowsAcrossRegions() throws Exception {
+        final Path file = directory.resolve("signals.bin");
+        recorder = new SignalRecorder(file, SignalRecorder.DEFAULT_MAX_SIZE, 256);
+        for (int i = 0; i < 1000; i++)
+            recorder.record(signal(i));
+        final long size = recorder.size();
+        recorder.close();
+
+        final List<Object> positions = new ArrayList<>();
+        try (SignalReplayer replayer = new SignalReplayer(file)) {
+            assertEquals(1000, replayer.forEach(new SignalReplayer.Listener() {
+                @Override
+                public void propertiesChanged(long nanos, String path, String interfaceName, Map<String, Object> changed, List<String> invalidated) {
+                    positions.add(((UInt32) changed.get(MediaPlayer.POSITION)).intValue());
+                }
+            }));
+        }
+        assertEquals(size, Files.size(file));
+        assertEquals(999, positions.get(999));
+    }
+
+    @Test
+    public void testVaryingSignalSizes() throws Exception {
+        final Path file = directory.resolve("signals.bin");
+        recorder = new SignalRecorder(file, SignalRecorder.DEFAULT_MAX_SIZE, 256);
+        recorder.record(signal(20, 0));
+        recorder.record(signal(10, 15));
+        recorder.record(signal(12, 0));
+        recorder.close();
+
+        final List<Integer> sizes = new ArrayList<>();
+        try (SignalReplayer replayer = new SignalReplayer(file)) {
+            replayer.forEach(new SignalReplayer.Listener() {
+                @Override
+                public void propertiesChanged(long nanos, String path, String interfaceName, Map<String, Object> changed, List<String> invalidated) {
+                    sizes.add(changed.size());
+                    sizes.add(invalidated.size());
+                }
+            });
+        }
+        assertEquals(List.of(20, 0, 10, 15, 12, 0), sizes);
+    }
+
+    @Test
+    public void testStopsAtSizeLimit() throws Exception {
+        final Path file = directory.resolve("signals.bin");
+        recorder = new SignalRecorder(file, 1024, 256);
+        for (int i = 0; i < 1000; i++)
+            recorder.record(signal(i));
+
+        assertEquals(-1, recorder.size());
+        assertTrue(Files.size(file) <= 1024);
+        try (SignalReplayer replayer = new SignalReplayer(file)) {
+            final long count = replayer.forEach(new SignalReplayer.Listener() {});
+            assertTrue(count > 0 && count < 1000);
+        }
+    }
+
+    @Test
+    public void testIgnoresTornRecord() throws Exception {
+        final Path file = directory.resolve("signals.bin");
+        recorder = new SignalRecorder(file, SignalRecorder.DEFAULT_MAX_SIZE, 256);
+        recorder.record(signal(1));
+        recorder.close();
+        Files.write(file, new byte[]{0, 0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (SignalReplayer replayer = new SignalReplayer(file)) {
+            assertEquals(1, replayer.forEach(new SignalReplayer.Listener() {}));
+        }
+    }
+
+    @Test
+    public void testRejectsOtherFiles() throws Exception {
+        final Path file = Files.writeString(directory.resolve("other.txt"), "not a recording");
+
+        assertThrows(IOException.class, () -> new SignalReplayer(file));
+    }
+
+    @Test
+    public void testRecordsPlayerCommands() throws Exception {
+        when(connection.getRemoteObject(MediaPlayer1.BUS_NAME, signalPath, MediaPlayer1.class)).thenReturn(remoteObject);
+        when(connection.getRemoteObject(MediaPlayer1.BUS_NAME, signalPath, Properties.class)).thenReturn(properties);
+        when(connection.callMethodAsync(remoteObject, MediaPlayer.NEXT)).thenReturn(reply);
+        when(reply.getCall()).thenReturn(call);
+        final Path file = directory.resolve("signals.bin");
+        recorder = SignalRecorder.start(file);
+
+        new MediaPlayer(connection, signalPath).next();
+        recorder.close();
+
+        final List<String> members = new ArrayList<>();
+        try (SignalReplayer replayer = new SignalReplayer(file)) {
+            replayer.forEach(new SignalReplayer.Listener() {
+                @Override
+                public void command(long nanos, String path, String member, List<Object> arguments) {
+                    members.add(member);
+                }
+            });
+        }
+        assertEquals(List.of(MediaPlayer.NEXT), members);
+    }
+
+    @Test
+    public void testReplay() throws Exception {
+        when(connection.getRemoteObject(MediaPlayer1.BUS_NAME, signalPath, MediaPlayer1.class)).thenReturn(remoteObject);
+        when(connection.getRemoteObject(MediaPlayer1.BUS_NAME, signalPath, Properties.class)).thenReturn(properties);
+        final Path file = directory.resolve("signals.bin");
+        recorder = new SignalRecorder(file, SignalRecorder.DEFAULT_MAX_SIZE, 256);
+        recorder.record(new PropertiesChanged(signalPath, MediaPlayer1.DBUS_INTERFACE_NAME, Map.of(
+            MediaPlayer.STATUS, new Variant<>("paused")), List.of()));
+        recorder.record(new PropertiesChanged("/org/bluez/hci0/dev_00_00_00_00_00_01/player0", MediaPlayer1.DBUS_INTERFACE_NAME, Map.of(
+            MediaPlayer.STATUS, new Variant<>("playing")), List.of()));
+        recorder.record(new PropertiesChanged(signalPath, MediaPlayer1.DBUS_INTERFACE_NAME, Map.of(
+            MediaPlayer.DEVICE, new Variant<>(new DBusPath("/org/bluez/hci0/dev_00_00_00_00_00_00"))), List.of()));
+        recorder.close();
+        final MediaPlayer player = new MediaPlayer(connection, signalPath);
+        final List<Map.Entry<String, Object>> received = new ArrayList<>();
+        player.subscribe(received::add);
+
+        try (SignalReplayer replayer = new SignalReplayer(file)) {
+            assertEquals(2, replayer.replay(path -> signalPath.equals(path)? player: null, true));
+        }
+
+        assertEquals(List.of(
+            Map.entry(MediaPlayer.STATUS, "paused"),
+            Map.entry(MediaPlayer.DEVICE, new DBusPath("/org/bluez/hci0/dev_00_00_00_00_00_00"))), received);
+    }
+
+    @Test
+    public void testReplayNotRecorded() throws Exception {
+        when(connection.getRemoteObject(MediaPlayer1.BUS_NAME, signalPath, MediaPlayer1.class)).thenReturn(remoteObject);
+        when(connection.getRemoteObject(MediaPlayer1.BUS_NAME, signalPath, Properties.class)).thenReturn(properties);
+        final Path file = directory.resolve("signals.bin");
+        recorder = new SignalRecorder(file, SignalRecorder.DEFAULT_MAX_SIZE, 256);
+        recorder.record(signal(1));
+        recorder.close();
+        final MediaPlayer player = new MediaPlayer(connection, signalPath);
+        final Path copy = directory.resolve("copy.bin");
+        recorder = SignalRecorder.start(copy);
+        final long signals = MediaPlayerMetrics.INSTANCE.getSignalCount();
+
+        try (SignalReplayer replayer = new SignalReplayer(file)) {
+            assertEquals(1, replayer.replay(path -> player, false));
+        }
+        recorder.close();
+
+        assertEquals(signals, MediaPlayerMetrics.INSTANCE.getSignalCount());
+        try (SignalReplayer replayer = new SignalReplayer(copy)) {
+            assertEquals(0, replayer.forEach(new SignalReplayer.Listener() {}));
+        }
+    }
+
+    private static PropertiesChanged signal(int changed, int removed) throws DBusException {
+        final Map<String, Variant<?>> properties = new LinkedHashMap<>();
+        for (int i = 0; i < changed; i++)
+            properties.put("Changed" + i, new Variant<>(new UInt32(i)));
+        final List<String> invalidated = new ArrayList<>();
+        for (int i = 0; i < removed; i++)
+            invalidated.add("Removed" + i);
+        return new PropertiesChanged(signalPath, MediaPlayer1.DBUS_INTERFACE_NAME, properties, invalidated);
+    }
+
+    private static PropertiesChanged signal(int position) throws DBusException {
+        return new PropertiesChanged(signalPath, MediaPlayer1.DBUS_INTERFACE_NAME, Map.of(
+            MediaPlayer.POSITION, new Variant<>(new UInt32(position))), List.of());
+    }
+
+}
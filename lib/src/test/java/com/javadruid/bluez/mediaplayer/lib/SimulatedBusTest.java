@@ -0,0 +1,178 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import com.javadruid.bluez.mediaplayer.sim.SimulatedBluez;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Calls made over a private bus to {@link SimulatedBluez}, so that the
+ * arguments go through dbus-java's method lookup and marshalling, which the
+ * mocked connection of the other tests skips.
+ */
+public class SimulatedBusTest {
+
+    private static final long TIMEOUT = 5;
+
+    private SimulatedBluez bluez;
+    private MediaPlayerManager manager;
+    private MediaPlayer player;
+    private ScheduledExecutorService scheduler;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        bluez = new SimulatedBluez(1);
+        manager = new MediaPlayerManager(bluez.connect());
+        player = manager.getMediaPlayers().findFirst().orElseThrow();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        scheduler.shutdownNow();
+        try {
+            manager.close();
+        } finally {
+            bluez.close();
+        }
+    }
+
+    @Test
+    public void testPress() {
+        player.press((byte) 0x44);
+
+        assertEquals(List.of("Press 68"), bluez.getKeyEvents(0));
+    }
+
+    @Test
+    public void testHold() {
+        player.hold((byte) 0x44);
+
+        assertEquals(List.of("Hold 68"), bluez.getKeyEvents(0));
+    }
+
+    @Test
+    public void testPressAsync() throws Exception {
+        player.async().press((byte) 0x44).get(TIMEOUT, TimeUnit.SECONDS);
+
+        assertEquals(List.of("Press 68"), bluez.getKeyEvents(0));
+    }
+
+    @Test
+    public void testHoldAsync() throws Exception {
+        player.async().hold((byte) 0x44).get(TIMEOUT, TimeUnit.SECONDS);
+
+        assertEquals(List.of("Hold 68"), bluez.getKeyEvents(0));
+    }
+
+    @Test
+    public void testSetEqualizer() {
+        player.setEqualizer("on");
+
+        assertEquals(Optional.of("on"), player.getEqualizer());
+    }
+
+    @Test
+    public void testSetEqualizerAsync() throws Exception {
+        player.async().setEqualizer("on").get(TIMEOUT, TimeUnit.SECONDS);
+
+        assertEquals(Optional.of("on"), player.getEqualizer());
+    }
+
+    @Test
+    public void testSet() {
+        player.set(PlayerProperty.REPEAT, RepeatMode.ALL_TRACKS);
+
+        assertEquals(Optional.of(RepeatMode.ALL_TRACKS), player.get(PlayerProperty.REPEAT));
+    }
+
+    @Test
+    public void testSetAsync() throws Exception {
+        player.async().set(PlayerProperty.SCAN, ScanMode.ALL_TRACKS).get(TIMEOUT, TimeUnit.SECONDS);
+
+        assertEquals(Optional.of(ScanMode.ALL_TRACKS), player.get(PlayerProperty.SCAN));
+    }
+
+    @Test
+    public void testGroupSet() throws Exception {
+        final List<PlayerGroup.Result> results = new PlayerGroup(List.of(player))
+            .set(PlayerProperty.SHUFFLE, ShuffleMode.GROUP)
+            .get(TIMEOUT, TimeUnit.SECONDS);
+
+        assertTrue(results.getFirst().isOk(), () -> String.valueOf(results.getFirst().error()));
+        assertEquals(Optional.of(ShuffleMode.GROUP), player.get(PlayerProperty.SHUFFLE));
+    }
+
+    @Test
+    public void testListItems() throws Exception {
+        try (MediaBrowser browser = new MediaBrowser(player, 50, 4)) {
+            final List<MediaItem> items = browser.page(1).get(TIMEOUT, TimeUnit.SECONDS);
+
+            assertEquals(50, items.size());
+            assertEquals("Item 50", items.getFirst().name());
+        }
+    }
+
+    @Test
+    public void testSearch() throws Exception {
+        try (MediaBrowser browser = new MediaBrowser(player, 5, 4)) {
+            final CompletableFuture<List<String>> names = new CompletableFuture<>();
+            browser.search("Item 11").subscribe(new Flow.Subscriber<>() {
+                private final List<String> received = new ArrayList<>();
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(MediaItem item) {
+                    received.add(item.name());
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    names.completeExceptionally(error);
+                }
+
+                @Override
+                public void onComplete() {
+                    names.complete(received);
+                }
+            });
+
+            assertEquals(List.of("Item 11", "Item 110", "Item 111", "Item 112", "Item 113", "Item 114",
+                "Item 115", "Item 116", "Item 117", "Item 118", "Item 119"), names.get(TIMEOUT, TimeUnit.SECONDS));
+            assertEquals(player.getObjectPath() + "/Search", browser.getFolder());
+        }
+    }
+
+    @Test
+    public void testSetVolume() throws Exception {
+        try (MediaTransport transport = manager.getTransport(player, Duration.ZERO, scheduler).orElseThrow()) {
+            final CompletableFuture<Object> changed = new CompletableFuture<>();
+            transport.subscribe(e -> {
+                if (MediaTransport.VOLUME.equals(e.getKey()))
+                    changed.complete(e.getValue());
+            });
+
+            transport.setVolume(42);
+
+            changed.get(TIMEOUT, TimeUnit.SECONDS);
+            assertEquals(Optional.of(42), transport.getVolume());
+        }
+    }
+
+}
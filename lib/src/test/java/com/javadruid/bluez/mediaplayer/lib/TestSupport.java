@@ -0,0 +1,73 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.interfaces.Properties.PropertiesChanged;
+import org.freedesktop.dbus.types.Variant;
+
+/**
+ * Access to package-private parts of the library for the benchmarks and the
+ * simulated service runs, which live outside this package. Shipped in the
+ * test jar of this module, together with the simulator, and not in the
+ * library itself.
+ */
+public final class TestSupport {
+
+    private TestSupport() {
+    }
+
+    /**
+     * A manager using {@code connection}, which need not be the system bus.
+     */
+    public static MediaPlayerManager newManager(DBusConnection connection) {
+        return new MediaPlayerManager(connection);
+    }
+
+    /**
+     * A manager spreading its players over {@code connections}.
+     */
+    public static MediaPlayerManager newManager(List<DBusConnection> connections) {
+        return new MediaPlayerManager(connections);
+    }
+
+    /**
+     * A manager opening its connections, again after they are lost, with
+     * {@code connector}.
+     */
+    public static MediaPlayerManager newManager(Supplier<List<DBusConnection>> connector) {
+        return new MediaPlayerManager(connector);
+    }
+
+    public static DBusConnection primaryConnection(MediaPlayerManager manager) {
+        return manager.primaryConnection();
+    }
+
+    /**
+     * Hands {@code signal} to {@code player} as its signal handler does:
+     * recorded by a running {@link SignalRecorder}, counted in the metrics
+     * and delivered to the subscribers.
+     */
+    public static void dispatch(MediaPlayer player, PropertiesChanged signal) {
+        SignalRecorder.signal(signal);
+        MediaPlayerMetrics.INSTANCE.signal(signal.getPropertiesChanged().keySet());
+        player.inject(signal);
+    }
+
+    public static Map.Entry<String, Object> toObjectEntry(Map.Entry<String, Variant<?>> entry) {
+        return MediaPlayer.toObjectEntry(entry);
+    }
+
+    public static Track toTrack(Map<String, Variant<?>> track) {
+        return MediaPlayer.toTrack(track);
+    }
+
+    /**
+     * Recoveries of every manager so far, failed ones counted as errors.
+     */
+    public static CallStatistics recoveries() {
+        return MediaPlayerMetrics.INSTANCE.getRecoveries();
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import java.time.Duration;
+import java.util.Map;
+import org.freedesktop.dbus.DBusMap;
+import org.freedesktop.dbus.ObjectPath;
+import org.freedesktop.dbus.types.UInt32;
+import org.freedesktop.dbus.types.Variant;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class TrackDecoderTest {
+
+    private static final String item = "/org/bluez/hci0/dev_00_00_00_00_00_00/player0/NowPlaying/item1";
+
+    @Test
+    public void testDecode() {
+        final TrackDecoder instance = new TrackDecoder();
+
+        final Track result = instance.decode(track("title", 3));
+
+        assertEquals("title", result.title());
+        assertEquals("artist", result.artist());
+        assertEquals(3, result.trackNumber());
+        assertEquals(215, result.duration().toSeconds());
+        assertNull(instance.decode(null));
+    }
+
+    @Test
+    public void testMetadata() {
+        final TrackDecoder instance = new TrackDecoder();
+        final DBusMap<String, Variant<?>> dict = track("title", 3);
+
+        final Map<String, Object> result = instance.metadata(dict);
+
+        assertEquals(new ObjectPath("source", item), result.get("Item"));
+        assertEquals("1234567", result.get("ImgHandle"));
+        assertEquals("title", result.get(TrackDecoder.TITLE));
+        assertEquals(new UInt32(3), result.get(TrackDecoder.TRACK_NUMBER));
+        instance.decode(dict);
+        assertSame(result, instance.metadata(track("title", 3)));
+        assertNull(instance.metadata(null));
+    }
+
+    @Test
+    public void testUnchangedReused() {
+        final TrackDecoder instance = new TrackDecoder();
+        final DBusMap<String, Variant<?>> dict = track("title", 3);
+
+        final Track first = instance.decode(dict);
+
+        assertSame(first, instance.decode(dict));
+        assertSame(first, instance.decode(track("title", 3)));
+        assertNotSame(first, instance.decode(track("title", 4)));
+    }
+
+    @Test
+    public void testStringsShared() {
+        final Track first = TrackDecoder.decodeOnce(track(new String("title"), 3));
+        final Track second = TrackDecoder.decodeOnce(track(new String("title"), 4));
+
+        assertSame(first.title(), second.title());
+        assertSame(first.artist(), second.artist());
+    }
+
+    @Test
+    public void testMissingEntries() {
+        final Track result = TrackDecoder.decodeOnce(Map.of(TrackDecoder.TITLE, new Variant<>("title")));
+
+        assertEquals(new Track(null, 0, "title", null, Duration.ZERO, null, 0), result);
+    }
+
+    private static DBusMap<String, Variant<?>> track(String title, int trackNumber) {
+        return new DBusMap<>(new Object[][]{
+            {"Title", new Variant<>(title)},
+            {"Artist", new Variant<>(new String("artist"))},
+            {"TrackNumber", new Variant<>(new UInt32(trackNumber))},
+            {"Duration", new Variant<>(new UInt32(215_000))},
+            {"Item", new Variant<>(new ObjectPath("source", item))},
+            {"ImgHandle", new Variant<>("1234567")}
+        });
+    }
+
+}
@@ -0,0 +1,181 @@
+package com.javadruid.bluez.mediaplayer.lib;
+
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaPlayer1;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.freedesktop.dbus.DBusMap;
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.interfaces.Properties.PropertiesChanged;
+import org.freedesktop.dbus.types.Variant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class TrackHistoryTest {
+
+    private static final String signalPath = "/org/bluez/hci0/dev_00_00_00_00_00_00/player0";
+    private static final String device = "/org/bluez/hci0/dev_00_00_00_00_00_00";
+
+    @Mock
+    private MediaPlayer player;
+    @Mock
+    private Subscription subscription;
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    public void testInitialTrack() {
+        final TrackHistory instance = newTestInstance("playing", track("First"));
+
+        advance(1000);
+
+        assertEquals(1, instance.size());
+        final TrackHistory.Entry entry = instance.get(0);
+        assertEquals("First", entry.track().title());
+        assertEquals(device, entry.device());
+        assertNull(entry.stopped());
+        assertEquals(Duration.ofSeconds(1), entry.played());
+    }
+
+    @Test
+    public void testTrackChange() throws DBusException {
+        final TrackHistory instance = newTestInstance("playing", track("First"));
+        final Consumer<PropertiesChanged> listener = captureListener();
+
+        advance(1000);
+        listener.accept(signal(MediaPlayer.TRACK, trackValue("Second")));
+        advance(500);
+
+        assertEquals(2, instance.size());
+        assertEquals("Second", instance.get(0).track().title());
+        assertEquals(Duration.ofMillis(500), instance.get(0).played());
+        final TrackHistory.Entry first = instance.get(1);
+        assertEquals("First", first.track().title());
+        assertEquals(Duration.ofSeconds(1), first.played());
+        assertEquals(Duration.ofSeconds(1), Duration.between(first.started(), first.stopped()));
+        assertEquals(first.stopped(), instance.get(0).started());
+    }
+
+    @Test
+    public void testPlayedExcludesPauses() throws DBusException {
+        final TrackHistory instance = newTestInstance("playing", track("First"));
+        final Consumer<PropertiesChanged> listener = captureListener();
+
+        advance(1000);
+        listener.accept(signal(MediaPlayer.STATUS, "paused"));
+        advance(5000);
+        listener.accept(signal(MediaPlayer.STATUS, "playing"));
+        advance(250);
+        listener.accept(signal(MediaPlayer.TRACK, trackValue("Second")));
+        advance(100);
+
+        final TrackHistory.Entry first = instance.get(1);
+        assertEquals(Duration.ofMillis(1250), first.played());
+        assertEquals(Duration.ofMillis(6250), Duration.between(first.started(), first.stopped()));
+    }
+
+    @Test
+    public void testMetadataUpdateKeepsEntry() throws DBusException {
+        final TrackHistory instance = newTestInstance("playing", track("First"));
+        final Consumer<PropertiesChanged> listener = captureListener();
+
+        listener.accept(signal(MediaPlayer.TRACK, new Variant<>(new DBusMap<String, Variant<?>>(new Object[][]{
+            {"Title", new Variant<>("First")},
+            {"Genre", new Variant<>("Genre")}
+        }), "a{sv}")));
+
+        assertEquals(1, instance.size());
+        assertEquals("Genre", instance.get(0).track().genre());
+    }
+
+    @Test
+    public void testWrapsAround() throws DBusException {
+        final TrackHistory instance = newTestInstance("paused", null);
+        final Consumer<PropertiesChanged> listener = captureListener();
+
+        for (int i = 0; i < 5; i++)
+            listener.accept(signal(MediaPlayer.TRACK, trackValue("Track " + i)));
+
+        assertEquals(3, instance.size());
+        final List<String> titles = new ArrayList<>();
+        instance.forEach(e -> titles.add(e.track().title()));
+        assertEquals(List.of("Track 4", "Track 3", "Track 2"), titles);
+        assertEquals("Track 4", instance.latest().get().track().title());
+        assertThrows(IndexOutOfBoundsException.class, () -> instance.get(3));
+    }
+
+    @Test
+    public void testIgnoresOtherSignals() throws DBusException {
+        final TrackHistory instance = newTestInstance("paused", null);
+        final Consumer<PropertiesChanged> listener = captureListener();
+
+        listener.accept(new PropertiesChanged(signalPath, "org.bluez.MediaFolder1",
+            Map.of(MediaPlayer.TRACK, trackValue("Folder")), List.of()));
+        listener.accept(signal(MediaPlayer.DEVICE, new DBusPath("/org/bluez/hci0/dev_00_00_00_00_00_01")));
+        listener.accept(signal(MediaPlayer.TRACK, trackValue("Second")));
+
+        assertEquals(1, instance.size());
+        assertEquals("/org/bluez/hci0/dev_00_00_00_00_00_01", instance.get(0).device());
+        assertTrue(instance.latest().isPresent());
+    }
+
+    @Test
+    public void testClose() {
+        final TrackHistory instance = newTestInstance("paused", null);
+
+        instance.close();
+
+        verify(subscription).close();
+    }
+
+    private TrackHistory newTestInstance(String status, Track track) {
+        when(player.subscribeSignals(any(Consumer.class))).thenReturn(subscription);
+        when(player.snapshot()).thenReturn(new PlayerState(null, device, null, null, null, 0, null, null,
+            null, null, status, null, track, null));
+        return new TrackHistory(player, 3, now::get);
+    }
+
+    private Consumer<PropertiesChanged> captureListener() {
+        final ArgumentCaptor<Consumer> captor = ArgumentCaptor.forClass(Consumer.class);
+        verify(player).subscribeSignals(captor.capture());
+        when(player.decodeTrack(any())).thenAnswer(i -> MediaPlayer.toTrack(i.getArgument(0)));
+        return captor.getValue();
+    }
+
+    private void advance(long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private static Track track(String title) {
+        return new Track(null, 0, title, null, Duration.ZERO, null, 0);
+    }
+
+    private static Variant<?> trackValue(String title) {
+        return new Variant<>(new DBusMap<String, Variant<?>>(new Object[][]{
+            {"Title", new Variant<>(title)}
+        }), "a{sv}");
+    }
+
+    private static PropertiesChanged signal(String name, Object value) throws DBusException {
+        return new PropertiesChanged(signalPath, MediaPlayer1.DBUS_INTERFACE_NAME,
+            Map.of(name, value instanceof Variant<?> v? v: new Variant<>(value)), List.of());
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.javadruid.bluez.mediaplayer.sim;
+
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaFolder1;
+import java.util.Map;
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.annotations.DBusInterfaceName;
+import org.freedesktop.dbus.interfaces.DBusInterface;
+import org.freedesktop.dbus.types.Variant;
+
+/**
+ * The methods of {@code org.bluez.MediaFolder1} as exported by the
+ * simulator; see {@link BluezMediaPlayer1} for why the client side
+ * {@link MediaFolder1} cannot be exported.
+ */
+@DBusInterfaceName(MediaFolder1.DBUS_INTERFACE_NAME)
+public interface BluezMediaFolder1 extends DBusInterface {
+
+    DBusPath Search(String value, Map<String, Variant<?>> filter);
+
+    Map<DBusPath, Map<String, Variant<?>>> ListItems(Map<String, Variant<?>> filter);
+
+    void ChangeFolder(DBusPath folder);
+
+}
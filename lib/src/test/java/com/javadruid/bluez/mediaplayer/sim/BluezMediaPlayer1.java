@@ -0,0 +1,36 @@
+package com.javadruid.bluez.mediaplayer.sim;
+
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaPlayer1;
+import org.freedesktop.dbus.annotations.DBusInterfaceName;
+import org.freedesktop.dbus.interfaces.DBusInterface;
+
+/**
+ * The methods of {@code org.bluez.MediaPlayer1} as exported by the
+ * simulator. The client side {@link MediaPlayer1} also declares property
+ * accessors, which dbus-java cannot export; BlueZ serves those through
+ * {@code org.freedesktop.DBus.Properties} instead.
+ */
+@DBusInterfaceName(MediaPlayer1.DBUS_INTERFACE_NAME)
+public interface BluezMediaPlayer1 extends DBusInterface {
+
+    void FastForward();
+
+    void Hold(byte avc_key);
+
+    void Next();
+
+    void Pause();
+
+    void Play();
+
+    void Press(byte avc_key);
+
+    void Previous();
+
+    void Release();
+
+    void Rewind();
+
+    void Stop();
+
+}
@@ -0,0 +1,260 @@
+package com.javadruid.bluez.mediaplayer.sim;
+
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaPlayer1;
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaTransport1;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.bin.EmbeddedDBusDaemon;
+import org.freedesktop.dbus.connections.impl.DBusConnection;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.exceptions.DBusExecutionException;
+import org.freedesktop.dbus.interfaces.ObjectManager;
+import org.freedesktop.dbus.messages.DBusSignal;
+import org.freedesktop.dbus.types.Variant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local stand-in for the {@code org.bluez} service, for load and soak tests
+ * without Bluetooth hardware. It runs a private bus, claims
+ * {@code org.bluez} on it and exports an {@code ObjectManager} at {@code /}
+ * and any number of {@code org.bluez.MediaPlayer1} objects with their
+ * {@code Properties}, each with the {@code org.bluez.MediaTransport1} of
+ * its device.
+ * <p>
+ * Players can be made to report playback progress at a given signal rate,
+ * and every incoming call can be delayed and made to fail at random.
+ * Clients get their own connection to the bus with {@link #connect()}.
+ */
+public class SimulatedBluez implements ObjectManager, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimulatedBluez.class);
+
+    private static final long TICK_MILLIS = 10;
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(10);
+
+    private final Path socket;
+    private final String address;
+    private final EmbeddedDBusDaemon daemon;
+    private volatile DBusConnection connection;
+    private final List<SimulatedPlayer> players = new ArrayList<>();
+    private final List<SimulatedTransport> transports = new ArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread thread = new Thread(r, "simulated-bluez");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong signalsSent = new AtomicLong();
+
+    private volatile Duration latency = Duration.ZERO;
+    private volatile double errorRate;
+    private ScheduledFuture<?> signals;
+    private int nextPlayer;
+
+    /**
+     * Starts a private bus with {@code players} media players on it.
+     */
+    public SimulatedBluez(int players) throws DBusException, IOException {
+        socket = Files.createTempDirectory("bluez-sim").resolve("bus");
+        address = "unix:path=" + socket;
+        daemon = new EmbeddedDBusDaemon();
+        daemon.setAddress(address);
+        daemon.startInBackground();
+        awaitSocket();
+        try {
+            connection = connect(address);
+        } catch (DBusException ex) {
+            daemon.close();
+            throw ex;
+        }
+        try {
+            for (int i = 0; i < players; i++)
+                addPlayer(i);
+            export();
+        } catch (DBusException | RuntimeException ex) {
+            close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Opens a new client connection to the simulated bus.
+     */
+    public DBusConnection connect() throws DBusException {
+        return connect(address);
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public int getPlayerCount() {
+        return players.size();
+    }
+
+    /**
+     * The {@code Press} and {@code Hold} calls player {@code index} has
+     * received, in order, such as {@code "Press 68"}.
+     */
+    public List<String> getKeyEvents(int index) {
+        return players.get(index).keyEvents();
+    }
+
+    /**
+     * Delay added to every call made on a simulated object.
+     */
+    public void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Share of calls, between 0 and 1, that fail with an error reply.
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Emits {@code PropertiesChanged} signals at the given overall rate,
+     * spread round robin over the players, replacing any previous rate. Each
+     * signal moves a player's position on; players reaching the end of a
+     * track also change track. A rate of zero stops the signals.
+     */
+    public synchronized void setSignalRate(int signalsPerSecond) {
+        if (signals != null)
+            signals.cancel(false);
+        signals = null;
+        if (signalsPerSecond <= 0 || players.isEmpty())
+            return;
+        final double perTick = signalsPerSecond * TICK_MILLIS / 1000.0;
+        final double[] owed = {0};
+        signals = scheduler.scheduleAtFixedRate(() -> {
+            owed[0] += perTick;
+            for (; owed[0] >= 1; owed[0]--)
+                advanceNextPlayer();
+        }, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Simulates a bluetoothd restart: the service leaves the bus and comes
+     * back on a new connection, under a new unique name, exporting the same
+     * players.
+     */
+    public synchronized void restart() throws DBusException, IOException {
+        connection.close();
+        connection = connect(address);
+        export();
+    }
+
+    /**
+     * Number of {@code PropertiesChanged} signals emitted so far.
+     */
+    public long getSignalsSent() {
+        return signalsSent.get();
+    }
+
+    @Override
+    public Map<DBusPath, Map<String, Map<String, Variant<?>>>> GetManagedObjects() {
+        simulateCall();
+        final Map<DBusPath, Map<String, Map<String, Variant<?>>>> result = new HashMap<>();
+        players.forEach(p -> result.put(new DBusPath(p.getObjectPath()),
+            Map.of(MediaPlayer1.DBUS_INTERFACE_NAME, p.properties())));
+        transports.forEach(t -> result.put(new DBusPath(t.getObjectPath()),
+            Map.of(MediaTransport1.DBUS_INTERFACE_NAME, t.properties())));
+        return result;
+    }
+
+    @Override
+    public String getObjectPath() {
+        return "/";
+    }
+
+    @Override
+    public void close() throws IOException {
+        scheduler.shutdownNow();
+        try {
+            connection.close();
+        } finally {
+            daemon.close();
+            Files.deleteIfExists(socket);
+            Files.deleteIfExists(socket.getParent());
+        }
+    }
+
+    void simulateCall() {
+        final Duration delay = latency;
+        if (!delay.isZero()) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate)
+            throw new DBusExecutionException("Simulated failure");
+    }
+
+    void emit(DBusSignal signal) {
+        connection.sendMessage(signal);
+        signalsSent.incrementAndGet();
+    }
+
+    private void export() throws DBusException {
+        connection.requestBusName(MediaPlayer1.BUS_NAME);
+        connection.exportObject("/", this);
+        for (SimulatedPlayer player : players)
+            connection.exportObject(player.getObjectPath(), player);
+        for (SimulatedTransport transport : transports)
+            connection.exportObject(transport.getObjectPath(), transport);
+    }
+
+    private void addPlayer(int index) {
+        final String device = String.format("/org/bluez/hci0/dev_00_00_00_%02X_%02X_%02X",
+            (index >> 16) & 0xFF, (index >> 8) & 0xFF, index & 0xFF);
+        players.add(new SimulatedPlayer(this, device + "/player0", device));
+        transports.add(new SimulatedTransport(this, device + "/fd0", device));
+    }
+
+    private synchronized void advanceNextPlayer() {
+        final SimulatedPlayer player = players.get(nextPlayer);
+        nextPlayer = (nextPlayer + 1) % players.size();
+        try {
+            player.advance(TICK_MILLIS * 100);
+        } catch (DBusException | RuntimeException ex) {
+            logger.warn("Error emitting signal", ex);
+        }
+    }
+
+    private void awaitSocket() throws IOException {
+        final long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (!Files.exists(socket)) {
+            if (System.nanoTime() > deadline)
+                throw new IOException("Simulated bus did not start at " + address);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException(ex);
+            }
+        }
+    }
+
+    private static DBusConnection connect(String address) throws DBusException {
+        return DBusConnection.getConnection(address, true, false);
+    }
+
+}
@@ -0,0 +1,301 @@
+package com.javadruid.bluez.mediaplayer.sim;
+
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaFolder1;
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaPlayer1;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.exceptions.DBusExecutionException;
+import org.freedesktop.dbus.interfaces.Properties;
+import org.freedesktop.dbus.interfaces.Properties.PropertiesChanged;
+import org.freedesktop.dbus.types.UInt32;
+import org.freedesktop.dbus.types.Variant;
+
+/**
+ * One exported {@code org.bluez.MediaPlayer1} object. Commands change the
+ * player state and announce it with {@code PropertiesChanged}, as BlueZ
+ * does.
+ * <p>
+ * The player is browsable through {@code org.bluez.MediaFolder1}: its file
+ * system holds {@value #FOLDER_ITEMS} playable items, and a search lists
+ * the ones whose name contains the query in a results folder.
+ */
+class SimulatedPlayer implements BluezMediaPlayer1, BluezMediaFolder1, Properties {
+
+    private static final String TRACK_SIGNATURE = "a{sv}";
+    private static final long TRACK_DURATION = 215_000;
+    private static final int FOLDER_ITEMS = 120;
+
+    private final SimulatedBluez bluez;
+    private final String objectPath;
+    private final Map<String, Variant<?>> properties = new ConcurrentHashMap<>();
+    private final List<String> keyEvents = new CopyOnWriteArrayList<>();
+
+    private final String root;
+    private final String searchResults;
+
+    private long position;
+    private int trackNumber = 1;
+    private String folder;
+    private List<Integer> found = List.of();
+
+    SimulatedPlayer(SimulatedBluez bluez, String objectPath, String devicePath) {
+        this.bluez = bluez;
+        this.objectPath = objectPath;
+        this.root = objectPath + "/Filesystem";
+        this.searchResults = objectPath + "/Search";
+        this.folder = root;
+        properties.put("Browsable", new Variant<>(true));
+        properties.put("Device", new Variant<>(new DBusPath(devicePath)));
+        properties.put("Equalizer", new Variant<>("off"));
+        properties.put("Name", new Variant<>("Simulated " + objectPath.substring(objectPath.lastIndexOf('/') + 1)));
+        properties.put("Position", new Variant<>(new UInt32(0)));
+        properties.put("Repeat", new Variant<>("off"));
+        properties.put("Scan", new Variant<>("off"));
+        properties.put("Searchable", new Variant<>(true));
+        properties.put("Shuffle", new Variant<>("off"));
+        properties.put("Status", new Variant<>("stopped"));
+        properties.put("Subtype", new Variant<>("Audio Book"));
+        properties.put("Track", track(trackNumber));
+        properties.put("Type", new Variant<>("Audio"));
+    }
+
+    @Override
+    public String getObjectPath() {
+        return objectPath;
+    }
+
+    Map<String, Variant<?>> properties() {
+        return Map.copyOf(properties);
+    }
+
+    List<String> keyEvents() {
+        return List.copyOf(keyEvents);
+    }
+
+    /**
+     * Moves the playback position on by {@code millis}, skipping to the next
+     * track at the end of the current one, and signals the change.
+     */
+    synchronized void advance(long millis) throws DBusException {
+        position += millis;
+        if (position < TRACK_DURATION) {
+            change(Map.of("Position", new Variant<>(new UInt32(position))));
+        } else {
+            position = 0;
+            trackNumber++;
+            change(Map.of(
+                "Position", new Variant<>(new UInt32(0)),
+                "Track", track(trackNumber)));
+        }
+    }
+
+    // org.bluez.MediaPlayer1
+    @Override
+    public void FastForward() {
+        status("forward-seek");
+    }
+
+    @Override
+    public void Hold(byte avc_key) {
+        bluez.simulateCall();
+        keyEvents.add("Hold " + avc_key);
+    }
+
+    @Override
+    public void Next() {
+        skip(1);
+    }
+
+    @Override
+    public void Pause() {
+        status("paused");
+    }
+
+    @Override
+    public void Play() {
+        status("playing");
+    }
+
+    @Override
+    public void Press(byte avc_key) {
+        bluez.simulateCall();
+        keyEvents.add("Press " + avc_key);
+    }
+
+    @Override
+    public void Previous() {
+        skip(-1);
+    }
+
+    @Override
+    public void Release() {
+        bluez.simulateCall();
+    }
+
+    @Override
+    public void Rewind() {
+        status("reverse-seek");
+    }
+
+    @Override
+    public void Stop() {
+        status("stopped");
+    }
+
+    // org.bluez.MediaFolder1
+    @Override
+    public synchronized DBusPath Search(String value, Map<String, Variant<?>> filter) {
+        bluez.simulateCall();
+        final List<Integer> matches = new ArrayList<>();
+        for (int i = 0; i < FOLDER_ITEMS; i++)
+            if (itemName(i).contains(value))
+                matches.add(i);
+        found = List.copyOf(matches);
+        return new DBusPath(searchResults);
+    }
+
+    @Override
+    public synchronized Map<DBusPath, Map<String, Variant<?>>> ListItems(Map<String, Variant<?>> filter) {
+        bluez.simulateCall();
+        final List<Integer> items = items();
+        final long start = filterValue(filter, "Start", 0);
+        final long end = filterValue(filter, "End", items.size() - 1);
+        final Map<DBusPath, Map<String, Variant<?>>> result = new LinkedHashMap<>();
+        for (long n = start; n <= end && n < items.size(); n++) {
+            final int item = items.get((int) n);
+            result.put(new DBusPath(root + "/item" + item), Map.of(
+                "Name", new Variant<>(itemName(item)),
+                "Type", new Variant<>("audio"),
+                "Playable", new Variant<>(true)));
+        }
+        return result;
+    }
+
+    @Override
+    public void ChangeFolder(DBusPath newFolder) {
+        bluez.simulateCall();
+        final int count;
+        synchronized (this) {
+            if (!root.equals(newFolder.getPath()) && !searchResults.equals(newFolder.getPath()))
+                throw new DBusExecutionException("No such folder '" + newFolder.getPath() + "'");
+            folder = newFolder.getPath();
+            count = items().size();
+        }
+        try {
+            bluez.emit(new PropertiesChanged(objectPath, MediaFolder1.DBUS_INTERFACE_NAME,
+                Map.of("NumberOfItems", new Variant<>(new UInt32(count))), List.of()));
+        } catch (DBusException ex) {
+            throw new DBusExecutionException(ex.getMessage());
+        }
+    }
+
+    // org.freedesktop.DBus.Properties
+    @Override
+    public <A> A Get(String interfaceName, String propertyName) {
+        bluez.simulateCall();
+        if (MediaFolder1.DBUS_INTERFACE_NAME.equals(interfaceName)) {
+            final Variant<?> value = folderProperties().get(propertyName);
+            if (value == null)
+                throw new DBusExecutionException("No such property '" + propertyName + "'");
+            return (A) value;
+        }
+        checkInterface(interfaceName);
+        final Variant<?> value = properties.get(propertyName);
+        if (value == null)
+            throw new DBusExecutionException("No such property '" + propertyName + "'");
+        return (A) value;
+    }
+
+    @Override
+    public <A> void Set(String interfaceName, String propertyName, A value) {
+        bluez.simulateCall();
+        checkInterface(interfaceName);
+        if (!"Equalizer".equals(propertyName) && !"Repeat".equals(propertyName)
+                && !"Shuffle".equals(propertyName) && !"Scan".equals(propertyName))
+            throw new DBusExecutionException("Property '" + propertyName + "' is not writable");
+        send(Map.of(propertyName, value instanceof Variant<?> v? v: new Variant<>(value)));
+    }
+
+    @Override
+    public Map<String, Variant<?>> GetAll(String interfaceName) {
+        bluez.simulateCall();
+        if (MediaFolder1.DBUS_INTERFACE_NAME.equals(interfaceName))
+            return folderProperties();
+        checkInterface(interfaceName);
+        return properties();
+    }
+
+    private void status(String status) {
+        bluez.simulateCall();
+        send(Map.of("Status", new Variant<>(status)));
+    }
+
+    private synchronized void skip(int tracks) {
+        bluez.simulateCall();
+        trackNumber = Math.max(1, trackNumber + tracks);
+        position = 0;
+        send(Map.of(
+            "Position", new Variant<>(new UInt32(0)),
+            "Track", track(trackNumber)));
+    }
+
+    private void send(Map<String, Variant<?>> changed) {
+        try {
+            change(changed);
+        } catch (DBusException ex) {
+            throw new DBusExecutionException(ex.getMessage());
+        }
+    }
+
+    private void change(Map<String, Variant<?>> changed) throws DBusException {
+        properties.putAll(changed);
+        bluez.emit(new PropertiesChanged(objectPath, MediaPlayer1.DBUS_INTERFACE_NAME, changed, List.of()));
+    }
+
+    private synchronized Map<String, Variant<?>> folderProperties() {
+        return Map.of(
+            "NumberOfItems", new Variant<>(new UInt32(items().size())),
+            "Name", new Variant<>(folder.substring(folder.lastIndexOf('/') + 1)));
+    }
+
+    private List<Integer> items() {
+        if (searchResults.equals(folder))
+            return found;
+        final List<Integer> all = new ArrayList<>(FOLDER_ITEMS);
+        for (int i = 0; i < FOLDER_ITEMS; i++)
+            all.add(i);
+        return all;
+    }
+
+    private static String itemName(int item) {
+        return "Item " + item;
+    }
+
+    private static long filterValue(Map<String, Variant<?>> filter, String name, long defaultValue) {
+        final Variant<?> value = filter.get(name);
+        return value != null && value.getValue() instanceof UInt32 n? n.longValue(): defaultValue;
+    }
+
+    private static void checkInterface(String interfaceName) {
+        if (!MediaPlayer1.DBUS_INTERFACE_NAME.equals(interfaceName))
+            throw new DBusExecutionException("No such interface '" + interfaceName + "'");
+    }
+
+    private static Variant<?> track(int trackNumber) {
+        return new Variant<>(Map.<String, Variant<?>>of(
+            "Title", new Variant<>("Track " + trackNumber),
+            "Artist", new Variant<>("Simulated Artist"),
+            "Album", new Variant<>("Simulated Album"),
+            "Genre", new Variant<>("Simulation"),
+            "NumberOfTracks", new Variant<>(new UInt32(1_000)),
+            "TrackNumber", new Variant<>(new UInt32(trackNumber)),
+            "Duration", new Variant<>(new UInt32(TRACK_DURATION))), TRACK_SIGNATURE);
+    }
+
+}
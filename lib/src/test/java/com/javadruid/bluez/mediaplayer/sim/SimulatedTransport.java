@@ -0,0 +1,86 @@
+package com.javadruid.bluez.mediaplayer.sim;
+
+import com.javadruid.bluez.mediaplayer.lib.interfaces.MediaTransport1;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.freedesktop.dbus.DBusPath;
+import org.freedesktop.dbus.exceptions.DBusException;
+import org.freedesktop.dbus.exceptions.DBusExecutionException;
+import org.freedesktop.dbus.interfaces.Properties;
+import org.freedesktop.dbus.interfaces.Properties.PropertiesChanged;
+import org.freedesktop.dbus.types.UInt16;
+import org.freedesktop.dbus.types.Variant;
+
+/**
+ * One exported {@code org.bluez.MediaTransport1} object, the A2DP stream of
+ * a simulated device. Only its {@code Volume} can be written, and a write
+ * is announced with {@code PropertiesChanged}, as BlueZ does.
+ */
+class SimulatedTransport implements Properties {
+
+    private final SimulatedBluez bluez;
+    private final String objectPath;
+    private final Map<String, Variant<?>> properties = new ConcurrentHashMap<>();
+
+    SimulatedTransport(SimulatedBluez bluez, String objectPath, String devicePath) {
+        this.bluez = bluez;
+        this.objectPath = objectPath;
+        properties.put("Device", new Variant<>(new DBusPath(devicePath)));
+        properties.put("UUID", new Variant<>("0000110a-0000-1000-8000-00805f9b34fb"));
+        properties.put("Codec", new Variant<>((byte) 0));
+        properties.put("State", new Variant<>("idle"));
+        properties.put("Delay", new Variant<>(new UInt16(150)));
+        properties.put("Volume", new Variant<>(new UInt16(64)));
+    }
+
+    @Override
+    public String getObjectPath() {
+        return objectPath;
+    }
+
+    Map<String, Variant<?>> properties() {
+        return Map.copyOf(properties);
+    }
+
+    // org.freedesktop.DBus.Properties
+    @Override
+    public <A> A Get(String interfaceName, String propertyName) {
+        bluez.simulateCall();
+        checkInterface(interfaceName);
+        final Variant<?> value = properties.get(propertyName);
+        if (value == null)
+            throw new DBusExecutionException("No such property '" + propertyName + "'");
+        return (A) value;
+    }
+
+    @Override
+    public <A> void Set(String interfaceName, String propertyName, A value) {
+        bluez.simulateCall();
+        checkInterface(interfaceName);
+        if (!"Volume".equals(propertyName))
+            throw new DBusExecutionException("Property '" + propertyName + "' is not writable");
+        if (!(value instanceof UInt16))
+            throw new DBusExecutionException("Volume must be a uint16, not " + value);
+        final Map<String, Variant<?>> changed = Map.of(propertyName, new Variant<>(value));
+        properties.putAll(changed);
+        try {
+            bluez.emit(new PropertiesChanged(objectPath, MediaTransport1.DBUS_INTERFACE_NAME, changed, List.of()));
+        } catch (DBusException ex) {
+            throw new DBusExecutionException(ex.getMessage());
+        }
+    }
+
+    @Override
+    public Map<String, Variant<?>> GetAll(String interfaceName) {
+        bluez.simulateCall();
+        checkInterface(interfaceName);
+        return properties();
+    }
+
+    private static void checkInterface(String interfaceName) {
+        if (!MediaTransport1.DBUS_INTERFACE_NAME.equals(interfaceName))
+            throw new DBusExecutionException("No such interface '" + interfaceName + "'");
+    }
+
+}
@@ -5,6 +5,8 @@ open module com.javadruid.bluez.mediaplayer.lib {
     requires org.mockito;
     requires org.mockito.junit.jupiter;
     requires org.freedesktop.dbus;
+    requires java.management;
+    requires jdk.jfr;
 
     exports com.javadruid.bluez.mediaplayer.lib;
 }
@@ -2,21 +2,88 @@ package com.javadruid.bluez.mediaplayer.ui;
 
 import com.javadruid.bluez.mediaplayer.lib.MediaPlayer;
 import com.javadruid.bluez.mediaplayer.lib.MediaPlayerManager;
+import com.javadruid.bluez.mediaplayer.lib.MediaPlayerRegistry;
+import com.javadruid.bluez.mediaplayer.lib.MediaTransport;
+import com.javadruid.bluez.mediaplayer.lib.PlayerGroup;
+import com.javadruid.bluez.mediaplayer.lib.PlayerState;
+import com.javadruid.bluez.mediaplayer.lib.Subscription;
 import java.io.Closeable;
 import java.io.IOException;
+import java.lang.System.Logger.Level;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import javafx.application.Platform;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.CheckBox;
+import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
 import javafx.scene.control.MultipleSelectionModel;
 import javafx.scene.control.SelectionMode;
+import javafx.scene.control.Slider;
 import javafx.scene.control.TextField;
 
+/**
+ * All D-Bus work runs on virtual threads; results are handed back to the
+ * JavaFX thread with {@link Platform#runLater(Runnable)}. Players that fail
+ * or time out on a command are logged. Players are listed by their object
+ * path until their device name has been read.
+ */
 public class MainController implements Closeable {
 
-    private final MediaPlayerManager mediaPlayerManager = new MediaPlayerManager();
+    private static final Duration UPDATE_WINDOW = Duration.ofMillis(100);
+    private static final Duration VOLUME_INTERVAL = Duration.ofMillis(100);
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(1);
+
+    private static final System.Logger logger = System.getLogger(MainController.class.getName());
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread thread = new Thread(r, "player-updates");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final CompletableFuture<MediaPlayerManager> mediaPlayerManager =
+        CompletableFuture.supplyAsync(MainController::newMediaPlayerManager, executor);
+    private final MediaPlayerRegistry.Listener registryListener = new MediaPlayerRegistry.Listener() {
+        @Override
+        public void playerAdded(MediaPlayer player) {
+            Platform.runLater(() -> {
+                if (!players.getItems().contains(player))
+                    players.getItems().add(player);
+            });
+            executor.execute(() -> showLabel(player));
+        }
+
+        @Override
+        public void playerRemoved(MediaPlayer player) {
+            Platform.runLater(() -> {
+                players.getItems().remove(player);
+                labels.remove(player);
+            });
+        }
+    };
+    // Only used on the JavaFX thread
+    private final Map<MediaPlayer, String> labels = new HashMap<>();
+
+    private MediaPlayer selectedPlayer;
+    private Subscription subscription;
+    private MediaTransport transport;
+    private boolean showingVolume;
+    private CompletableFuture<Void> selection = CompletableFuture.completedFuture(null);
 
     @FXML
     ListView<MediaPlayer> players;
@@ -48,90 +115,297 @@ public class MainController implements Closeable {
     TextField track;
     @FXML
     TextField type;
+    @FXML
+    Slider volume;
 
     public void initialize() {
         final MultipleSelectionModel<MediaPlayer> selectionModel = players.getSelectionModel();
         selectionModel.setSelectionMode(SelectionMode.MULTIPLE);
         selectionModel.selectedItemProperty().addListener(this::changed);
-        final ObservableList<MediaPlayer> listItems = players.getItems();
-        mediaPlayerManager.getMediaPlayers().forEach(listItems::add);
-        if (!listItems.isEmpty()) {
-            selectionModel.selectFirst();
-            update(selectionModel.getSelectedItem());
-        }
+        players.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(MediaPlayer player, boolean empty) {
+                super.updateItem(player, empty);
+                setText(empty || player == null? null: labels.getOrDefault(player, player.getObjectPath()));
+            }
+        });
+        volume.valueProperty().addListener((observable, oldValue, newValue) -> {
+            if (!showingVolume && transport != null)
+                transport.setVolume(newValue.intValue());
+        });
+        mediaPlayerManager.thenAcceptAsync(m -> {
+            final MediaPlayerRegistry registry = m.registry();
+            registry.addListener(registryListener);
+            showPlayers(List.copyOf(registry.currentPlayers()));
+        }, executor);
     }
 
     @FXML
     void onRefresh(ActionEvent event) {
-        players.getSelectionModel()
-            .selectedItemProperty()
-            .removeListener(this::changed);
-        players.getItems().clear();
-        initialize();
+        mediaPlayerManager.thenAcceptAsync(m -> showPlayers(List.copyOf(m.registry().currentPlayers())), executor);
     }
 
     @FXML
     void onPrevious(ActionEvent event) {
-        final MediaPlayer currentPlayer = getCurrentPlayer();
-        if(currentPlayer != null) currentPlayer.previous();
+        report("Previous", selectedPlayers().previous());
     }
 
     @FXML
     void onPlay(ActionEvent event) {
-        MediaPlayer currentPlayer = getCurrentPlayer();
-        if(currentPlayer != null) currentPlayer.play();
+        report("Play", selectedPlayers().play());
     }
 
     @FXML
     void onPause(ActionEvent event) {
-        MediaPlayer currentPlayer = getCurrentPlayer();
-        if(currentPlayer != null) currentPlayer.pause();
+        report("Pause", selectedPlayers().pause());
     }
 
     @FXML
     void onNext(ActionEvent event) {
-        MediaPlayer currentPlayer = getCurrentPlayer();
-        if(currentPlayer != null) currentPlayer.next();
+        report("Next", selectedPlayers().next());
     }
 
+    /**
+     * Releases the player and the bus on a thread of its own, so the JavaFX
+     * thread does not wait for them. The thread keeps the JVM running until
+     * it is done.
+     */
     @Override
     public void close() throws IOException {
-        mediaPlayerManager.close();
+        final Subscription lastSubscription = subscription;
+        final MediaTransport lastTransport = transport;
+        final CompletableFuture<Void> lastSelection = selection;
+        selectedPlayer = null;
+        subscription = null;
+        transport = null;
+        Thread.ofPlatform().name("player-shutdown").start(() -> {
+            mediaPlayerManager.thenAccept(m -> m.registry().removeListener(registryListener));
+            // A pending selection change releases what it opened on the
+            // executor, so it has to be over before the executor stops
+            await(lastSelection);
+            if (lastSubscription != null)
+                lastSubscription.close();
+            if (lastTransport != null)
+                lastTransport.close();
+            // Pending selection changes close their transports, whose last
+            // volume writes then still have to run on the scheduler
+            shutdown(executor);
+            shutdown(scheduler);
+            mediaPlayerManager.thenAccept(m -> {
+                try {
+                    m.close();
+                } catch (IOException ex) {
+                    logger.log(Level.WARNING, "Could not close the player manager", ex);
+                }
+            });
+        });
+    }
+
+    private static void await(CompletableFuture<Void> pending) {
+        try {
+            pending.get(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            pending.cancel(true);
+        } catch (ExecutionException ex) {
+            logger.log(Level.WARNING, "Selection change failed", ex.getCause());
+        } catch (InterruptedException ex) {
+            pending.cancel(true);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void shutdown(ExecutorService service) {
+        service.shutdown();
+        try {
+            if (!service.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS))
+                service.shutdownNow();
+        } catch (InterruptedException ex) {
+            service.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static MediaPlayerManager newMediaPlayerManager() {
+        final MediaPlayerManager manager = new MediaPlayerManager();
+        manager.enableReconnect();
+        return manager;
+    }
+
+    /**
+     * Shows {@code current} in the list; runs on the executor, as reading
+     * the labels of the players takes a round trip each.
+     */
+    private void showPlayers(List<MediaPlayer> current) {
+        final Map<MediaPlayer, String> currentLabels = new HashMap<>();
+        current.forEach(p -> currentLabels.put(p, p.toString()));
+        Platform.runLater(() -> {
+            labels.keySet().retainAll(current);
+            labels.putAll(currentLabels);
+            final ObservableList<MediaPlayer> listItems = players.getItems();
+            listItems.setAll(current);
+            if (!listItems.isEmpty() && players.getSelectionModel().getSelectedItem() == null)
+                players.getSelectionModel().selectFirst();
+        });
+    }
+
+    private void showLabel(MediaPlayer player) {
+        final String label = player.toString();
+        Platform.runLater(() -> {
+            if (players.getItems().contains(player)) {
+                labels.put(player, label);
+                players.refresh();
+            }
+        });
+    }
+
+    private void update(PlayerState s) {
+        browsable.setSelected(Boolean.TRUE.equals(s.browsable()));
+        searchable.setSelected(Boolean.TRUE.equals(s.searchable()));
+        device.setText(orEmpty(s.device()));
+        equaliser.setText(orEmpty(s.equalizer()));
+        name.setText(orEmpty(s.name()));
+        playlist.setText(orEmpty(s.playlist()));
+        position.setText(s.position() != null? Integer.toUnsignedString(s.position()): "");
+        repeat.setText(orEmpty(s.repeat()));
+        scan.setText(orEmpty(s.scan()));
+        shuffle.setText(orEmpty(s.shuffle()));
+        status.setText(orEmpty(s.status()));
+        subtype.setText(orEmpty(s.subtype()));
+        track.setText(s.track() != null? s.track().toString(): "<no track>");
+        type.setText(orEmpty(s.type()));
+    }
+
+    private void update(PlayerState s, String property) {
+        switch (property) {
+            case "Browsable" -> browsable.setSelected(Boolean.TRUE.equals(s.browsable()));
+            case "Searchable" -> searchable.setSelected(Boolean.TRUE.equals(s.searchable()));
+            case "Device" -> device.setText(orEmpty(s.device()));
+            case "Equalizer" -> equaliser.setText(orEmpty(s.equalizer()));
+            case "Name" -> name.setText(orEmpty(s.name()));
+            case "Playlist" -> playlist.setText(orEmpty(s.playlist()));
+            case "Position" -> position.setText(s.position() != null? Integer.toUnsignedString(s.position()): "");
+            case "Repeat" -> repeat.setText(orEmpty(s.repeat()));
+            case "Scan" -> scan.setText(orEmpty(s.scan()));
+            case "Shuffle" -> shuffle.setText(orEmpty(s.shuffle()));
+            case "Status" -> status.setText(orEmpty(s.status()));
+            case "Subtype" -> subtype.setText(orEmpty(s.subtype()));
+            case "Track" -> track.setText(s.track() != null? s.track().toString(): "<no track>");
+            case "Type" -> type.setText(orEmpty(s.type()));
+            default -> {
+            }
+        }
     }
 
-    private void update(MediaPlayer p) {
-        browsable.setSelected(p.isBrowsable().orElse(Boolean.FALSE));
-        searchable.setSelected(p.isSearchable().orElse(Boolean.FALSE));
-        device.setText(p.getDevice().orElse(""));
-        equaliser.setText(p.getEqualizer().orElse(""));
-        name.setText(p.getName().orElse(""));
-        playlist.setText(p.getPlaylist().orElse(""));
-        position.setText(p.getPosition().map(Integer::toUnsignedString).orElse(""));
-        repeat.setText(p.getRepeat().orElse(""));
-        scan.setText(p.getScan().orElse(""));
-        shuffle.setText(p.getShuffle().orElse(""));
-        status.setText(p.getStatus().orElse(""));
-        subtype.setText(p.getSubtype().orElse(""));
-        track.setText(p.getTrack().map(Object::toString).orElse("<no track>"));
-        type.setText(p.getType().orElse(""));
+    private void showVolume(Optional<Integer> value) {
+        if (volume.isValueChanging())
+            return;
+        showingVolume = true;
+        volume.setDisable(value.isEmpty());
+        volume.setValue(value.orElse(0));
+        showingVolume = false;
     }
 
-    private MediaPlayer getCurrentPlayer() {
-        return players.getSelectionModel().getSelectedItem();
+    private static String orEmpty(String value) {
+        return value != null? value: "";
+    }
+
+    private PlayerGroup selectedPlayers() {
+        return new PlayerGroup(List.copyOf(players.getSelectionModel().getSelectedItems()));
+    }
+
+    private static void report(String command, CompletableFuture<List<PlayerGroup.Result>> results) {
+        results.thenAccept(list -> list.stream()
+            .filter(r -> !r.isOk())
+            .forEach(r -> logger.log(Level.WARNING, command + " " + r.outcome() + " on " + r.player(), r.error())));
     }
 
     private void changed(ObservableValue observable, Object oldValue, Object newValue) {
         final MediaPlayer player = (MediaPlayer) newValue;
-        if (player != null) {
-            player.onPropertyChange(e -> {
-                update(player);
-            });
-            update(player);
-        }
         final MediaPlayer oldPlayer = (MediaPlayer) oldValue;
-        if (oldPlayer != null) {
-            oldPlayer.removePropertyChange();
-        }
+        final Subscription oldSubscription = subscription;
+        final MediaTransport oldTransport = transport;
+        selectedPlayer = player;
+        subscription = null;
+        transport = null;
+        showVolume(Optional.empty());
+        selection = selection.thenRunAsync(() -> {
+            if (oldSubscription != null)
+                oldSubscription.close();
+            if (oldTransport != null)
+                oldTransport.close();
+            if (oldPlayer != null && !oldPlayer.equals(player))
+                oldPlayer.disableCache();
+        }, executor).thenCompose(v -> player != null? select(player): CompletableFuture.completedFuture(null))
+            .exceptionally(ex -> {
+                logger.log(Level.WARNING, "Could not select " + player, ex);
+                return null;
+            });
+    }
+
+    private CompletableFuture<Void> select(MediaPlayer player) {
+        final Subscription newSubscription =
+            player.subscribeCoalesced(delta -> onPropertyChange(player, delta), UPDATE_WINDOW, scheduler);
+        player.enableCache();
+        final CompletableFuture<MediaTransport> transportLookup = mediaPlayerManager.thenApplyAsync(m ->
+            m.getTransport(player, VOLUME_INTERVAL, scheduler).orElse(null), executor);
+        return player.async().snapshot()
+            .thenCombine(transportLookup, (state, newTransport) -> show(player, state, newSubscription, newTransport))
+            .thenCompose(Function.identity())
+            .whenComplete((v, ex) -> {
+                if (ex != null) {
+                    newSubscription.close();
+                    transportLookup.thenAccept(t -> {
+                        if (t != null)
+                            t.close();
+                    });
+                }
+            });
+    }
+
+    /**
+     * Shows {@code state} if {@code player} is still the one selected;
+     * otherwise releases the subscription and transport opened for it. The
+     * future completes once either is done.
+     */
+    private CompletableFuture<Void> show(MediaPlayer player, PlayerState state, Subscription newSubscription, MediaTransport newTransport) {
+        if (newTransport != null)
+            newTransport.subscribe(change -> {
+                if (!"Volume".equals(change.getKey()))
+                    return;
+                final Optional<Integer> value = newTransport.getVolume();
+                Platform.runLater(() -> {
+                    if (newTransport == transport)
+                        showVolume(value);
+                });
+            });
+        final CompletableFuture<Boolean> shown = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            if (player.equals(selectedPlayer)) {
+                subscription = newSubscription;
+                transport = newTransport;
+                update(state);
+                if (newTransport != null)
+                    showVolume(newTransport.getVolume());
+                shown.complete(true);
+            } else {
+                shown.complete(false);
+            }
+        });
+        return shown.thenAcceptAsync(current -> {
+            if (current)
+                return;
+            newSubscription.close();
+            if (newTransport != null)
+                newTransport.close();
+        }, executor);
+    }
+
+    private void onPropertyChange(MediaPlayer player, Map<String, Object> delta) {
+        final PlayerState state = player.snapshot();
+        Platform.runLater(() -> {
+            if (player.equals(selectedPlayer))
+                delta.keySet().forEach(p -> update(state, p));
+        });
     }
 
 }